@@ -0,0 +1,66 @@
+package io.github.crizzis.codenarc.benchmarks;
+
+import io.github.crizzis.codenarc.parser.CodeNarcAnalysis;
+import io.github.crizzis.codenarc.parser.CodeNarcXmlParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing a synthetic report of up to 1,000,000 violations, sequentially and with all the available processors
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "--add-opens", "java.base/jdk.internal.loader=ALL-UNNAMED"})
+public class ParserBenchmark {
+
+    @Param({"2", "8"})
+    public int packageDepth;
+
+    @Param({"1000", "10000"})
+    public int files;
+
+    @Param({"10", "100"})
+    public int violationsPerFile;
+
+    private final CodeNarcXmlParser parser = new CodeNarcXmlParser();
+    private File report;
+
+    @Setup(Level.Trial)
+    public void writeReport() throws Exception {
+        report = Files.createTempFile("CodeNarc", ".xml").toFile();
+        new SyntheticReport(packageDepth, files, violationsPerFile).writeTo(report);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteReport() throws Exception {
+        Files.delete(report.toPath());
+    }
+
+    @Benchmark
+    public CodeNarcAnalysis parse() throws Exception {
+        return parser.parse(report);
+    }
+
+    @Benchmark
+    public CodeNarcAnalysis parseInParallel() throws Exception {
+        return parser.parse(report, 0);
+    }
+}
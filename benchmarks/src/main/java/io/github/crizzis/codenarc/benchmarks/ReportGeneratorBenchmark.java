@@ -0,0 +1,82 @@
+package io.github.crizzis.codenarc.benchmarks;
+
+import io.github.crizzis.codenarc.parser.CodeNarcAnalysis;
+import io.github.crizzis.codenarc.parser.CodeNarcXmlParser;
+import io.github.crizzis.codenarc.report.CodeNarcReportGenerator;
+import org.apache.maven.doxia.sink.impl.SinkAdapter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures rendering a parsed synthetic report into a {@link org.apache.maven.doxia.sink.Sink} which discards
+ * everything, so that only the cost of walking the results and producing the sink events is measured
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "--add-opens", "java.base/jdk.internal.loader=ALL-UNNAMED"})
+public class ReportGeneratorBenchmark {
+
+    @Param({"2", "8"})
+    public int packageDepth;
+
+    @Param({"1000", "10000"})
+    public int files;
+
+    @Param({"10", "100"})
+    public int violationsPerFile;
+
+    private final CodeNarcReportGenerator generator = new CodeNarcReportGenerator();
+    private CodeNarcAnalysis analysis;
+
+    @Setup(Level.Trial)
+    public void parseReport() throws Exception {
+        File report = Files.createTempFile("CodeNarc", ".xml").toFile();
+        try {
+            new SyntheticReport(packageDepth, files, violationsPerFile).writeTo(report);
+            analysis = new CodeNarcXmlParser().parse(report);
+        } finally {
+            Files.delete(report.toPath());
+        }
+    }
+
+    @Benchmark
+    public void generate(Blackhole blackhole) {
+        generator.generate(analysis, new BlackholeSink(blackhole), Locale.ENGLISH);
+    }
+
+    /**
+     * Hands the rendered text over to JMH, so that producing it cannot be optimized away
+     */
+    private static class BlackholeSink extends SinkAdapter {
+
+        private final Blackhole blackhole;
+
+        BlackholeSink(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void text(String text) {
+            blackhole.consume(text);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package io.github.crizzis.codenarc.benchmarks;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Writes a synthetic CodeNarc XML report in the format produced by the plugin.
+ *
+ * The files are spread over packages of {@value #FILES_PER_PACKAGE} files each, all of them nested
+ * {@code packageDepth} levels deep in a single source directory. Every file has the same number of violations,
+ * with the priorities and rules cycling through their possible values
+ */
+public class SyntheticReport {
+
+    private static final int FILES_PER_PACKAGE = 20;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String[] RULES = {"UnusedImport", "LineLength", "EmptyMethod", "UnnecessaryGString", "DuplicateStringLiteral"};
+    private static final int PRIORITIES = 3;
+
+    private final int packageDepth;
+    private final int files;
+    private final int violationsPerFile;
+
+    public SyntheticReport(int packageDepth, int files, int violationsPerFile) {
+        this.packageDepth = packageDepth;
+        this.files = files;
+        this.violationsPerFile = violationsPerFile;
+    }
+
+    public void writeTo(File report) throws IOException, XMLStreamException {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(report.toPath()), UTF_8), BUFFER_SIZE)) {
+            XMLStreamWriter xml = XMLOutputFactory.newFactory().createXMLStreamWriter(writer);
+            xml.writeStartDocument("1.0");
+            xml.writeStartElement("CodeNarc");
+            xml.writeAttribute("url", "https://www.codenarc.org");
+            xml.writeAttribute("version", "1.5");
+            xml.writeEmptyElement("Report");
+            xml.writeAttribute("timestamp", "Jan 1, 2020, 12:00:00 AM");
+            xml.writeStartElement("Project");
+            xml.writeAttribute("title", "synthetic");
+            xml.writeStartElement("SourceDirectory");
+            xml.writeCharacters("src/main/groovy");
+            xml.writeEndElement();
+            xml.writeEndElement();
+            writePackage(xml, "PackageSummary", null, files);
+            xml.writeEndElement();
+            writePackage(xml, "Package", "", files);
+            xml.writeEndElement();
+            for (int packageIndex = 0; packageIndex * FILES_PER_PACKAGE < files; packageIndex++) {
+                int packageFiles = Math.min(FILES_PER_PACKAGE, files - packageIndex * FILES_PER_PACKAGE);
+                writePackage(xml, "Package", packagePath(packageIndex), packageFiles);
+                for (int fileIndex = 0; fileIndex < packageFiles; fileIndex++) {
+                    writeFile(xml, "Source" + fileIndex + ".groovy");
+                }
+                xml.writeEndElement();
+            }
+            writeRules(xml);
+            xml.writeEndElement();
+            xml.writeEndDocument();
+            xml.flush();
+        }
+    }
+
+    private String packagePath(int packageIndex) {
+        StringBuilder path = new StringBuilder("module").append(packageIndex);
+        for (int level = 1; level < packageDepth; level++) {
+            path.append("/level").append(level);
+        }
+        return path.toString();
+    }
+
+    private void writePackage(XMLStreamWriter xml, String element, String path, int packageFiles) throws XMLStreamException {
+        xml.writeStartElement(element);
+        if (path != null) {
+            xml.writeAttribute("path", path);
+        }
+        xml.writeAttribute("totalFiles", String.valueOf(packageFiles));
+        xml.writeAttribute("filesWithViolations", String.valueOf(violationsPerFile > 0 ? packageFiles : 0));
+        for (int priority = 1; priority <= PRIORITIES; priority++) {
+            xml.writeAttribute("priority" + priority, String.valueOf(packageFiles * violationsWithPriority(priority)));
+        }
+    }
+
+    private int violationsWithPriority(int priority) {
+        return violationsPerFile / PRIORITIES + (priority <= violationsPerFile % PRIORITIES ? 1 : 0);
+    }
+
+    private void writeFile(XMLStreamWriter xml, String name) throws XMLStreamException {
+        xml.writeStartElement("File");
+        xml.writeAttribute("name", name);
+        for (int violation = 0; violation < violationsPerFile; violation++) {
+            xml.writeStartElement("Violation");
+            xml.writeAttribute("ruleName", RULES[violation % RULES.length]);
+            xml.writeAttribute("priority", String.valueOf(violation % PRIORITIES + 1));
+            xml.writeAttribute("lineNumber", String.valueOf(violation + 1));
+            xml.writeStartElement("SourceLine");
+            xml.writeCData("def value" + violation + " = \"synthetic source line of ${name} number " + violation + "\"");
+            xml.writeEndElement();
+            xml.writeStartElement("Message");
+            xml.writeCData("Synthetic violation " + violation + " of rule " + RULES[violation % RULES.length]);
+            xml.writeEndElement();
+            xml.writeEndElement();
+        }
+        xml.writeEndElement();
+    }
+
+    private void writeRules(XMLStreamWriter xml) throws XMLStreamException {
+        xml.writeStartElement("Rules");
+        for (String rule : RULES) {
+            xml.writeStartElement("Rule");
+            xml.writeAttribute("name", rule);
+            xml.writeStartElement("Description");
+            xml.writeCData("Synthetic description of " + rule);
+            xml.writeEndElement();
+            xml.writeEndElement();
+        }
+        xml.writeEndElement();
+    }
+}
@@ -0,0 +1,85 @@
+package io.github.crizzis.codenarc;
+
+import io.github.crizzis.codenarc.report.ReportConfig;
+import lombok.Getter;
+import lombok.Setter;
+import org.apache.maven.doxia.module.xhtml.XhtmlSinkFactory;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.reporting.AbstractMavenReport;
+
+import java.io.File;
+import java.nio.charset.Charset;
+
+/**
+ * The settings shared by the goals rendering a CodeNarc report
+ */
+@Getter
+@Setter
+public abstract class AbstractCodeNarcReportMojo extends AbstractMavenReport {
+
+    /**
+     * Set this to "true" to bypass CodeNarc report generation entirely
+     */
+    @Parameter(property = "codenarc.skip", defaultValue = "false")
+    private boolean skip;
+
+    /**
+     * The number of threads used for rendering the package pages of a split report
+     * (and, by the {@code codenarc} goal, for parsing a large XML report).
+     * The default value of 0 means the number of available processors will be used
+     */
+    @Parameter(property = "codenarc.threads", defaultValue = "0")
+    private int threads;
+
+    /**
+     * Set this to "true" to write the violations of every package to a separate page, linked from the package summary,
+     * instead of writing the whole report to a single page
+     */
+    @Parameter(property = "codenarc.splitReport", defaultValue = "false")
+    private boolean splitReport;
+
+    /**
+     * The number of files, packages and rules with the most violations listed in the hotspots section of the report.
+     * Set this to 0 to leave the hotspots section out
+     */
+    @Parameter(property = "codenarc.hotspots", defaultValue = "10")
+    private int hotspots;
+
+    /**
+     * The number of source lines shown before and after the line of every violation.
+     * The default value of 0 means only the line of the violation will be shown, as recorded in the XML report.
+     * As the source files may change without the XML report changing, a report showing source lines is always rendered again
+     */
+    @Parameter(property = "codenarc.sourceContextLines", defaultValue = "0")
+    private int sourceContextLines;
+
+    /**
+     * The encoding of the source files, used for showing the source lines around violations
+     */
+    @Parameter(property = "codenarc.sourceEncoding", defaultValue = "${project.build.sourceEncoding}")
+    private String sourceEncoding;
+
+    @Parameter(defaultValue = "${project.basedir}", readonly = true)
+    private File baseDirectory;
+
+    /**
+     * Outside of site generation, the package pages are written as plain XHTML next to the report
+     */
+    protected ReportConfig getReportConfig() {
+        ReportConfig.ReportConfigBuilder config = ReportConfig.builder()
+                .hotspots(getHotspots())
+                .sourceContextLines(getSourceContextLines())
+                .baseDirectory(getBaseDirectory())
+                .sourceEncoding(getSourceEncoding() != null ? Charset.forName(getSourceEncoding()) : null);
+        if (!isSplitReport()) {
+            return config.build();
+        }
+        return config
+                .splitPages(true)
+                .sinkFactory(getSinkFactory() != null ? getSinkFactory() : new XhtmlSinkFactory())
+                .outputDirectory(getReportOutputDirectory())
+                .outputName(getOutputName())
+                .threads(getThreads())
+                .build();
+    }
+}
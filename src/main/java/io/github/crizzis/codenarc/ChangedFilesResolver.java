@@ -0,0 +1,90 @@
+package io.github.crizzis.codenarc;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.maven.plugin.MojoExecutionException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Resolves the files that differ between the working tree of the local git repository and a base revision.
+ *
+ * The comparison is made against the merge base of the revision and {@code HEAD}, so that only the changes
+ * made on the current branch are taken into account. Uncommitted (including untracked) files are considered changed,
+ * deleted files are not
+ */
+@RequiredArgsConstructor
+class ChangedFilesResolver {
+
+    private static final String NUL = "\0";
+
+    private final File workingDirectory;
+
+    Set<File> resolveChangedFiles(String baseRevision) throws MojoExecutionException {
+        File topLevel = new File(git(workingDirectory, "rev-parse", "--show-toplevel").trim());
+        String mergeBase = git(topLevel, "merge-base", baseRevision, "HEAD").trim();
+        List<String> paths = new ArrayList<>();
+        paths.addAll(split(git(topLevel, "diff", "--name-only", "-z", "--diff-filter=d", mergeBase)));
+        paths.addAll(split(git(topLevel, "ls-files", "-z", "--others", "--exclude-standard")));
+        Set<File> changedFiles = new HashSet<>();
+        for (String path : paths) {
+            changedFiles.add(canonical(new File(topLevel, path)));
+        }
+        return changedFiles;
+    }
+
+    private List<String> split(String output) {
+        return Arrays.stream(output.split(NUL))
+                .filter(path -> !path.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    private File canonical(File file) throws MojoExecutionException {
+        try {
+            return file.getCanonicalFile();
+        } catch (IOException e) {
+            throw new MojoExecutionException(String.format("Cannot resolve changed file: %s", file), e);
+        }
+    }
+
+    private String git(File directory, String... arguments) throws MojoExecutionException {
+        List<String> command = new ArrayList<>();
+        command.add("git");
+        command.addAll(Arrays.asList(arguments));
+        try {
+            Process process = new ProcessBuilder(command).directory(directory).start();
+            process.getOutputStream().close();
+            CompletableFuture<String> error = CompletableFuture.supplyAsync(() -> read(process.getErrorStream()));
+            String output = read(process.getInputStream());
+            if (process.waitFor() != 0) {
+                throw new MojoExecutionException(String.format("Command '%s' failed: %s",
+                        String.join(" ", command), error.join().trim()));
+            }
+            return output;
+        } catch (IOException | UncheckedIOException e) {
+            throw new MojoExecutionException(String.format("Cannot execute '%s'", String.join(" ", command)), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException(String.format("Interrupted while executing '%s'", String.join(" ", command)), e);
+        }
+    }
+
+    private static String read(InputStream stream) {
+        try (stream) {
+            return new String(stream.readAllBytes(), UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package io.github.crizzis.codenarc;
+
+import io.github.crizzis.codenarc.parser.CodeNarcAnalysis;
+import io.github.crizzis.codenarc.parser.CodeNarcReportMerger;
+import io.github.crizzis.codenarc.parser.CodeNarcXmlParser;
+import io.github.crizzis.codenarc.report.CodeNarcReportGenerator;
+import lombok.Getter;
+import lombok.Setter;
+import org.apache.maven.plugins.annotations.Execute;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.reporting.MavenReportException;
+
+import javax.inject.Inject;
+import java.io.File;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.ResourceBundle;
+import java.util.stream.Collectors;
+
+import static org.apache.maven.plugins.annotations.LifecyclePhase.SITE;
+
+/**
+ * Create a single CodeNarc report for all the modules of a multi-module project
+ * (implies the execution of the {@code verify} goal in every module).
+ * The XML reports of the modules are read from their default location, i.e. {@code CodeNarc.xml}
+ * (or {@code CodeNarc.xml.gz}) in the build directory of each module, and merged package by package into one XML report
+ */
+@Getter
+@Setter
+@Mojo(name = "aggregate", aggregator = true, defaultPhase = SITE)
+@Execute(goal = "verify")
+public class CodeNarcAggregateMojo extends AbstractCodeNarcReportMojo {
+
+    private final CodeNarcReportMerger reportMerger;
+    private final CodeNarcXmlParser xmlParser;
+    private final CodeNarcReportGenerator reportGenerator;
+
+    @Inject
+    public CodeNarcAggregateMojo(CodeNarcReportMerger reportMerger, CodeNarcXmlParser xmlParser, CodeNarcReportGenerator reportGenerator) {
+        this.reportMerger = reportMerger;
+        this.xmlParser = xmlParser;
+        this.reportGenerator = reportGenerator;
+    }
+
+    /**
+     * The modules whose reports are merged
+     */
+    @Parameter(defaultValue = "${reactorProjects}", readonly = true, required = true)
+    private List<MavenProject> modules;
+
+    /**
+     * The project title of the merged report
+     */
+    @Parameter(defaultValue = "${project.name}", readonly = true)
+    private String projectName;
+
+    /**
+     * Location where the merged XML report will be created. The report will be compressed with gzip if the file name ends with {@code .gz}
+     */
+    @Parameter(property = "codenarc.aggregateXmlOutputFile", defaultValue = "${project.build.directory}/CodeNarc-aggregate.xml")
+    private File aggregateXmlOutputFile;
+
+    @Override
+    public boolean canGenerateReport() {
+        if (isSkip()) {
+            getLog().info("Plugin execution skipped");
+            return false;
+        }
+        if (getModuleReports().isEmpty()) {
+            getLog().info("No module CodeNarc reports found - skipping HTML report generation");
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    protected void executeReport(Locale locale) throws MavenReportException {
+        CodeNarcAnalysis analysis = mergeAnalyses();
+        getLog().info("Report locale set to " + locale);
+        try {
+            reportGenerator.generate(analysis, getSink(), locale, getReportConfig());
+        } catch (UncheckedIOException e) {
+            throw new MavenReportException("Could not write the CodeNarc report", e);
+        }
+    }
+
+    @Override
+    public String getOutputName() {
+        return "codenarc-aggregate";
+    }
+
+    @Override
+    public String getName(Locale locale) {
+        return getCodeNarcMessages(locale).getString("report.codenarc.aggregate.name");
+    }
+
+    @Override
+    public String getDescription(Locale locale) {
+        return getCodeNarcMessages(locale).getString("report.codenarc.aggregate.description");
+    }
+
+    private ResourceBundle getCodeNarcMessages(Locale locale) {
+        return ResourceBundle.getBundle("codenarc-messages", locale);
+    }
+
+    private CodeNarcAnalysis mergeAnalyses() throws MavenReportException {
+        List<CodeNarcReportMerger.ModuleReport> moduleReports = getModuleReports();
+        File outputFile = getAggregateXmlOutputFile();
+        try {
+            getLog().info(String.format("Merging %d CodeNarc reports into %s", moduleReports.size(), outputFile.getPath()));
+            reportMerger.merge(moduleReports, getProjectName(), outputFile);
+            getLog().info("Merging completed");
+            return xmlParser.parseLazily(outputFile);
+        } catch (CodeNarcXmlParser.XmlParserException e) {
+            throw new MavenReportException(String.format("Could not merge the CodeNarc reports into: %s", outputFile.getAbsolutePath()), e);
+        }
+    }
+
+    private List<CodeNarcReportMerger.ModuleReport> getModuleReports() {
+        return getModules().stream()
+                .map(module -> new CodeNarcReportMerger.ModuleReport(
+                        CodeNarcXmlParser.findXmlReport(new File(module.getBuild().getDirectory())), getModulePath(module)))
+                .filter(moduleReport -> moduleReport.getXmlReport().isFile() && moduleReport.getXmlReport().canRead())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return the path of the module relative to the base directory of the aggregating project, against which
+     * the source directories of the merged report are resolved
+     */
+    private String getModulePath(MavenProject module) {
+        if (module.getBasedir() == null || getBaseDirectory() == null) {
+            return "";
+        }
+        return getBaseDirectory().toPath().toAbsolutePath().normalize()
+                .relativize(module.getBasedir().toPath().toAbsolutePath().normalize())
+                .toString()
+                .replace(File.separatorChar, '/');
+    }
+}
@@ -3,16 +3,20 @@ package io.github.crizzis.codenarc;
 import io.github.crizzis.codenarc.parser.CodeNarcAnalysis;
 import io.github.crizzis.codenarc.parser.CodeNarcXmlParser;
 import io.github.crizzis.codenarc.report.CodeNarcReportGenerator;
+import io.github.crizzis.codenarc.report.RecordedReport;
+import io.github.crizzis.codenarc.report.ReportConfig;
 import lombok.Getter;
 import lombok.Setter;
 import org.apache.maven.plugins.annotations.Execute;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
-import org.apache.maven.reporting.AbstractMavenReport;
 import org.apache.maven.reporting.MavenReportException;
 
 import javax.inject.Inject;
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
 import java.util.Locale;
 import java.util.ResourceBundle;
 
@@ -25,7 +29,7 @@ import static org.apache.maven.plugins.annotations.LifecyclePhase.SITE;
 @Setter
 @Mojo(name = "codenarc", defaultPhase = SITE)
 @Execute(goal = "verify")
-public class CodeNarcReportMojo extends AbstractMavenReport {
+public class CodeNarcReportMojo extends AbstractCodeNarcReportMojo {
 
     private final CodeNarcXmlParser xmlParser;
     private final CodeNarcReportGenerator reportGenerator;
@@ -43,10 +47,14 @@ public class CodeNarcReportMojo extends AbstractMavenReport {
     private File xmlOutputDirectory;
 
     /**
-     * Set this to "true" to bypass CodeNarc report generation entirely
+     * Set this to "true" to read the violations of each file from the XML report only while rendering that file,
+     * instead of loading all the violations up front. This reduces the memory needed for rendering large reports
      */
-    @Parameter(property="codenarc.skip", defaultValue = "false")
-    private boolean skip;
+    @Parameter(property = "codenarc.lazyViolations", defaultValue = "false")
+    private boolean lazyViolations;
+
+    @Parameter(defaultValue = "${plugin.version}", readonly = true)
+    private String pluginVersion;
 
     @Override
     public boolean canGenerateReport() {
@@ -62,15 +70,77 @@ public class CodeNarcReportMojo extends AbstractMavenReport {
         return true;
     }
 
+    /**
+     * The rendered report is recorded next to the report output, along with a fingerprint of the XML report
+     * and of the rendering settings, and the package pages written with it. While the fingerprint matches
+     * and the package pages are unchanged, the recorded report is replayed without parsing the XML report at all.
+     * Reports showing source lines around the violations read the source files, and are therefore never replayed
+     */
     @Override
     protected void executeReport(Locale locale) throws MavenReportException {
+        ReportConfig config = getReportConfig();
+        RecordedReport recordedReport = getSink() != null && config.getSourceContextLines() == 0
+                ? new RecordedReport(getReportOutputDirectory(), getOutputName()) : null;
+        String fingerprint = recordedReport != null ? getFingerprint(locale, config) : null;
+        if (fingerprint != null && recordedReport.isUpToDate(fingerprint)) {
+            getLog().info("CodeNarc report is up to date, replaying the recorded report");
+            replayReport(recordedReport);
+            return;
+        }
         CodeNarcAnalysis analysis = parseAnalysis();
-        generateReport(analysis, locale);
+        generateReport(analysis, locale, config, fingerprint != null ? recordedReport : null, fingerprint);
     }
 
-    private void generateReport(CodeNarcAnalysis analysis, Locale locale) {
+    private void generateReport(CodeNarcAnalysis analysis, Locale locale, ReportConfig config,
+                                RecordedReport recordedReport, String fingerprint) throws MavenReportException {
         getLog().info("Report locale set to " + locale);
-        reportGenerator.generate(analysis, getSink(), locale);
+        try (RecordedReport.Recording recording = startRecording(recordedReport)) {
+            List<File> packagePages = reportGenerator.generate(analysis, recording != null ? recording.getSink() : getSink(), locale, config);
+            if (recording != null) {
+                recording.commit(fingerprint, packagePages);
+            }
+        } catch (UncheckedIOException e) {
+            throw new MavenReportException("Could not write the CodeNarc report", e);
+        } catch (IOException e) {
+            getLog().warn("Could not record the CodeNarc report, it will be rendered again on the next run", e);
+        }
+    }
+
+    private void replayReport(RecordedReport recordedReport) throws MavenReportException {
+        try {
+            recordedReport.replay(getSink());
+        } catch (IOException e) {
+            throw new MavenReportException("Could not replay the recorded CodeNarc report", e);
+        }
+    }
+
+    private RecordedReport.Recording startRecording(RecordedReport recordedReport) {
+        if (recordedReport == null) {
+            return null;
+        }
+        try {
+            return recordedReport.record(getSink());
+        } catch (IOException e) {
+            getLog().warn("Could not record the CodeNarc report", e);
+            return null;
+        }
+    }
+
+    /**
+     * @return the fingerprint of the inputs of the report, or {@code null} if the XML report cannot be read
+     */
+    private String getFingerprint(Locale locale, ReportConfig config) {
+        try {
+            return RecordedReport.fingerprint(getXmlOutputFile(),
+                    getPluginVersion(),
+                    locale.toLanguageTag(),
+                    getOutputName(),
+                    String.valueOf(config.isSplitPages()),
+                    String.valueOf(config.getHotspots()));
+        } catch (IOException e) {
+            getLog().debug("Could not fingerprint the CodeNarc XML report", e);
+            return null;
+        }
     }
 
     @Override
@@ -96,7 +166,7 @@ public class CodeNarcReportMojo extends AbstractMavenReport {
         File outputFile = getXmlOutputFile();
         try {
             getLog().info("CodeNarc report XML found, parsing");
-            CodeNarcAnalysis analysis = xmlParser.parse(outputFile);
+            CodeNarcAnalysis analysis = isLazyViolations() ? xmlParser.parseLazily(outputFile) : xmlParser.parse(outputFile, getThreads());
             getLog().info("Parsing completed");
             return analysis;
         } catch (CodeNarcXmlParser.XmlParserException e) {
@@ -105,6 +175,6 @@ public class CodeNarcReportMojo extends AbstractMavenReport {
     }
 
     private File getXmlOutputFile() {
-        return new File(getXmlOutputDirectory(), "CodeNarc.xml");
+        return CodeNarcXmlParser.findXmlReport(getXmlOutputDirectory());
     }
 }
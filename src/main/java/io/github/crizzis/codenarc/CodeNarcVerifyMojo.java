@@ -15,10 +15,16 @@
  */
 package io.github.crizzis.codenarc;
 
+import io.github.crizzis.codenarc.daemon.DaemonClient;
 import io.github.crizzis.codenarc.integration.GroovyCompilerPluginIntegration;
+import io.github.crizzis.codenarc.parser.CodeNarcSidecar;
 import io.github.crizzis.codenarc.parser.CodeNarcXmlParser;
+import io.github.crizzis.codenarc.parser.ViolationCounts;
 import io.github.crizzis.codenarc.runner.CodeNarcConfig;
 import io.github.crizzis.codenarc.runner.CodeNarcRunnerFactory;
+import io.github.crizzis.codenarc.runner.ParseStatistics;
+import io.github.crizzis.codenarc.runner.ThresholdExceededException;
+import io.github.crizzis.codenarc.runner.ViolationThresholds;
 import lombok.Getter;
 import lombok.Setter;
 import org.apache.maven.execution.MavenSession;
@@ -37,10 +43,13 @@ import javax.inject.Inject;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.nio.file.Files;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -74,7 +83,9 @@ public class CodeNarcVerifyMojo extends AbstractMojo implements AnalysisScopeCon
     }
 
     /**
-     * Location where the generated XML report will be created
+     * Location where the generated XML report will be created.
+     * A compact binary copy of the results ({@code CodeNarc.bin}) is written alongside it,
+     * and used instead of parsing the XML report whenever the XML report has not changed since
      */
     @Parameter(property="codenarc.xmlOutputDirectory", defaultValue = "${project.build.directory}")
     private File xmlOutputDirectory;
@@ -169,6 +180,14 @@ public class CodeNarcVerifyMojo extends AbstractMojo implements AnalysisScopeCon
     @Parameter(property = "codenarc.maxPriority3Violations", defaultValue = "-1")
     private int maxPriority3Violations;
 
+    /**
+     * Set this to "true" to abort the analysis as soon as any of the {@code maxPriority<N>Violations} thresholds
+     * is exceeded, rather than after all the files have been analyzed.
+     * No XML report is generated for an aborted analysis
+     */
+    @Parameter(property = "codenarc.failFast", defaultValue = "false")
+    private boolean failFast;
+
     /**
      * Whether to ignore any pre-existing CodeNarc XML report.
      * Setting this property to {@code true} is intended for a scenario in which generating the XML report
@@ -184,6 +203,75 @@ public class CodeNarcVerifyMojo extends AbstractMojo implements AnalysisScopeCon
     @Parameter(defaultValue = "true", property = "codenarc.xmlOutput", required = true)
     boolean xmlOutput;
 
+    /**
+     * Set this to "true" to write the XML report compressed with gzip, as {@code CodeNarc.xml.gz}.
+     * Writing either variant of the report deletes the other one. A compressed report is read by both the {@code verify}
+     * and the {@code codenarc} goal regardless of this setting, whenever it is more recent than the uncompressed one
+     */
+    @Parameter(defaultValue = "false", property = "codenarc.compressXmlOutput")
+    private boolean compressXmlOutput;
+
+    /**
+     * The number of threads used for analyzing source files.
+     * The default value of 0 means the number of available processors will be used.
+     * The generated XML report does not depend on the number of threads
+     */
+    @Parameter(property = "codenarc.threads", defaultValue = "0")
+    private int threads;
+
+    /**
+     * Set this to "true" to only analyze source files that have changed since the previous analysis.
+     * The results for unchanged files are taken from {@link CodeNarcVerifyMojo#cacheFile}.
+     * The cache is discarded whenever the rule sets in use (or the CodeNarc version) change
+     */
+    @Parameter(property = "codenarc.incremental", defaultValue = "false")
+    private boolean incremental;
+
+    /**
+     * Location of the analysis cache used when {@link CodeNarcVerifyMojo#incremental} is enabled
+     */
+    @Parameter(property = "codenarc.cacheFile", defaultValue = "${project.build.directory}/codenarc/analysis.cache")
+    private File cacheFile;
+
+    /**
+     * The maximum number of source files whose syntax trees are held in memory at the same time.
+     * Each file is parsed once and its syntax tree is released as soon as all the rules have been applied to it.
+     * The default value of 0 means no limit other than the number of {@link CodeNarcVerifyMojo#threads}
+     */
+    @Parameter(property = "codenarc.maxLiveAsts", defaultValue = "0")
+    private int maxLiveAsts;
+
+    /**
+     * A git revision (e.g. {@code origin/main}) to compare the working tree against.
+     * When set, only the source files changed on the current branch since the revision (including uncommitted changes)
+     * are analyzed, and the quality criteria are applied to the violations found in those files only.
+     * A pre-existing report is never reused in this mode
+     */
+    @Parameter(property = "codenarc.changedSince")
+    private String changedSince;
+
+    /**
+     * Set this to "true" to perform the analysis in a long-lived background process,
+     * which keeps CodeNarc, Groovy and the loaded rule sets warm across builds.
+     * The process is started on first use and listens on {@link CodeNarcVerifyMojo#daemonPort} on the loopback interface only.
+     * It only serves requests carrying the random token stored in {@code ~/.codenarc/daemon-<port>.token},
+     * which only the user who started it can read, and is replaced automatically when a different version of the plugin connects to it
+     */
+    @Parameter(property = "codenarc.daemon", defaultValue = "false")
+    private boolean daemon;
+
+    /**
+     * The local port the analysis daemon listens on
+     */
+    @Parameter(property = "codenarc.daemonPort", defaultValue = "7531")
+    private int daemonPort;
+
+    /**
+     * The number of minutes after which an analysis daemon that has not received any request exits
+     */
+    @Parameter(property = "codenarc.daemonIdleTimeout", defaultValue = "30")
+    private int daemonIdleTimeout;
+
     @Parameter(defaultValue = "${project}", readonly = true)
     private MavenProject project;
 
@@ -195,46 +283,108 @@ public class CodeNarcVerifyMojo extends AbstractMojo implements AnalysisScopeCon
         if (!shouldRun()) {
             return;
         }
-        Results results = obtainCodeNarcResults();
-        verifyViolationsBelowThreshold(results);
+        ViolationCounts violationCounts = obtainViolationCounts();
+        verifyViolationsBelowThreshold(violationCounts);
     }
 
-    private Results obtainCodeNarcResults() throws MojoExecutionException {
-        if (!isIgnoreExistingReport() && getXmlOutputFile().exists()) {
-            return reconstructFromExistingReport();
+    private ViolationCounts obtainViolationCounts() throws MojoExecutionException, MojoFailureException {
+        if (!isIgnoreExistingReport() && getChangedSince() == null && getExistingXmlReport().exists()) {
+            return readFromExistingReport();
         } else {
-            return tryExecuteCheck(obtainCodeNarcRunner());
+            CodeNarcConfig config = obtainCodeNarcConfig();
+            if (config.isGenerateXmlReport()) {
+                deleteOtherXmlOutputVariant(config.getOutputFile());
+            }
+            Results results = isDaemon() ? tryExecuteInDaemon(config) : tryExecuteCheck(codeNarcRunnerFactory.newCodeNarcRunner(config));
+            logParseStatistics(config.getParseStatistics());
+            return ViolationCounts.of(results);
         }
     }
 
-    private Results reconstructFromExistingReport() throws MojoExecutionException {
-        File outputFile = getXmlOutputFile();
+    private void logParseStatistics(ParseStatistics parseStatistics) {
+        getLog().info(String.format("Analyzed %d files: %d ASTs parsed, at most %d held in memory at once",
+                parseStatistics.getFilesAnalyzed(),
+                parseStatistics.getAstsParsed(),
+                parseStatistics.getPeakLiveAsts()));
+        if (!parseStatistics.getLatePhaseRules().isEmpty()) {
+            getLog().info("The following rules require a later compiler phase and cause an additional parse per file: "
+                    + String.join(", ", parseStatistics.getLatePhaseRules()));
+        }
+    }
+
+    /**
+     * Only the violation totals are needed for verifying the thresholds, and these are found at the beginning of the report
+     */
+    private ViolationCounts readFromExistingReport() throws MojoExecutionException {
+        File outputFile = getExistingXmlReport();
         try {
-            getLog().info("Existing CodeNarc report XML found, parsing");
-            Results results = codeNarcXmlParser.parse(outputFile).getResults();
+            getLog().info("Existing CodeNarc report XML found, reading violation counts");
+            ViolationCounts violationCounts = codeNarcXmlParser.parseViolationCounts(outputFile);
             getLog().info(String.format("Parsing completed: (p1=%d; p2=%d; p3=%d)",
-                    results.getNumberOfViolationsWithPriority(PRIORITY_ONE, true),
-                    results.getNumberOfViolationsWithPriority(PRIORITY_TWO, true),
-                    results.getNumberOfViolationsWithPriority(PRIORITY_THREE, true)));
-            return results;
+                    violationCounts.getPriority1(),
+                    violationCounts.getPriority2(),
+                    violationCounts.getPriority3()));
+            return violationCounts;
         } catch (CodeNarcXmlParser.XmlParserException e) {
             throw new MojoExecutionException(String.format("Could not parse: %s", outputFile.getAbsolutePath()), e);
         }
     }
 
-    private CodeNarcRunner obtainCodeNarcRunner() throws MojoExecutionException {
-        CodeNarcConfig config = CodeNarcConfig.builder()
+    private CodeNarcConfig obtainCodeNarcConfig() throws MojoExecutionException {
+        return CodeNarcConfig.builder()
                 .projectName(project.getName())
+                .baseDirectory(project.getBasedir())
                 .outputFile(getXmlOutputFile())
                 .fileSets(resolveFileSets())
                 .ruleSets(resolveRuleSets())
                 .generateXmlReport(isXmlOutput())
+                .threads(getThreads())
+                .cacheFile(isIncremental() ? getCacheFile() : null)
+                .maxLiveAsts(getMaxLiveAsts())
+                .parseStatistics(new ParseStatistics())
+                .changedFiles(resolveChangedFiles())
+                .failFastThresholds(isFailFast() ? new ViolationThresholds(
+                        getMaxPriority1Violations(), getMaxPriority2Violations(), getMaxPriority3Violations()) : null)
                 .build();
-        return codeNarcRunnerFactory.newCodeNarcRunner(config);
+    }
+
+    private Set<File> resolveChangedFiles() throws MojoExecutionException {
+        if (getChangedSince() == null) {
+            return null;
+        }
+        Set<File> changedFiles = new ChangedFilesResolver(project.getBasedir()).resolveChangedFiles(getChangedSince());
+        getLog().info(String.format("Restricting analysis to %d files changed since %s", changedFiles.size(), getChangedSince()));
+        return changedFiles;
     }
 
     private File getXmlOutputFile() {
-        return new File(getXmlOutputDirectory(), "CodeNarc.xml");
+        return isCompressXmlOutput() ? getCompressedXmlOutputFile() : getUncompressedXmlOutputFile();
+    }
+
+    private File getExistingXmlReport() {
+        return CodeNarcXmlParser.findXmlReport(getXmlOutputDirectory());
+    }
+
+    private File getUncompressedXmlOutputFile() {
+        return new File(getXmlOutputDirectory(), CodeNarcXmlParser.XML_REPORT);
+    }
+
+    private File getCompressedXmlOutputFile() {
+        return new File(getXmlOutputDirectory(), CodeNarcXmlParser.COMPRESSED_XML_REPORT);
+    }
+
+    /**
+     * Prevents a report left over from a run with a different {@link CodeNarcVerifyMojo#compressXmlOutput} setting
+     * from being read instead of the report about to be written
+     */
+    private void deleteOtherXmlOutputVariant(File outputFile) throws MojoExecutionException {
+        File otherVariant = outputFile.equals(getCompressedXmlOutputFile()) ? getUncompressedXmlOutputFile() : getCompressedXmlOutputFile();
+        try {
+            Files.deleteIfExists(otherVariant.toPath());
+            Files.deleteIfExists(CodeNarcSidecar.sidecarFor(otherVariant).toPath());
+        } catch (IOException e) {
+            throw new MojoExecutionException(String.format("Could not delete: %s", otherVariant.getAbsolutePath()), e);
+        }
     }
 
     private List<String> resolveRuleSets() throws MojoExecutionException {
@@ -280,25 +430,39 @@ public class CodeNarcVerifyMojo extends AbstractMojo implements AnalysisScopeCon
         return true;
     }
 
-    private void verifyViolationsBelowThreshold(Results results) throws MojoFailureException {
-        verifyViolationsBelowThreshold(results, PRIORITY_ONE, getMaxPriority1Violations());
-        verifyViolationsBelowThreshold(results, PRIORITY_TWO, getMaxPriority2Violations());
-        verifyViolationsBelowThreshold(results, PRIORITY_THREE, getMaxPriority3Violations());
+    private void verifyViolationsBelowThreshold(ViolationCounts violationCounts) throws MojoFailureException {
+        verifyViolationsBelowThreshold(violationCounts, PRIORITY_ONE, getMaxPriority1Violations());
+        verifyViolationsBelowThreshold(violationCounts, PRIORITY_TWO, getMaxPriority2Violations());
+        verifyViolationsBelowThreshold(violationCounts, PRIORITY_THREE, getMaxPriority3Violations());
     }
 
-    private void verifyViolationsBelowThreshold(Results results, int priority, int threshold) throws MojoFailureException {
-        int actualViolations = results.getNumberOfViolationsWithPriority(priority, true);
+    private void verifyViolationsBelowThreshold(ViolationCounts violationCounts, int priority, int threshold) throws MojoFailureException {
+        int actualViolations = violationCounts.getCount(priority);
         if (threshold >= 0 && actualViolations > threshold) {
             throw new MojoFailureException(String.format("totalPriority%dViolations exceeded threshold of %d errors with %d", priority, threshold, actualViolations));
         }
     }
 
-    private Results tryExecuteCheck(CodeNarcRunner runner) throws MojoExecutionException {
+    private Results tryExecuteCheck(CodeNarcRunner runner) throws MojoExecutionException, MojoFailureException {
         try {
             getLog().info("Executing CodeNarc analysis");
             return runner.execute();
+        } catch (ThresholdExceededException e) {
+            throw new MojoFailureException(e.getMessage());
         } catch (Exception e) {
             throw new MojoExecutionException("Failed to execute CodeNarc analysis", e);
         }
     }
+
+    private Results tryExecuteInDaemon(CodeNarcConfig config) throws MojoExecutionException, MojoFailureException {
+        try {
+            getLog().info(String.format("Executing CodeNarc analysis in the analysis daemon on port %d", getDaemonPort()));
+            return new DaemonClient(getDaemonPort(), TimeUnit.MINUTES.toMillis(getDaemonIdleTimeout()), getLog()::info)
+                    .analyze(config);
+        } catch (ThresholdExceededException e) {
+            throw new MojoFailureException(e.getMessage());
+        } catch (Exception e) {
+            throw new MojoExecutionException("Failed to execute CodeNarc analysis in the analysis daemon", e);
+        }
+    }
 }
@@ -0,0 +1,200 @@
+package io.github.crizzis.codenarc.daemon;
+
+import io.github.crizzis.codenarc.runner.CodeNarcConfig;
+import io.github.crizzis.codenarc.runner.CodeNarcRunnerFactory;
+import io.github.crizzis.codenarc.runner.ThresholdExceededException;
+import lombok.RequiredArgsConstructor;
+import org.codenarc.results.Results;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A long-lived local process performing CodeNarc analyses on behalf of the {@code verify} goal.
+ *
+ * The daemon keeps a single {@link CodeNarcRunnerFactory} (and with it, the loaded rule sets) as well as
+ * the loaded Groovy and CodeNarc classes across builds. It only listens on the loopback interface,
+ * only serves clients presenting its token (see {@link DaemonTokens}), and only writes reports and caches
+ * inside the base directory of the requesting project. It exits after not having received any request
+ * for the configured idle time, or when a client presenting its token requests it to shut down
+ */
+@RequiredArgsConstructor
+public class AnalysisDaemon {
+
+    private static final int BACKLOG = 50;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_CONCURRENT_REQUESTS = 8;
+    private static final int MAX_QUEUED_REQUESTS = BACKLOG;
+    private static final long READ_TIMEOUT_MILLIS = 30_000;
+
+    private final ServerSocket serverSocket;
+    private final long idleTimeoutMillis;
+    private final String classPathId;
+    private final String token;
+
+    private final CodeNarcRunnerFactory codeNarcRunnerFactory = new CodeNarcRunnerFactory();
+    private final AtomicInteger activeRequests = new AtomicInteger();
+    private volatile long lastActivity = System.currentTimeMillis();
+
+    /**
+     * @param args the port to listen on, the idle timeout in milliseconds, the identity of the class path
+     *             and the file holding the token (which is not passed directly, as command lines are visible to other users)
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = Integer.parseInt(args[0]);
+        long idleTimeoutMillis = Long.parseLong(args[1]);
+        String classPathId = args[2];
+        String token = DaemonTokens.read(Paths.get(args[3]));
+        if (token == null) {
+            throw new IOException("Token file not found: " + args[3]);
+        }
+        try (ServerSocket serverSocket = new ServerSocket(port, BACKLOG, InetAddress.getLoopbackAddress())) {
+            new AnalysisDaemon(serverSocket, idleTimeoutMillis, classPathId, token).run();
+        }
+        System.exit(0);
+    }
+
+    void run() throws IOException, InterruptedException {
+        ThreadPoolExecutor requestHandlers = new ThreadPoolExecutor(MAX_CONCURRENT_REQUESTS, MAX_CONCURRENT_REQUESTS,
+                1, TimeUnit.MINUTES, new ArrayBlockingQueue<>(MAX_QUEUED_REQUESTS), runnable -> {
+                    Thread thread = new Thread(runnable, "codenarc-daemon-request");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        requestHandlers.allowCoreThreadTimeOut(true);
+        serverSocket.setSoTimeout((int) Math.min(idleTimeoutMillis, Integer.MAX_VALUE));
+        try {
+            while (!serverSocket.isClosed()) {
+                try {
+                    dispatch(serverSocket.accept(), requestHandlers);
+                } catch (SocketTimeoutException e) {
+                    if (isIdle()) {
+                        break;
+                    }
+                } catch (SocketException e) {
+                    if (!serverSocket.isClosed()) {
+                        throw e;
+                    }
+                }
+            }
+        } finally {
+            requestHandlers.shutdown();
+            requestHandlers.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    /**
+     * Hands the connection over to a request handler, or drops it if too many requests are already pending.
+     * A client staying silent is dropped after the read timeout (or the idle timeout, if shorter),
+     * so that it can neither keep a handler busy nor keep the daemon alive indefinitely
+     */
+    private void dispatch(Socket socket, ExecutorService requestHandlers) throws IOException {
+        activeRequests.incrementAndGet();
+        try {
+            socket.setSoTimeout((int) Math.min(Math.min(READ_TIMEOUT_MILLIS, idleTimeoutMillis), Integer.MAX_VALUE));
+            requestHandlers.execute(() -> handle(socket));
+        } catch (SocketException | RejectedExecutionException e) {
+            activeRequests.decrementAndGet();
+            socket.close();
+        }
+    }
+
+    private boolean isIdle() {
+        return activeRequests.get() == 0 && System.currentTimeMillis() - lastActivity >= idleTimeoutMillis;
+    }
+
+    private void handle(Socket socket) {
+        try (socket;
+             DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream(), BUFFER_SIZE));
+             DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), BUFFER_SIZE))) {
+            if (!accept(DaemonProtocol.readHeader(input), output)) {
+                return;
+            }
+            CodeNarcConfig config = DaemonProtocol.readConfig(input);
+            try {
+                checkInsideProject(config);
+                Results results = codeNarcRunnerFactory.newCodeNarcRunner(config).execute();
+                DaemonProtocol.writeResults(output, results, config.getParseStatistics());
+            } catch (ThresholdExceededException e) {
+                DaemonProtocol.writeThresholdExceeded(output, e);
+            } catch (RuntimeException | LinkageError e) {
+                DaemonProtocol.writeFailure(output, String.valueOf(e));
+            }
+        } catch (IOException e) {
+            // the client went away, there is nobody to report the problem to
+        } finally {
+            lastActivity = System.currentTimeMillis();
+            activeRequests.decrementAndGet();
+        }
+    }
+
+    /**
+     * Answers the request header, shutting the daemon down if requested to.
+     * Requests the daemon cannot serve are rejected without affecting the daemon itself
+     *
+     * @return true if an analysis request has been accepted
+     */
+    private boolean accept(DaemonProtocol.Header header, DataOutputStream output) throws IOException {
+        if (header == null) {
+            DaemonProtocol.writeHandshake(output, DaemonProtocol.Handshake.VERSION_MISMATCH);
+            return false;
+        }
+        if (!DaemonTokens.matches(token, header.getToken())) {
+            DaemonProtocol.writeHandshake(output, DaemonProtocol.Handshake.UNAUTHORIZED);
+            return false;
+        }
+        if (header.getRequest() == DaemonProtocol.SHUTDOWN) {
+            serverSocket.close(); // free the port before the client starts another daemon
+            DaemonProtocol.writeHandshake(output, DaemonProtocol.Handshake.ACCEPTED);
+            return false;
+        }
+        if (!classPathId.equals(header.getClassPathId())) {
+            DaemonProtocol.writeHandshake(output, DaemonProtocol.Handshake.INCOMPATIBLE);
+            return false;
+        }
+        DaemonProtocol.writeHandshake(output, DaemonProtocol.Handshake.ACCEPTED);
+        return true;
+    }
+
+    /**
+     * Guards against writing reports or caches anywhere but the requesting project
+     */
+    private static void checkInsideProject(CodeNarcConfig config) {
+        if (config.getBaseDirectory() == null) {
+            throw new IllegalArgumentException("The request does not specify the project base directory");
+        }
+        Path baseDirectory = canonicalPath(config.getBaseDirectory());
+        for (File file : Arrays.asList(config.getOutputFile(), config.getCacheFile())) {
+            if (file != null && !canonicalPath(file).startsWith(baseDirectory)) {
+                throw new IllegalArgumentException(String.format("%s is outside of the project base directory %s", file, baseDirectory));
+            }
+        }
+    }
+
+    private static Path canonicalPath(File file) {
+        try {
+            return file.getCanonicalFile().toPath();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package io.github.crizzis.codenarc.daemon;
+
+import io.github.crizzis.codenarc.runner.CodeNarcConfig;
+import lombok.RequiredArgsConstructor;
+import org.codenarc.results.Results;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static java.lang.ProcessBuilder.Redirect.appendTo;
+
+/**
+ * Sends analysis requests to an {@link AnalysisDaemon} listening on a local port,
+ * starting a new daemon from the plugin's class path if none is running (or shutting the running one down
+ * and starting a new one if it is incompatible)
+ */
+@RequiredArgsConstructor
+public class DaemonClient {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int CONNECT_TIMEOUT_MILLIS = 1000;
+    private static final long STARTUP_TIMEOUT_MILLIS = 30_000;
+    private static final long STARTUP_POLL_MILLIS = 100;
+    private static final List<String> MAVEN_CORE_CLASSES = List.of("org.apache.maven.model.FileSet", "org.slf4j.LoggerFactory");
+
+    private final int port;
+    private final long idleTimeoutMillis;
+    private final Consumer<String> log;
+
+    public Results analyze(CodeNarcConfig config) throws IOException {
+        String classPath = String.join(File.pathSeparator, classPath());
+        String classPathId = classPathId(classPath);
+        String token = DaemonTokens.read(DaemonTokens.getTokenFile(port));
+        if (token == null) {
+            log.accept(String.format("No analysis daemon started for port %d, starting a new one", port));
+        } else {
+            try {
+                return send(config, token, classPathId);
+            } catch (ConnectException e) {
+                log.accept(String.format("No analysis daemon listening on port %d, starting a new one", port));
+            } catch (DaemonProtocol.IncompatibleDaemonException e) {
+                log.accept(e.getMessage() + ", replacing it with a new one");
+                shutDown(token, classPathId);
+            }
+        }
+        token = startDaemon(classPath, classPathId);
+        return sendOnceStarted(config, token, classPathId);
+    }
+
+    private Results sendOnceStarted(CodeNarcConfig config, String token, String classPathId) throws IOException {
+        long deadline = System.currentTimeMillis() + STARTUP_TIMEOUT_MILLIS;
+        while (true) {
+            try {
+                return send(config, token, classPathId);
+            } catch (ConnectException e) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw new IOException(String.format("The analysis daemon did not start within %d ms, see %s for details",
+                            STARTUP_TIMEOUT_MILLIS, getLogFile()), e);
+                }
+                pause();
+            }
+        }
+    }
+
+    private Results send(CodeNarcConfig config, String token, String classPathId) throws IOException {
+        try (Socket socket = connect()) {
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), BUFFER_SIZE));
+            DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream(), BUFFER_SIZE));
+            DaemonProtocol.writeHeader(output, token, DaemonProtocol.ANALYZE, classPathId);
+            DaemonProtocol.readHandshake(input);
+            DaemonProtocol.writeConfig(output, config);
+            return DaemonProtocol.readResponse(input, config.getParseStatistics());
+        }
+    }
+
+    /**
+     * Requests the daemon to exit. Once it has answered, it does not listen on the port anymore
+     */
+    private void shutDown(String token, String classPathId) throws IOException {
+        try (Socket socket = connect()) {
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), BUFFER_SIZE));
+            DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream(), BUFFER_SIZE));
+            DaemonProtocol.writeHeader(output, token, DaemonProtocol.SHUTDOWN, classPathId);
+            DaemonProtocol.readHandshake(input);
+        }
+    }
+
+    private Socket connect() throws IOException {
+        Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), CONNECT_TIMEOUT_MILLIS);
+            return socket;
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the token of the new daemon
+     */
+    private String startDaemon(String classPath, String classPathId) throws IOException {
+        String token = DaemonTokens.generate();
+        Path tokenFile = DaemonTokens.getTokenFile(port);
+        DaemonTokens.write(tokenFile, token);
+        List<String> command = List.of(
+                Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "--add-opens", "java.base/jdk.internal.loader=ALL-UNNAMED",
+                "-cp", classPath,
+                AnalysisDaemon.class.getName(),
+                String.valueOf(port),
+                String.valueOf(idleTimeoutMillis),
+                classPathId,
+                tokenFile.toString());
+        new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(appendTo(getLogFile()))
+                .start();
+        return token;
+    }
+
+    private File getLogFile() {
+        return new File(System.getProperty("java.io.tmpdir"), String.format("codenarc-daemon-%d.log", port));
+    }
+
+    /**
+     * The plugin's own class path, plus the Maven model and SLF4J classes (which Maven provides to the plugin from its core)
+     */
+    private static Set<String> classPath() throws IOException {
+        Set<String> classPath = new LinkedHashSet<>();
+        ClassLoader classLoader = DaemonClient.class.getClassLoader();
+        if (classLoader instanceof URLClassLoader) {
+            for (URL url : ((URLClassLoader) classLoader).getURLs()) {
+                classPath.add(toPath(url));
+            }
+        } else {
+            classPath.addAll(Arrays.asList(System.getProperty("java.class.path").split(File.pathSeparator)));
+        }
+        classPath.add(location(DaemonClient.class));
+        for (String className : MAVEN_CORE_CLASSES) {
+            try {
+                classPath.add(location(Class.forName(className, false, classLoader)));
+            } catch (ClassNotFoundException e) {
+                throw new IOException("Cannot locate the class path entry of " + className, e);
+            }
+        }
+        return classPath;
+    }
+
+    private static String location(Class<?> type) throws IOException {
+        return toPath(type.getProtectionDomain().getCodeSource().getLocation());
+    }
+
+    private static String toPath(URL url) throws IOException {
+        try {
+            return new File(url.toURI()).getPath();
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            throw new IOException("Unsupported class path entry: " + url, e);
+        }
+    }
+
+    /**
+     * Identifies the exact plugin build, so that a daemon started by a different build is never used
+     */
+    private static String classPathId(String classPath) {
+        long lastModified = Arrays.stream(classPath.split(File.pathSeparator))
+                .mapToLong(entry -> new File(entry).lastModified())
+                .reduce(17, (hash, modified) -> 31 * hash + modified);
+        return Integer.toHexString(classPath.hashCode()) + Long.toHexString(lastModified);
+    }
+
+    private static void pause() throws IOException {
+        try {
+            Thread.sleep(STARTUP_POLL_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the analysis daemon to start", e);
+        }
+    }
+}
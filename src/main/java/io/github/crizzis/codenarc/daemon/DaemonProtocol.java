@@ -0,0 +1,370 @@
+package io.github.crizzis.codenarc.daemon;
+
+import io.github.crizzis.codenarc.runner.CodeNarcConfig;
+import io.github.crizzis.codenarc.runner.ParseStatistics;
+import io.github.crizzis.codenarc.runner.ThresholdExceededException;
+import io.github.crizzis.codenarc.runner.ViolationThresholds;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.experimental.UtilityClass;
+import org.apache.maven.model.FileSet;
+import org.codenarc.results.DirectoryResults;
+import org.codenarc.results.FileResults;
+import org.codenarc.results.Results;
+import org.codenarc.rule.StubRule;
+import org.codenarc.rule.Violation;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * The binary protocol spoken between {@link DaemonClient} and {@link AnalysisDaemon}.
+ *
+ * Every connection carries exactly one exchange. The client sends the protocol version, the daemon's token,
+ * the kind of request and the identity of its plugin class path, which the daemon answers with a {@link Handshake}.
+ * For an accepted analysis request, the client then sends a {@link CodeNarcConfig},
+ * and the daemon answers with a status byte followed by either the analysis {@link Results} and {@link ParseStatistics},
+ * a {@link ThresholdExceededException}, or an error message
+ */
+@UtilityClass
+class DaemonProtocol {
+
+    static final int VERSION = 2;
+
+    static final byte ANALYZE = 0;
+    static final byte SHUTDOWN = 1;
+
+    private static final byte STATUS_OK = 0;
+    private static final byte STATUS_THRESHOLD_EXCEEDED = 1;
+    private static final byte STATUS_FAILED = 2;
+    private static final byte STATUS_INCOMPATIBLE = 3;
+    private static final byte STATUS_VERSION_MISMATCH = 4;
+    private static final byte STATUS_UNAUTHORIZED = 5;
+
+    private static final byte DIRECTORY = 0;
+    private static final byte FILE = 1;
+
+    /**
+     * Header strings are read before the client is authenticated, and are short (the token is 64 hex digits)
+     */
+    private static final int MAX_HEADER_STRING_LENGTH = 256;
+    private static final int MAX_STRING_LENGTH = 1024 * 1024;
+    private static final int MAX_COUNT = 1024 * 1024;
+
+    void writeHeader(DataOutputStream output, String token, byte request, String classPathId) throws IOException {
+        output.writeInt(VERSION);
+        writeString(output, token);
+        output.writeByte(request);
+        writeString(output, classPathId);
+        output.flush();
+    }
+
+    /**
+     * @return the header sent by the client, or {@code null} if the client uses a different protocol version
+     */
+    Header readHeader(DataInputStream input) throws IOException {
+        if (input.readInt() != VERSION) {
+            return null;
+        }
+        return new Header(readString(input, MAX_HEADER_STRING_LENGTH), input.readByte(), readString(input, MAX_HEADER_STRING_LENGTH));
+    }
+
+    void writeHandshake(DataOutputStream output, Handshake handshake) throws IOException {
+        output.writeByte(handshake.status);
+        if (handshake == Handshake.VERSION_MISMATCH) {
+            output.writeInt(VERSION);
+        }
+        output.flush();
+    }
+
+    void readHandshake(DataInputStream input) throws IOException {
+        byte status = input.readByte();
+        switch (status) {
+            case STATUS_OK:
+                return;
+            case STATUS_VERSION_MISMATCH:
+                throw new IOException(String.format("The analysis daemon speaks protocol version %d instead of %d, "
+                        + "stop it or configure a different daemon port", input.readInt(), VERSION));
+            case STATUS_UNAUTHORIZED:
+                throw new IOException("The analysis daemon rejected the authentication token, "
+                        + "it has been started by another user or from a different token file");
+            default:
+                throw new IncompatibleDaemonException("The analysis daemon has been started from a different plugin version");
+        }
+    }
+
+    void writeConfig(DataOutputStream output, CodeNarcConfig config) throws IOException {
+        writeString(output, config.getProjectName());
+        writeFile(output, config.getBaseDirectory());
+        output.writeInt(config.getFileSets().size());
+        for (FileSet fileSet : config.getFileSets()) {
+            writeString(output, fileSet.getDirectory());
+            writeStrings(output, fileSet.getIncludes());
+            writeStrings(output, fileSet.getExcludes());
+        }
+        writeFile(output, config.getOutputFile());
+        output.writeBoolean(config.isGenerateXmlReport());
+        writeStrings(output, config.getRuleSets());
+        output.writeInt(config.getThreads());
+        writeFile(output, config.getCacheFile());
+        output.writeInt(config.getMaxLiveAsts());
+        output.writeBoolean(config.getChangedFiles() != null);
+        if (config.getChangedFiles() != null) {
+            output.writeInt(config.getChangedFiles().size());
+            for (File changedFile : config.getChangedFiles()) {
+                writeFile(output, changedFile);
+            }
+        }
+        ViolationThresholds thresholds = config.getFailFastThresholds();
+        output.writeBoolean(thresholds != null);
+        if (thresholds != null) {
+            for (int priority = 1; priority <= 3; priority++) {
+                output.writeInt(thresholds.getThreshold(priority));
+            }
+        }
+        output.flush();
+    }
+
+    CodeNarcConfig readConfig(DataInputStream input) throws IOException {
+        CodeNarcConfig.CodeNarcConfigBuilder config = CodeNarcConfig.builder()
+                .projectName(readString(input))
+                .baseDirectory(readFile(input));
+        int fileSetCount = readCount(input);
+        List<FileSet> fileSets = new ArrayList<>(fileSetCount);
+        for (int i = 0; i < fileSetCount; i++) {
+            FileSet fileSet = new FileSet();
+            fileSet.setDirectory(readString(input));
+            fileSet.setIncludes(readStrings(input));
+            fileSet.setExcludes(readStrings(input));
+            fileSets.add(fileSet);
+        }
+        config.fileSets(fileSets)
+                .outputFile(readFile(input))
+                .generateXmlReport(input.readBoolean())
+                .ruleSets(readStrings(input))
+                .threads(input.readInt())
+                .cacheFile(readFile(input))
+                .maxLiveAsts(input.readInt())
+                .parseStatistics(new ParseStatistics());
+        if (input.readBoolean()) {
+            int changedFileCount = readCount(input);
+            Set<File> changedFiles = new HashSet<>(changedFileCount * 2);
+            for (int i = 0; i < changedFileCount; i++) {
+                changedFiles.add(readFile(input));
+            }
+            config.changedFiles(changedFiles);
+        }
+        if (input.readBoolean()) {
+            config.failFastThresholds(new ViolationThresholds(input.readInt(), input.readInt(), input.readInt()));
+        }
+        return config.build();
+    }
+
+    void writeResults(DataOutputStream output, Results results, ParseStatistics statistics) throws IOException {
+        output.writeByte(STATUS_OK);
+        writeResults(output, results);
+        output.writeInt(statistics.getFilesAnalyzed());
+        output.writeInt(statistics.getAstsParsed());
+        output.writeInt(statistics.getPeakLiveAsts());
+        writeStrings(output, statistics.getLatePhaseRules());
+        output.flush();
+    }
+
+    void writeThresholdExceeded(DataOutputStream output, ThresholdExceededException exception) throws IOException {
+        output.writeByte(STATUS_THRESHOLD_EXCEEDED);
+        output.writeInt(exception.getPriority());
+        output.writeInt(exception.getThreshold());
+        output.writeInt(exception.getViolations());
+        output.writeInt(exception.getUnanalyzedFiles());
+        output.flush();
+    }
+
+    void writeFailure(DataOutputStream output, String message) throws IOException {
+        output.writeByte(STATUS_FAILED);
+        writeString(output, message);
+        output.flush();
+    }
+
+    /**
+     * Reads the daemon's response, rethrowing a {@link ThresholdExceededException} if the analysis has been aborted
+     */
+    Results readResponse(DataInputStream input, ParseStatistics statistics) throws IOException {
+        byte status = input.readByte();
+        switch (status) {
+            case STATUS_OK:
+                Results results = readResults(input);
+                statistics.merge(input.readInt(), input.readInt(), input.readInt(), readStrings(input));
+                return results;
+            case STATUS_THRESHOLD_EXCEEDED:
+                throw new ThresholdExceededException(input.readInt(), input.readInt(), input.readInt(), input.readInt());
+            default:
+                throw new IllegalStateException("CodeNarc analysis failed in the daemon: " + readString(input));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeResults(DataOutputStream output, Results results) throws IOException {
+        if (results.isFile()) {
+            output.writeByte(FILE);
+            writeString(output, results.getPath());
+            List<Violation> violations = ((FileResults) results).getViolations();
+            output.writeInt(violations.size());
+            for (Violation violation : violations) {
+                writeString(output, violation.getRule().getName());
+                output.writeInt(violation.getRule().getPriority());
+                output.writeInt(violation.getLineNumber() == null ? -1 : violation.getLineNumber());
+                writeString(output, violation.getSourceLine());
+                writeString(output, violation.getMessage());
+            }
+            return;
+        }
+        output.writeByte(DIRECTORY);
+        writeString(output, results.getPath());
+        output.writeInt(results.getTotalNumberOfFiles(false));
+        List<Results> children = results.getChildren();
+        output.writeInt(children.size());
+        for (Results child : children) {
+            writeResults(output, child);
+        }
+    }
+
+    private Results readResults(DataInputStream input) throws IOException {
+        if (input.readByte() == FILE) {
+            String path = readString(input);
+            int violationCount = readCount(input);
+            List<Violation> violations = new ArrayList<>(violationCount);
+            for (int i = 0; i < violationCount; i++) {
+                String ruleName = readString(input);
+                StubRule rule = new StubRule(input.readInt());
+                rule.setName(ruleName);
+                int lineNumber = input.readInt();
+                Violation violation = new Violation();
+                violation.setRule(rule);
+                violation.setLineNumber(lineNumber < 0 ? null : lineNumber);
+                violation.setSourceLine(readString(input));
+                violation.setMessage(readString(input));
+                violations.add(violation);
+            }
+            return new FileResults(path, violations);
+        }
+        DirectoryResults directory = new DirectoryResults(readString(input), input.readInt());
+        int childCount = readCount(input);
+        for (int i = 0; i < childCount; i++) {
+            directory.addChild(readResults(input));
+        }
+        return directory;
+    }
+
+    private void writeFile(DataOutputStream output, File file) throws IOException {
+        writeString(output, file == null ? null : file.getPath());
+    }
+
+    private File readFile(DataInputStream input) throws IOException {
+        String path = readString(input);
+        return path == null ? null : new File(path);
+    }
+
+    private void writeStrings(DataOutputStream output, Collection<String> values) throws IOException {
+        output.writeInt(values.size());
+        for (String value : values) {
+            writeString(output, value);
+        }
+    }
+
+    private List<String> readStrings(DataInputStream input) throws IOException {
+        int count = readCount(input);
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(readString(input));
+        }
+        return values;
+    }
+
+    private void writeString(DataOutputStream output, String value) throws IOException {
+        if (value == null) {
+            output.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private String readString(DataInputStream input) throws IOException {
+        return readString(input, MAX_STRING_LENGTH);
+    }
+
+    /**
+     * Rejects strings longer than {@code maxLength} bytes before allocating any memory for them
+     */
+    private String readString(DataInputStream input, int maxLength) throws IOException {
+        int length = input.readInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > maxLength) {
+            throw new IOException(String.format("String of %d bytes exceeds the limit of %d bytes", length, maxLength));
+        }
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private int readCount(DataInputStream input) throws IOException {
+        int count = input.readInt();
+        if (count < 0 || count > MAX_COUNT) {
+            throw new IOException(String.format("Element count %d is outside of the allowed range 0-%d", count, MAX_COUNT));
+        }
+        return count;
+    }
+
+    @Value
+    static class Header {
+
+        String token;
+        byte request;
+        String classPathId;
+    }
+
+    /**
+     * The daemon's answer to a request header
+     */
+    @RequiredArgsConstructor
+    enum Handshake {
+
+        ACCEPTED(STATUS_OK),
+        /**
+         * The client's plugin class path differs from the daemon's, the client may shut the daemon down and start a new one
+         */
+        INCOMPATIBLE(STATUS_INCOMPATIBLE),
+        /**
+         * The client speaks a different protocol version, the daemon's version follows
+         */
+        VERSION_MISMATCH(STATUS_VERSION_MISMATCH),
+        /**
+         * The client did not present the daemon's token
+         */
+        UNAUTHORIZED(STATUS_UNAUTHORIZED);
+
+        private final byte status;
+    }
+
+    /**
+     * Signals that the daemon listening on the port has been started from a different plugin version
+     */
+    static class IncompatibleDaemonException extends IllegalStateException {
+
+        IncompatibleDaemonException(String message) {
+            super(message);
+        }
+    }
+}
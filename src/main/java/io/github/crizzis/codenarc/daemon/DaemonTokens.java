@@ -0,0 +1,106 @@
+package io.github.crizzis.codenarc.daemon;
+
+import lombok.experimental.UtilityClass;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * The secret every request to an {@link AnalysisDaemon} has to present.
+ *
+ * A fresh token is generated whenever a daemon is started, and stored in a file in the user's home directory
+ * which only its owner can read. Other local users can connect to the port, but cannot obtain the token
+ */
+@UtilityClass
+class DaemonTokens {
+
+    private static final int TOKEN_BYTES = 32;
+    private static final String OWNER_ONLY_FILE = "rw-------";
+    private static final String OWNER_ONLY_DIRECTORY = "rwx------";
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    String generate() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        RANDOM.nextBytes(bytes);
+        StringBuilder hex = new StringBuilder();
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * @return the file holding the token of the daemon listening on {@code port}
+     */
+    Path getTokenFile(int port) {
+        return Paths.get(System.getProperty("user.home"), ".codenarc", String.format("daemon-%d.token", port));
+    }
+
+    /**
+     * Replaces the content of {@code tokenFile} with {@code token}. The file is readable by its owner only
+     * from the moment it is created
+     */
+    void write(Path tokenFile, String token) throws IOException {
+        Path directory = tokenFile.toAbsolutePath().getParent();
+        Path temporaryFile;
+        if (isPosix()) {
+            if (!Files.isDirectory(directory)) {
+                Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString(OWNER_ONLY_DIRECTORY)));
+            }
+            temporaryFile = Files.createTempFile(directory, tokenFile.getFileName().toString(), null,
+                    PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString(OWNER_ONLY_FILE)));
+        } else {
+            Files.createDirectories(directory);
+            temporaryFile = Files.createTempFile(directory, tokenFile.getFileName().toString(), null);
+            restrictToOwner(temporaryFile.toFile());
+        }
+        try {
+            Files.writeString(temporaryFile, token, UTF_8);
+            Files.move(temporaryFile, tokenFile, REPLACE_EXISTING, ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    /**
+     * @return the token stored in {@code tokenFile}, or {@code null} if there is no such file
+     */
+    String read(Path tokenFile) throws IOException {
+        try {
+            return Files.readString(tokenFile, UTF_8).trim();
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Compares the tokens in constant time, so that the response time does not reveal how much of a guess was right
+     */
+    boolean matches(String expected, String actual) {
+        return actual != null && MessageDigest.isEqual(expected.getBytes(UTF_8), actual.getBytes(UTF_8));
+    }
+
+    private boolean isPosix() {
+        return FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+    }
+
+    private void restrictToOwner(File file) throws IOException {
+        boolean restricted = file.setReadable(false, false) && file.setReadable(true, true)
+                && file.setWritable(false, false) && file.setWritable(true, true);
+        if (!restricted) {
+            throw new IOException("Cannot restrict the permissions of: " + file);
+        }
+    }
+}
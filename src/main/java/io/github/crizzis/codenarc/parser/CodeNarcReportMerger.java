@@ -0,0 +1,308 @@
+package io.github.crizzis.codenarc.parser;
+
+import io.github.crizzis.codenarc.parser.PackageStream.ReportPackage;
+import lombok.Value;
+import org.codenarc.results.FileResults;
+import org.codenarc.results.Results;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.text.DateFormat;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.zip.GZIPOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Merges CodeNarc XML reports (typically the reports of all the modules of a multi-module project) into a single report,
+ * holding no more than one package of every report in memory at a time.
+ *
+ * Relative source directories are prefixed with the path of the module the report belongs to, so that the source roots
+ * of different modules stay apart, and resolve against the base directory of the merged report.
+ * The source roots of the different reports sharing the same source directory are merged into a single source root.
+ * Within a source root, packages are listed in pre-order with the subpackages sorted by name, so the source roots
+ * are merged with a k-way merge on the package path, and the packages with the same path are combined into one.
+ * Reports listing their packages in any other order (e.g. reports written by CodeNarc itself) are rejected.
+ * The totals of a combined package, as well as the totals of the merged report, are the sums of the totals being combined.
+ *
+ * A report whose source roots are listed in a different order than in the merged report is read more than once.
+ * A merged report named {@code *.gz} is compressed with gzip
+ */
+@Named
+@Singleton
+public class CodeNarcReportMerger {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String COMPRESSED_EXTENSION = ".gz";
+    private static final char PATH_SEPARATOR = '/';
+    private static final String CODENARC_URL = "http://www.codenarc.org";
+
+    /**
+     * Orders paths the way the packages are listed, i.e. every package is followed by its subpackages
+     * before any of its siblings
+     */
+    static final Comparator<String> PACKAGE_ORDER = (first, second) -> {
+        int length = Math.min(first.length(), second.length());
+        for (int i = 0; i < length; i++) {
+            char firstChar = first.charAt(i);
+            char secondChar = second.charAt(i);
+            if (firstChar != secondChar) {
+                if (firstChar == PATH_SEPARATOR) {
+                    return -1;
+                }
+                return secondChar == PATH_SEPARATOR ? 1 : firstChar - secondChar;
+            }
+        }
+        return first.length() - second.length();
+    };
+
+    public void merge(List<ModuleReport> moduleReports, String title, File mergedXmlReport) throws CodeNarcXmlParser.XmlParserException {
+        List<MergedReport> reports = new ArrayList<>(moduleReports.size());
+        try {
+            for (ModuleReport moduleReport : moduleReports) {
+                reports.add(new MergedReport(moduleReport));
+            }
+            File parent = mergedXmlReport.getAbsoluteFile().getParentFile();
+            Files.createDirectories(parent.toPath());
+            OutputStream output = Files.newOutputStream(mergedXmlReport.toPath());
+            if (mergedXmlReport.getName().endsWith(COMPRESSED_EXTENSION)) {
+                output = new GZIPOutputStream(output, BUFFER_SIZE);
+            }
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(output, UTF_8), BUFFER_SIZE)) {
+                write(new CodeNarcXmlElementWriter(XMLOutputFactory.newFactory().createXMLStreamWriter(writer)), reports, title);
+            }
+        } catch (IOException | XMLStreamException | ClassCastException | IllegalArgumentException | IllegalStateException e) {
+            throw new CodeNarcXmlParser.XmlParserException(e);
+        } finally {
+            reports.forEach(MergedReport::close);
+        }
+    }
+
+    private void write(CodeNarcXmlElementWriter elements, List<MergedReport> reports, String title) throws IOException, XMLStreamException {
+        List<SourceRootKey> sourceRoots = collectSourceRoots(reports);
+        PackageTotals summaryTotals = PackageTotals.EMPTY;
+        for (MergedReport report : reports) {
+            summaryTotals = summaryTotals.plus(report.stream.getSummaryTotals());
+        }
+        elements.writeStartCodeNarc(CODENARC_URL, reports.stream()
+                .map(report -> report.header.getCodeNarcVersion())
+                .filter(Objects::nonNull)
+                .findFirst()
+                .orElse(""));
+        elements.writeReport(DateFormat.getDateTimeInstance().format(new Date()));
+        List<String> sourceDirectories = new ArrayList<>(sourceRoots.size());
+        sourceRoots.forEach(sourceRoot -> sourceDirectories.add(sourceRoot.sourceDirectory));
+        elements.writeProject(title, sourceDirectories);
+        elements.writeStartPackage(null, summaryTotals);
+        elements.writeEndPackage();
+        for (SourceRootKey sourceRoot : sourceRoots) {
+            mergeSourceRoot(elements, reports, sourceRoot);
+        }
+        Map<String, String> ruleDescriptions = new LinkedHashMap<>();
+        for (MergedReport report : reports) {
+            report.stream.readRuleDescriptions().forEach(ruleDescriptions::putIfAbsent);
+        }
+        elements.writeStartRules();
+        for (Map.Entry<String, String> rule : ruleDescriptions.entrySet()) {
+            elements.writeRule(rule.getKey(), rule.getValue());
+        }
+        elements.writeEndRules();
+        elements.writeEndCodeNarc();
+    }
+
+    /**
+     * A source directory appearing more than once in a single report (e.g. as a source directory of a module
+     * and of its test sources) gives as many source roots in the merged report
+     */
+    private List<SourceRootKey> collectSourceRoots(List<MergedReport> reports) {
+        List<SourceRootKey> sourceRoots = new ArrayList<>();
+        for (MergedReport report : reports) {
+            for (SourceRootKey key : report.sourceRoots) {
+                if (!sourceRoots.contains(key)) {
+                    sourceRoots.add(key);
+                }
+            }
+        }
+        return sourceRoots;
+    }
+
+    private static String resolveSourceDirectory(String modulePath, String sourceDirectory) {
+        if (modulePath.isEmpty() || new File(sourceDirectory).isAbsolute()) {
+            return sourceDirectory;
+        }
+        return modulePath + PATH_SEPARATOR + sourceDirectory;
+    }
+
+    private void mergeSourceRoot(CodeNarcXmlElementWriter elements, List<MergedReport> reports, SourceRootKey sourceRoot)
+            throws IOException, XMLStreamException {
+        PriorityQueue<MergedReport> queue = new PriorityQueue<>(Comparator.comparing(MergedReport::peekPath, PACKAGE_ORDER));
+        for (MergedReport report : reports) {
+            int index = report.indexOf(sourceRoot);
+            if (index >= 0 && report.seekSourceRoot(index)) {
+                queue.add(report);
+            }
+        }
+        List<ReportPackage> packages = new ArrayList<>();
+        while (!queue.isEmpty()) {
+            String path = queue.peek().peekPath();
+            while (!queue.isEmpty() && PACKAGE_ORDER.compare(queue.peek().peekPath(), path) == 0) {
+                MergedReport report = queue.poll();
+                packages.add(report.take());
+                if (report.hasNextInSourceRoot()) {
+                    queue.add(report);
+                }
+            }
+            writePackage(elements, path, packages);
+            packages.clear();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writePackage(CodeNarcXmlElementWriter elements, String path, List<ReportPackage> packages) throws XMLStreamException {
+        PackageTotals totals = PackageTotals.EMPTY;
+        for (ReportPackage reportPackage : packages) {
+            totals = totals.plus(reportPackage.getTotals());
+        }
+        elements.writeStartPackage(path, totals);
+        for (ReportPackage reportPackage : packages) {
+            for (Results file : (List<Results>) reportPackage.getResults().getChildren()) {
+                elements.writeFile(file.getPath(), ((FileResults) file).getViolations());
+            }
+        }
+        elements.writeEndPackage();
+    }
+
+    /**
+     * The XML report of a module, along with the path of the module relative to the base directory of the merged report
+     * (empty for a module located in the base directory itself), using {@code /} as the separator
+     */
+    @Value
+    public static class ModuleReport {
+
+        File xmlReport;
+        String modulePath;
+    }
+
+    private static class SourceRootKey {
+
+        private final String sourceDirectory;
+        private final int occurrence;
+
+        SourceRootKey(String sourceDirectory, int occurrence) {
+            this.sourceDirectory = sourceDirectory;
+            this.occurrence = occurrence;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof SourceRootKey
+                    && sourceDirectory.equals(((SourceRootKey) other).sourceDirectory)
+                    && occurrence == ((SourceRootKey) other).occurrence;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(sourceDirectory, occurrence);
+        }
+    }
+
+    /**
+     * One of the reports being merged, read with a single {@link PackageStream} which is only reopened
+     * if a source root preceding the current one is requested
+     */
+    private static class MergedReport {
+
+        private final File xmlReport;
+        private final CodeNarcAnalysis header;
+        private final List<SourceRootKey> sourceRoots = new ArrayList<>();
+        private PackageStream stream;
+        private ReportPackage next;
+        private int nextSourceRoot;
+
+        MergedReport(ModuleReport moduleReport) throws IOException, XMLStreamException {
+            this.xmlReport = moduleReport.getXmlReport();
+            this.stream = PackageStream.open(xmlReport);
+            this.header = stream.getHeader();
+            Map<String, Integer> occurrences = new HashMap<>();
+            for (String sourceDirectory : header.getSourceDirectories()) {
+                String resolved = resolveSourceDirectory(moduleReport.getModulePath(), sourceDirectory);
+                sourceRoots.add(new SourceRootKey(resolved, occurrences.merge(resolved, 1, Integer::sum)));
+            }
+            advance();
+        }
+
+        int indexOf(SourceRootKey sourceRoot) {
+            return sourceRoots.indexOf(sourceRoot);
+        }
+
+        /**
+         * @return whether the source root has any packages
+         */
+        boolean seekSourceRoot(int sourceRoot) throws IOException, XMLStreamException {
+            if (next == null || nextSourceRoot > sourceRoot || (nextSourceRoot == sourceRoot && !next.getResults().getPath().isEmpty())) {
+                stream.close();
+                stream = PackageStream.open(xmlReport);
+                next = null;
+                advance();
+            }
+            while (next != null && nextSourceRoot < sourceRoot) {
+                advance();
+            }
+            return next != null && nextSourceRoot == sourceRoot;
+        }
+
+        String peekPath() {
+            return next.getResults().getPath();
+        }
+
+        ReportPackage take() throws XMLStreamException {
+            ReportPackage taken = next;
+            advance();
+            return taken;
+        }
+
+        boolean hasNextInSourceRoot() {
+            return next != null && !next.getResults().getPath().isEmpty();
+        }
+
+        /**
+         * @throws IllegalStateException if the next package does not follow the current one in {@link #PACKAGE_ORDER}
+         */
+        private void advance() throws XMLStreamException {
+            String previousPath = next == null ? null : next.getResults().getPath();
+            int previousSourceRoot = nextSourceRoot;
+            next = stream.next();
+            nextSourceRoot = stream.getSourceRoot();
+            if (next != null && previousPath != null && nextSourceRoot == previousSourceRoot
+                    && PACKAGE_ORDER.compare(previousPath, peekPath()) >= 0) {
+                throw new IllegalStateException(String.format("%s does not list its packages in the order expected for merging "
+                        + "(package '%s' follows '%s'), regenerate it with the verify goal", xmlReport, peekPath(), previousPath));
+            }
+        }
+
+        void close() {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                // nothing left to read from the report
+            }
+        }
+    }
+}
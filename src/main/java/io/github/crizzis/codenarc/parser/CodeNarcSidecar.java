@@ -0,0 +1,318 @@
+package io.github.crizzis.codenarc.parser;
+
+import lombok.experimental.UtilityClass;
+import org.codenarc.results.DirectoryResults;
+import org.codenarc.results.FileResults;
+import org.codenarc.results.Results;
+import org.codenarc.rule.Rule;
+import org.codenarc.rule.StubRule;
+import org.codenarc.rule.Violation;
+import org.codenarc.util.PathUtil;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A compact binary copy of a {@link CodeNarcAnalysis}, written next to the CodeNarc XML report ({@code CodeNarc.bin}
+ * next to {@code CodeNarc.xml}) so that the analysis can be loaded again without parsing the XML.
+ *
+ * The sidecar is streamed to disk while walking the results. Every string is stored once, where it first occurs,
+ * and referenced by index afterwards (index 0 standing for {@code null}). All the numbers are stored as varints.
+ * The results are stored in the shape {@link CodeNarcXmlParser} reconstructs them from the XML report
+ * (file names rather than paths, recursive file counts, files before subdirectories, text stripped of the characters
+ * not allowed in XML), so that loading the sidecar and parsing the XML are interchangeable.
+ *
+ * The sidecar records a SHA-256 digest of the whole XML report file it has been written for, computed while the report
+ * is being written (see {@link #newReportDigest()}), and is ignored once the XML report no longer matches
+ */
+@UtilityClass
+public class CodeNarcSidecar {
+
+    private static final int MAGIC = 0x434E5242; // CNRB
+    private static final int FORMAT_VERSION = 2;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final String EXTENSION = ".bin";
+    private static final Pattern ILLEGAL_CHARACTERS = Pattern.compile("[^\\x09\\x0A\\x0D\\x20-\\uD7FF\\uE000-\\uFFFD\\x{10000}-\\x{10FFFF}]");
+
+    private static final int DIRECTORY = 0;
+    private static final int FILE = 1;
+
+    public File sidecarFor(File xmlReport) {
+        String name = xmlReport.getName();
+        int extension = name.lastIndexOf('.');
+        return new File(xmlReport.getParentFile(), (extension < 0 ? name : name.substring(0, extension)) + EXTENSION);
+    }
+
+    /**
+     * @return a digest to be updated with every byte of the XML report file as it is being written
+     */
+    public MessageDigest newReportDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(DIGEST_ALGORITHM + " not supported", e);
+        }
+    }
+
+    /**
+     * Writes the sidecar of an XML report that has just been written
+     *
+     * @param xmlReportDigest the digest of the XML report file, see {@link #newReportDigest()}
+     */
+    public void write(File xmlReport, byte[] xmlReportDigest, CodeNarcAnalysis analysis) throws IOException {
+        File sidecar = sidecarFor(xmlReport);
+        File temporary = new File(sidecar.getPath() + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary.toPath()), BUFFER_SIZE))) {
+            output.writeInt(MAGIC);
+            output.writeInt(FORMAT_VERSION);
+            writeVarInt(output, xmlReportDigest.length);
+            output.write(xmlReportDigest);
+            StringEncoder strings = new StringEncoder(output);
+            strings.write(analysis.getCodeNarcVersion());
+            strings.write(analysis.getProjectTitle());
+            strings.write(analysis.getReportTimestamp());
+            writeVarInt(output, analysis.getSourceDirectories().size());
+            for (String sourceDirectory : analysis.getSourceDirectories()) {
+                strings.write(sourceDirectory);
+            }
+            writeResults(output, analysis.getResults(), strings);
+        }
+        Files.move(temporary.toPath(), sidecar.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * @return the analysis stored in the sidecar of the XML report, if there is one and it matches the report
+     */
+    public Optional<CodeNarcAnalysis> read(File xmlReport) {
+        File sidecar = sidecarFor(xmlReport);
+        if (!sidecar.isFile()) {
+            return Optional.empty();
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(sidecar.toPath()), BUFFER_SIZE))) {
+            if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION || !matchesDigest(input, xmlReport)) {
+                return Optional.empty();
+            }
+            StringDecoder strings = new StringDecoder(input);
+            CodeNarcAnalysis analysis = new CodeNarcAnalysis();
+            analysis.setCodeNarcVersion(strings.read());
+            analysis.setProjectTitle(strings.read());
+            analysis.setReportTimestamp(strings.read());
+            int sourceDirectoryCount = readVarInt(input);
+            for (int i = 0; i < sourceDirectoryCount; i++) {
+                analysis.addSourceDirectory(strings.read());
+            }
+            analysis.setResults(readResults(input, strings, new HashMap<>()));
+            return Optional.of(analysis);
+        } catch (IOException | RuntimeException e) {
+            return Optional.empty();
+        }
+    }
+
+    private boolean matchesDigest(DataInputStream input, File xmlReport) throws IOException {
+        byte[] expected = new byte[readVarInt(input)];
+        input.readFully(expected);
+        return MessageDigest.isEqual(expected, digest(xmlReport));
+    }
+
+    byte[] digest(File xmlReport) throws IOException {
+        MessageDigest digest = newReportDigest();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream input = Files.newInputStream(xmlReport.toPath())) {
+            for (int read = input.read(buffer); read >= 0; read = input.read(buffer)) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return digest.digest();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeResults(DataOutputStream output, Results results, StringEncoder strings) throws IOException {
+        List<Results> files = new ArrayList<>();
+        List<Results> directories = new ArrayList<>();
+        for (Results child : (List<Results>) results.getChildren()) {
+            (child.isFile() ? files : directories).add(child);
+        }
+        strings.write(results.getPath());
+        writeVarInt(output, results.getTotalNumberOfFiles(true));
+        writeVarInt(output, files.size() + directories.size());
+        for (Results file : files) {
+            output.writeByte(FILE);
+            strings.write(PathUtil.getName(file.getPath()));
+            List<Violation> violations = ((FileResults) file).getViolations();
+            writeVarInt(output, violations.size());
+            for (Violation violation : violations) {
+                Rule rule = violation.getRule();
+                strings.write(rule.getName());
+                writeVarInt(output, rule.getPriority());
+                writeVarInt(output, violation.getLineNumber() == null ? 0 : violation.getLineNumber() + 1);
+                strings.write(text(violation.getSourceLine()));
+                strings.write(text(violation.getMessage()));
+            }
+        }
+        for (Results directory : directories) {
+            output.writeByte(DIRECTORY);
+            writeResults(output, directory, strings);
+        }
+    }
+
+    private DirectoryResults readResults(DataInputStream input, StringDecoder strings, Map<String, Map<Integer, Rule>> rules) throws IOException {
+        DirectoryResults directory = new DirectoryResults(strings.read(), readVarInt(input));
+        int childCount = readVarInt(input);
+        for (int i = 0; i < childCount; i++) {
+            if (input.readByte() == DIRECTORY) {
+                directory.addChild(readResults(input, strings, rules));
+                continue;
+            }
+            String name = strings.read();
+            int violationCount = readVarInt(input);
+            List<Violation> violations = new ArrayList<>(violationCount);
+            for (int j = 0; j < violationCount; j++) {
+                String ruleName = strings.read();
+                int priority = readVarInt(input);
+                int lineNumber = readVarInt(input);
+                Violation violation = new Violation();
+                violation.setRule(rules.computeIfAbsent(ruleName, key -> new HashMap<>())
+                        .computeIfAbsent(priority, key -> stubRule(ruleName, priority)));
+                violation.setLineNumber(lineNumber == 0 ? null : lineNumber - 1);
+                violation.setSourceLine(strings.read());
+                violation.setMessage(strings.read());
+                violations.add(violation);
+            }
+            directory.addChild(new FileResults(name, violations));
+        }
+        return directory;
+    }
+
+    private Rule stubRule(String name, int priority) {
+        StubRule rule = new StubRule(priority);
+        rule.setName(name);
+        return rule;
+    }
+
+    /**
+     * The text as read back from the XML report, i.e. without the characters not allowed in XML,
+     * with normalized line endings, and with blank text omitted
+     */
+    private String text(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        if (!needsSanitizing(value)) {
+            return value;
+        }
+        String text = ILLEGAL_CHARACTERS.matcher(value).replaceAll("").replace("\r\n", "\n").replace('\r', '\n');
+        return text.isBlank() ? null : text;
+    }
+
+    private boolean needsSanitizing(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char next = value.charAt(i);
+            if ((next < 0x20 && next != '\t' && next != '\n') || Character.isSurrogate(next) || next >= 0xFFFE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void writeVarInt(DataOutputStream output, int value) throws IOException {
+        int remaining = value;
+        while ((remaining & ~0x7F) != 0) {
+            output.writeByte((remaining & 0x7F) | 0x80);
+            remaining >>>= 7;
+        }
+        output.writeByte(remaining);
+    }
+
+    private int readVarInt(DataInputStream input) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte next = input.readByte();
+            value |= (next & 0x7F) << shift;
+            if ((next & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    /**
+     * Writes every distinct string in full where it first occurs, as the next index followed by its UTF-8 bytes,
+     * and as its index only afterwards
+     */
+    private static class StringEncoder {
+
+        private final DataOutputStream output;
+        private final Map<String, Integer> indexes = new HashMap<>();
+
+        StringEncoder(DataOutputStream output) {
+            this.output = output;
+        }
+
+        void write(String value) throws IOException {
+            if (value == null) {
+                writeVarInt(output, 0);
+                return;
+            }
+            Integer index = indexes.get(value);
+            if (index != null) {
+                writeVarInt(output, index);
+                return;
+            }
+            indexes.put(value, indexes.size() + 1);
+            writeVarInt(output, indexes.size());
+            byte[] bytes = value.getBytes(UTF_8);
+            writeVarInt(output, bytes.length);
+            output.write(bytes);
+        }
+    }
+
+    private static class StringDecoder {
+
+        private final DataInputStream input;
+        private final List<String> strings = new ArrayList<>();
+        private byte[] buffer = new byte[256];
+
+        StringDecoder(DataInputStream input) {
+            this.input = input;
+        }
+
+        String read() throws IOException {
+            int index = readVarInt(input);
+            if (index == 0) {
+                return null;
+            }
+            if (index <= strings.size()) {
+                return strings.get(index - 1);
+            }
+            if (index != strings.size() + 1) {
+                throw new IOException("Malformed string reference");
+            }
+            int length = readVarInt(input);
+            if (buffer.length < length) {
+                buffer = new byte[Math.max(length, buffer.length * 2)];
+            }
+            input.readFully(buffer, 0, length);
+            String value = new String(buffer, 0, length, UTF_8);
+            strings.add(value);
+            return value;
+        }
+    }
+}
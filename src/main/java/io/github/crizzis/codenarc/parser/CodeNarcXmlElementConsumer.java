@@ -0,0 +1,200 @@
+package io.github.crizzis.codenarc.parser;
+
+import com.google.inject.internal.util.Iterables;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+import org.codenarc.results.DirectoryResults;
+import org.codenarc.results.FileResults;
+import org.codenarc.results.Results;
+import org.codenarc.rule.StubRule;
+import org.codenarc.rule.Violation;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static javax.xml.stream.XMLStreamConstants.CDATA;
+import static javax.xml.stream.XMLStreamConstants.CHARACTERS;
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+
+/**
+ * Builds a {@link CodeNarcAnalysis} from the elements of a CodeNarc XML report, as visited by an {@link XMLStreamReader} cursor.
+ * The {@code consumeStart*} methods read the attributes of the element the cursor is currently positioned at
+ */
+@SuppressWarnings("unchecked")
+class CodeNarcXmlElementConsumer {
+
+    private static final String VERSION = "version";
+    private static final String TIMESTAMP = "timestamp";
+    private static final String TITLE = "title";
+    private static final String TOTAL_FILES = "totalFiles";
+    private static final String PATH = "path";
+    private static final String NAME = "name";
+    private static final String RULE_NAME = "ruleName";
+    private static final String PRIORITY = "priority";
+    private static final String LINE_NUMBER = "lineNumber";
+
+    private final Deque<Object> currentContext = new ArrayDeque<>();
+    private final StringBuilder text = new StringBuilder();
+    private Consumer<DirectoryResults> packages;
+
+    CodeNarcXmlElementConsumer() {
+    }
+
+    /**
+     * @param packages receives the parsed packages in document order, instead of them being nested under the package summary
+     */
+    CodeNarcXmlElementConsumer(Consumer<DirectoryResults> packages) {
+        this.packages = packages;
+    }
+
+    void consumeStartCodeNarc(XMLStreamReader codeNarc) {
+        CodeNarcAnalysis analysis = new CodeNarcAnalysis();
+        analysis.setCodeNarcVersion(codeNarc.getAttributeValue(null, VERSION));
+        currentContext.push(analysis);
+    }
+
+    void consumeStartReport(XMLStreamReader report) {
+        peekAs(CodeNarcAnalysis.class).setReportTimestamp(report.getAttributeValue(null, TIMESTAMP));
+    }
+
+    void consumeStartProject(XMLStreamReader project) {
+        peekAs(CodeNarcAnalysis.class).setProjectTitle(project.getAttributeValue(null, TITLE));
+    }
+
+    /**
+     * Consumes the whole element, leaving the cursor at its end tag
+     */
+    void consumeSourceDirectory(XMLStreamReader sourceDirectory) throws XMLStreamException {
+        peekAs(CodeNarcAnalysis.class).addSourceDirectory(getElementText(sourceDirectory));
+    }
+
+    void consumeStartPackageSummary(XMLStreamReader packageSummaryElement) {
+        DirectoryResults packageSummary = new DirectoryResults(null, getIntAttributeValue(packageSummaryElement, TOTAL_FILES));
+        currentContext.push(packageSummary);
+        if (packages == null) {
+            packages = new PackageTree(packageSummary)::add;
+        }
+    }
+
+    void consumeStartPackage(XMLStreamReader packageElement) {
+        currentContext.push(new DirectoryResults(getAttributeValue(packageElement, PATH), getIntAttributeValue(packageElement, TOTAL_FILES)));
+    }
+
+    void consumeStartFile(XMLStreamReader file) {
+        currentContext.push(new FileResultsHolder(getAttributeValue(file, NAME), new ArrayList<>()));
+    }
+
+    void consumeStartViolation(XMLStreamReader violationElement) {
+        Violation violation = new Violation();
+        String lineNumber = violationElement.getAttributeValue(null, LINE_NUMBER);
+        violation.setLineNumber(lineNumber == null ? null : Integer.valueOf(lineNumber));
+        StubRule rule = new StubRule(getIntAttributeValue(violationElement, PRIORITY));
+        rule.setName(getAttributeValue(violationElement, RULE_NAME));
+        violation.setRule(rule);
+        currentContext.push(violation);
+    }
+
+    /**
+     * Consumes the whole element, leaving the cursor at its end tag
+     */
+    void consumeSourceLine(XMLStreamReader sourceLine) throws XMLStreamException {
+        peekAs(Violation.class).setSourceLine(getElementText(sourceLine));
+    }
+
+    /**
+     * Consumes the whole element, leaving the cursor at its end tag
+     */
+    void consumeMessage(XMLStreamReader message) throws XMLStreamException {
+        peekAs(Violation.class).setMessage(getElementText(message));
+    }
+
+    void consumeEndCodeNarc() {
+        Results packageSummary = popAs(Results.class);
+        peekAs(CodeNarcAnalysis.class).setResults(packageSummary);
+    }
+
+    void consumeEndPackage() {
+        packages.accept(popAs(DirectoryResults.class));
+    }
+
+    void consumeEndFile() {
+        FileResultsHolder child = popAs(FileResultsHolder.class);
+        peekAs(DirectoryResults.class).addChild(child.toFileResults());
+    }
+
+    void consumeEndViolation() {
+        Violation child = popAs(Violation.class);
+        peekAs(FileResultsHolder.class).getViolations().add(child);
+    }
+
+    /**
+     * Concatenates the text and CDATA sections of the element, skipping the whitespace-only ones
+     * (i.e. the indentation of pretty-printed reports)
+     */
+    String getElementText(XMLStreamReader element) throws XMLStreamException {
+        text.setLength(0);
+        int event;
+        while ((event = element.next()) != END_ELEMENT) {
+            if (event == START_ELEMENT) {
+                throw new IllegalArgumentException("Unexpected tag " + element.getLocalName() + " in a text element");
+            }
+            if ((event == CHARACTERS || event == CDATA) && !element.isWhiteSpace()) {
+                text.append(element.getTextCharacters(), element.getTextStart(), element.getTextLength());
+            }
+        }
+        return text.length() == 0 ? null : text.toString();
+    }
+
+    private int getIntAttributeValue(XMLStreamReader element, String name) {
+        return Integer.parseInt(getAttributeValue(element, name));
+    }
+
+    private String getAttributeValue(XMLStreamReader element, String name) {
+        String value = element.getAttributeValue(null, name);
+        if (value == null) {
+            throw new IllegalArgumentException(String.format("Missing attribute %s of tag %s", name, element.getLocalName()));
+        }
+        return value;
+    }
+
+    private <T> T popAs(Class<T> expectedClass) {
+        return (T) currentContext.pop();
+    }
+
+    private <T> T peekAs(Class<T> expectedClass) {
+        return (T) currentContext.peek();
+    }
+
+    /**
+     * @return the analysis being built, before the end of the report has been reached
+     */
+    CodeNarcAnalysis peekAnalysis() {
+        return (CodeNarcAnalysis) currentContext.peekLast();
+    }
+
+    public CodeNarcAnalysis getAnalysis() {
+        if (currentContext.size() > 1) {
+            throw new IllegalStateException("Malformed XML report input, " + currentContext + " left to parse");
+        }
+        return (CodeNarcAnalysis) Iterables.getOnlyElement(currentContext);
+    }
+
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    private static class FileResultsHolder { //needed because FileResults does not allow for appending new violations
+        private String name;
+        private List<Violation> violations = new ArrayList<>();
+
+        public Results toFileResults() {
+            return new FileResults(name, violations);
+        }
+    }
+}
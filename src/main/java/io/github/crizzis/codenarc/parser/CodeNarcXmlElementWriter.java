@@ -0,0 +1,137 @@
+package io.github.crizzis.codenarc.parser;
+
+import lombok.RequiredArgsConstructor;
+import org.codenarc.rule.Rule;
+import org.codenarc.rule.Violation;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Writes the elements of a CodeNarc XML report, in the same format as {@link org.codenarc.report.XmlReportWriter},
+ * to an {@link XMLStreamWriter}. The counterpart of {@link CodeNarcXmlElementConsumer}
+ */
+@RequiredArgsConstructor
+public class CodeNarcXmlElementWriter {
+
+    private static final Pattern ILLEGAL_CHARACTERS = Pattern.compile("[^\\x09\\x0A\\x0D\\x20-\\uD7FF\\uE000-\\uFFFD\\x{10000}-\\x{10FFFF}]");
+    private static final String CDATA_END = "]]>";
+
+    private final XMLStreamWriter xml;
+
+    public void writeStartCodeNarc(String url, String version) throws XMLStreamException {
+        xml.writeStartDocument("1.0");
+        xml.writeStartElement("CodeNarc");
+        xml.writeAttribute("url", url);
+        xml.writeAttribute("version", version);
+    }
+
+    public void writeEndCodeNarc() throws XMLStreamException {
+        xml.writeEndElement();
+        xml.writeEndDocument();
+        xml.flush();
+    }
+
+    public void writeReport(String timestamp) throws XMLStreamException {
+        xml.writeEmptyElement("Report");
+        xml.writeAttribute("timestamp", timestamp);
+    }
+
+    public void writeProject(String title, List<String> sourceDirectories) throws XMLStreamException {
+        xml.writeStartElement("Project");
+        writeAttribute("title", title);
+        for (String sourceDirectory : sourceDirectories) {
+            xml.writeStartElement("SourceDirectory");
+            xml.writeCharacters(sourceDirectory);
+            xml.writeEndElement();
+        }
+        xml.writeEndElement();
+    }
+
+    /**
+     * @param path the path of the package, or {@code null} for the package summary
+     */
+    public void writeStartPackage(String path, PackageTotals totals) throws XMLStreamException {
+        xml.writeStartElement(path == null ? "PackageSummary" : "Package");
+        if (path != null) {
+            xml.writeAttribute("path", path);
+        }
+        xml.writeAttribute("totalFiles", String.valueOf(totals.getTotalFiles()));
+        xml.writeAttribute("filesWithViolations", String.valueOf(totals.getFilesWithViolations()));
+        ViolationCounts violationCounts = totals.getViolationCounts();
+        xml.writeAttribute("priority1", String.valueOf(violationCounts.getPriority1()));
+        xml.writeAttribute("priority2", String.valueOf(violationCounts.getPriority2()));
+        xml.writeAttribute("priority3", String.valueOf(violationCounts.getPriority3()));
+    }
+
+    public void writeEndPackage() throws XMLStreamException {
+        xml.writeEndElement();
+    }
+
+    public void writeFile(String name, List<Violation> violations) throws XMLStreamException {
+        xml.writeStartElement("File");
+        xml.writeAttribute("name", name);
+        for (Violation violation : violations) {
+            writeViolation(violation);
+        }
+        xml.writeEndElement();
+    }
+
+    public void writeStartRules() throws XMLStreamException {
+        xml.writeStartElement("Rules");
+    }
+
+    public void writeRule(String name, String description) throws XMLStreamException {
+        xml.writeStartElement("Rule");
+        writeAttribute("name", name);
+        xml.writeStartElement("Description");
+        writeCData(description);
+        xml.writeEndElement();
+        xml.writeEndElement();
+    }
+
+    public void writeEndRules() throws XMLStreamException {
+        xml.writeEndElement();
+    }
+
+    private void writeViolation(Violation violation) throws XMLStreamException {
+        Rule rule = violation.getRule();
+        xml.writeStartElement("Violation");
+        writeAttribute("ruleName", rule.getName());
+        xml.writeAttribute("priority", String.valueOf(rule.getPriority()));
+        writeAttribute("lineNumber", violation.getLineNumber());
+        writeCDataElement("SourceLine", violation.getSourceLine());
+        writeCDataElement("Message", violation.getMessage());
+        xml.writeEndElement();
+    }
+
+    private void writeAttribute(String name, Object value) throws XMLStreamException {
+        if (value != null) {
+            xml.writeAttribute(name, value.toString());
+        }
+    }
+
+    private void writeCDataElement(String name, String text) throws XMLStreamException {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        xml.writeStartElement(name);
+        writeCData(ILLEGAL_CHARACTERS.matcher(text).replaceAll(""));
+        xml.writeEndElement();
+    }
+
+    /**
+     * CDATA sections cannot contain their own terminator, so the text is split into several adjacent sections
+     */
+    private void writeCData(String text) throws XMLStreamException {
+        String remaining = String.valueOf(text);
+        int end;
+        while ((end = remaining.indexOf(CDATA_END)) >= 0) {
+            xml.writeCData(remaining.substring(0, end + 2));
+            remaining = remaining.substring(end + 2);
+        }
+        xml.writeCData(remaining);
+    }
+}
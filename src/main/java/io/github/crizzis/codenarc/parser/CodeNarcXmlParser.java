@@ -1,150 +1,392 @@
 package io.github.crizzis.codenarc.parser;
 
-import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import org.codenarc.results.DirectoryResults;
+import org.codenarc.results.FileResults;
+import org.codenarc.rule.Violation;
 
 import javax.inject.Named;
 import javax.inject.Singleton;
-import javax.xml.stream.EventFilter;
-import javax.xml.stream.XMLEventReader;
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamException;
-import javax.xml.stream.events.Characters;
-import javax.xml.stream.events.EndElement;
-import javax.xml.stream.events.StartElement;
-import javax.xml.stream.events.XMLEvent;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.NoSuchElementException;
-import java.util.function.Consumer;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
 
-import static java.util.Map.entry;
-import static javax.xml.stream.XMLStreamConstants.*;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static javax.xml.stream.XMLStreamConstants.CDATA;
+import static javax.xml.stream.XMLStreamConstants.CHARACTERS;
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
 
 /**
  *  CodeNarc XML report parser. This class converts XML CodeNarc output files into
- *  instances of {@link org.codenarc.results.Results}
+ *  instances of {@link org.codenarc.results.Results}.
+ *  Reports compressed with gzip are recognized by their content and decompressed while being read
  */
 @Named
 @Singleton
 public class CodeNarcXmlParser {
 
-    private static final XMLInputFactory FACTORY = XMLInputFactory.newInstance();
+    static final XMLInputFactory FACTORY = newInputFactory();
+    public static final String XML_REPORT = "CodeNarc.xml";
+    public static final String COMPRESSED_XML_REPORT = "CodeNarc.xml.gz";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long MIN_PARALLEL_SIZE = 4 * 1024 * 1024;
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final int COUNTS_BUFFER_SIZE = 8 * 1024;
+    private static final String PACKAGE_SUMMARY = "PackageSummary";
+    private static final int GZIP_MAGIC_LENGTH = 2;
 
     public CodeNarcAnalysis parse(File xmlReport) throws XmlParserException {
-        try (InputStream xmlInput = new FileInputStream(xmlReport)) {
-            XMLEventReader xmlEventReader = FACTORY.createFilteredReader(FACTORY.createXMLEventReader(xmlInput),
-                    NodesAttributesAndCharactersOnly.filter());
-            CodeNarcXmlEventProcessor processor = new CodeNarcXmlEventProcessor(xmlEventReader);
-            processor.process();
-            return processor.getAnalysis();
+        try (InputStream xmlInput = openReport(xmlReport, BUFFER_SIZE)) {
+            return process(FACTORY.createXMLStreamReader(xmlInput), new CodeNarcXmlElementConsumer());
         } catch (IOException | XMLStreamException | ClassCastException
                 | IllegalArgumentException | IllegalStateException | NoSuchElementException e) {
             throw new XmlParserException(e);
         }
     }
 
-    @RequiredArgsConstructor
-    @Getter
-    private static class CodeNarcXmlEventProcessor {
-
-        private final XMLEventReader eventReader;
-
-        private final CodeNarcXmlEventConsumer consumer = new CodeNarcXmlEventConsumer();
-
-        private final Map<String, Consumer<EndElement>> END_ELEMENT_CONSUMER_METHODS = Map.ofEntries(
-                entry("CodeNarc", consumer::consumeEndCodeNarc),
-                entry("Report", consumer::consumeEndReport),
-                entry("Project", consumer::consumeEndProject),
-                entry("SourceDirectory", consumer::consumeEndSourceDirectory),
-                entry("PackageSummary", consumer::consumeEndPackageSummary),
-                entry("Package", consumer::consumeEndPackage),
-                entry("File", consumer::consumeEndFile),
-                entry("Violation", consumer::consumeEndViolation),
-                entry("SourceLine", consumer::consumeEndSourceLine),
-                entry("Message", consumer::consumeEndMessage)
-        );
-
-        private final Map<String, Consumer<StartElement>> START_ELEMENT_CONSUMER_METHODS = Map.ofEntries(
-                entry("CodeNarc", consumer::consumeStartCodeNarc),
-                entry("Report", consumer::consumeStartReport),
-                entry("Project", consumer::consumeStartProject),
-                entry("SourceDirectory", consumer::consumeStartSourceDirectory),
-                entry("PackageSummary", consumer::consumeStartPackageSummary),
-                entry("Package", consumer::consumeStartPackage),
-                entry("File", consumer::consumeStartFile),
-                entry("Violation", consumer::consumeStartViolation),
-                entry("SourceLine", consumer::consumeStartSourceLine),
-                entry("Message", consumer::consumeStartMessage)
-        );
-
-        void process() throws XMLStreamException {
-            while (eventReader.hasNext()) {
-                XMLEvent xmlEvent = eventReader.nextEvent();
-                if (xmlEvent.isStartElement()) {
-                    handleStartElement(eventReader, xmlEvent.asStartElement());
-                } else if (xmlEvent.isEndElement()) {
-                    handleEndElement(xmlEvent.asEndElement());
-                } else if (xmlEvent.isCharacters()) {
-                    handleCharacters(xmlEvent.asCharacters());
+    /**
+     * Reads the total number of violations of each priority from the {@code PackageSummary} element
+     * at the beginning of the report, without reading the rest of the report
+     */
+    public ViolationCounts parseViolationCounts(File xmlReport) throws XmlParserException {
+        try (InputStream xmlInput = openReport(xmlReport, COUNTS_BUFFER_SIZE)) {
+            XMLStreamReader reader = FACTORY.createXMLStreamReader(xmlInput);
+            try {
+                while (reader.hasNext()) {
+                    if (reader.next() == START_ELEMENT && PACKAGE_SUMMARY.equals(reader.getLocalName())) {
+                        return new ViolationCounts(
+                                getIntAttributeValue(reader, "priority1"),
+                                getIntAttributeValue(reader, "priority2"),
+                                getIntAttributeValue(reader, "priority3"));
+                    }
                 }
+                throw new IllegalArgumentException("Missing tag " + PACKAGE_SUMMARY);
+            } finally {
+                reader.close();
             }
+        } catch (IOException | XMLStreamException | IllegalArgumentException e) {
+            throw new XmlParserException(e);
         }
+    }
 
-        private void handleCharacters(Characters characters) {
-            consumer.consumeCharacters(characters);
+    private static int getIntAttributeValue(XMLStreamReader element, String name) {
+        String value = element.getAttributeValue(null, name);
+        if (value == null) {
+            throw new IllegalArgumentException(String.format("Missing attribute %s of tag %s", name, element.getLocalName()));
         }
+        return Integer.parseInt(value);
+    }
 
-        private void handleEndElement(EndElement endElement) {
-            String name = endElement.getName().getLocalPart();
-            END_ELEMENT_CONSUMER_METHODS.getOrDefault(name, element -> verifyIgnoredTag(name)).accept(endElement);
+    /**
+     * Loads the analysis from the {@link CodeNarcSidecar binary sidecar} of the report if it matches the report,
+     * otherwise parses the report.
+     *
+     * Large reports are parsed with multiple threads: the report is memory-mapped, split into runs of {@code Package} elements
+     * which are parsed concurrently, and the packages are then put together into a single tree in document order.
+     * Small reports (as well as compressed reports and reports in an encoding which is not ASCII-compatible) are parsed with a single thread
+     *
+     * @param threads the number of threads to use, 0 meaning the number of available processors
+     */
+    public CodeNarcAnalysis parse(File xmlReport, int threads) throws XmlParserException {
+        Optional<CodeNarcAnalysis> sidecar = CodeNarcSidecar.read(xmlReport);
+        if (sidecar.isPresent()) {
+            return sidecar.get();
         }
+        int parserThreads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        long size = xmlReport.length();
+        if (parserThreads == 1 || size < MIN_PARALLEL_SIZE || size > Integer.MAX_VALUE || isCompressed(xmlReport)) {
+            return parse(xmlReport);
+        }
+        return parseInChunks(xmlReport, parserThreads);
+    }
 
-        private void handleStartElement(XMLEventReader eventReader, StartElement startElement) throws XMLStreamException {
-            String name = startElement.getName().getLocalPart();
-            if (consumer.getSkippedTags().contains(name)) {
-                skipUntilEnd(eventReader, name);
+    /**
+     * Parses the package and file skeleton of the report only. The files of the resulting analysis know their number
+     * of violations of each priority and the rule of each violation, but only read their violations from the report
+     * when these are requested, and keep them only as long as memory allows.
+     *
+     * Reports larger than 2 GB, compressed reports and reports in an encoding which is not ASCII-compatible are parsed in full
+     */
+    public CodeNarcAnalysis parseLazily(File xmlReport) throws XmlParserException {
+        if (xmlReport.length() > Integer.MAX_VALUE || isCompressed(xmlReport)) {
+            return parse(xmlReport);
+        }
+        try (FileChannel channel = FileChannel.open(xmlReport.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer report = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            String encoding = readEncoding(report);
+            ReportIndex index = ReportIndex.scan(report, Charset.forName(encoding), fileElement -> parseViolations(fileElement, encoding));
+            if (index == null) {
+                return parse(xmlReport);
             }
-            START_ELEMENT_CONSUMER_METHODS.getOrDefault(name, element -> verifyIgnoredTag(name)).accept(startElement);
+            CodeNarcAnalysis analysis = process(FACTORY.createXMLStreamReader(index.getSkeleton(), encoding), new CodeNarcXmlElementConsumer());
+            PackageTree packageTree = new PackageTree((DirectoryResults) analysis.getResults());
+            index.getPackages().forEach(packageTree::add);
+            return analysis;
+        } catch (IOException | XMLStreamException | ClassCastException
+                | IllegalArgumentException | IllegalStateException | NoSuchElementException e) {
+            throw new XmlParserException(e);
+        }
+    }
+
+    private String readEncoding(ByteBuffer report) throws XMLStreamException {
+        XMLStreamReader reader = FACTORY.createXMLStreamReader(ReportChunks.inputStream(report, 0, report.limit()));
+        try {
+            return Optional.ofNullable(reader.getEncoding()).orElse(UTF_8.name());
+        } finally {
+            reader.close();
         }
+    }
 
-        private void skipUntilEnd(XMLEventReader eventReader, String name) throws XMLStreamException {
-            XMLEvent xmlEvent;
-            do {
-                xmlEvent = eventReader.nextEvent();
-            } while (!xmlEvent.isEndElement() || !xmlEvent.asEndElement().getName().getLocalPart().equals(name));
+    @SuppressWarnings("unchecked")
+    private List<Violation> parseViolations(InputStream fileElement, String encoding) throws XMLStreamException {
+        List<DirectoryResults> packages = new ArrayList<>(1);
+        XMLStreamReader reader = FACTORY.createXMLStreamReader(fileElement, encoding);
+        try {
+            new CodeNarcXmlCursorProcessor(reader, new CodeNarcXmlElementConsumer(packages::add)).process();
+        } finally {
+            reader.close();
         }
+        return ((FileResults) packages.get(0).getChildren().get(0)).getViolations();
+    }
 
-        private void verifyIgnoredTag(String name) {
-            if (!consumer.getIgnoredTags().contains(name)) {
-                throw new IllegalArgumentException("Unrecognized tag " + name);
+    CodeNarcAnalysis parseInChunks(File xmlReport, int threads) throws XmlParserException {
+        ReportChunks chunks;
+        try (FileChannel channel = FileChannel.open(xmlReport.toPath(), StandardOpenOption.READ)) {
+            chunks = ReportChunks.scan(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException e) {
+            throw new XmlParserException(e);
+        }
+        if (chunks == null) {
+            return parse(xmlReport);
+        }
+        try {
+            return parse(chunks, threads);
+        } catch (XMLStreamException | ClassCastException
+                | IllegalArgumentException | IllegalStateException | NoSuchElementException e) {
+            throw new XmlParserException(e);
+        } catch (ExecutionException e) {
+            throw new XmlParserException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new XmlParserException(e);
+        }
+    }
+
+    private CodeNarcAnalysis parse(ReportChunks chunks, int threads) throws XMLStreamException, ExecutionException, InterruptedException {
+        XMLStreamReader skeletonReader = FACTORY.createXMLStreamReader(chunks.getSkeleton());
+        String encoding = Optional.ofNullable(skeletonReader.getEncoding()).orElse(UTF_8.name());
+        CodeNarcAnalysis analysis = process(skeletonReader, new CodeNarcXmlElementConsumer());
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<List<DirectoryResults>>> parsedChunks = new ArrayList<>();
+            for (InputStream chunk : chunks.getPackageChunks(threads * CHUNKS_PER_THREAD)) {
+                parsedChunks.add(executor.submit(() -> parseChunk(chunk, encoding)));
+            }
+            PackageTree packageTree = new PackageTree((DirectoryResults) analysis.getResults());
+            for (Future<List<DirectoryResults>> parsedChunk : parsedChunks) {
+                parsedChunk.get().forEach(packageTree::add);
             }
+            return analysis;
+        } finally {
+            executor.shutdownNow();
         }
+    }
 
-        public CodeNarcAnalysis getAnalysis() {
-            return consumer.getAnalysis();
+    private List<DirectoryResults> parseChunk(InputStream chunk, String encoding) throws XMLStreamException {
+        List<DirectoryResults> packages = new ArrayList<>();
+        XMLStreamReader reader = FACTORY.createXMLStreamReader(chunk, encoding);
+        try {
+            reader.nextTag(); // the artificial root element
+            new CodeNarcXmlCursorProcessor(reader, new CodeNarcXmlElementConsumer(packages::add)).process();
+            return packages;
+        } finally {
+            reader.close();
+        }
+    }
+
+    private CodeNarcAnalysis process(XMLStreamReader reader, CodeNarcXmlElementConsumer consumer) throws XMLStreamException {
+        try {
+            CodeNarcXmlCursorProcessor processor = new CodeNarcXmlCursorProcessor(reader, consumer);
+            processor.process();
+            return processor.getAnalysis();
+        } finally {
+            reader.close();
         }
     }
 
-    private static class NodesAttributesAndCharactersOnly implements EventFilter {
+    /**
+     * @return the report {@value #XML_REPORT} in {@code xmlOutputDirectory}, or its compressed variant
+     * {@value #COMPRESSED_XML_REPORT} if that one is more recent
+     */
+    public static File findXmlReport(File xmlOutputDirectory) {
+        File xmlReport = new File(xmlOutputDirectory, XML_REPORT);
+        File compressedXmlReport = new File(xmlOutputDirectory, COMPRESSED_XML_REPORT);
+        return compressedXmlReport.lastModified() > xmlReport.lastModified() ? compressedXmlReport : xmlReport;
+    }
+
+    static InputStream openReport(File xmlReport, int bufferSize) throws IOException {
+        InputStream input = new BufferedInputStream(Files.newInputStream(xmlReport.toPath()), bufferSize);
+        input.mark(GZIP_MAGIC_LENGTH);
+        boolean compressed = isGzipMagic(input);
+        input.reset();
+        return compressed ? new GZIPInputStream(input, bufferSize) : input;
+    }
+
+    private static boolean isCompressed(File xmlReport) throws XmlParserException {
+        try (InputStream input = Files.newInputStream(xmlReport.toPath())) {
+            return isGzipMagic(input);
+        } catch (IOException e) {
+            throw new XmlParserException(e);
+        }
+    }
+
+    private static boolean isGzipMagic(InputStream input) throws IOException {
+        int magic = input.read() | (input.read() << 8);
+        return magic == GZIPInputStream.GZIP_MAGIC;
+    }
+
+    private static XMLInputFactory newInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    /**
+     * Walks the report with the {@link XMLStreamReader} cursor, so that no event objects are created,
+     * and dispatches on the element name
+     */
+    @RequiredArgsConstructor
+    static class CodeNarcXmlCursorProcessor {
+
+        private final XMLStreamReader reader;
+        private final CodeNarcXmlElementConsumer consumer;
 
-        private static final List<Integer> IGNORED_EVENTS = List.of(START_DOCUMENT, END_DOCUMENT, ENTITY_DECLARATION,
-                ENTITY_REFERENCE, COMMENT, PROCESSING_INSTRUCTION, NAMESPACE, SPACE, NOTATION_DECLARATION);
+        void process() throws XMLStreamException {
+            while (reader.hasNext()) {
+                processEvent(reader.next());
+            }
+        }
 
-        public static EventFilter filter() {
-            return new NodesAttributesAndCharactersOnly();
+        /**
+         * @param event the event the cursor has just been advanced to
+         */
+        void processEvent(int event) throws XMLStreamException {
+            switch (event) {
+                case START_ELEMENT:
+                    handleStartElement(reader.getLocalName());
+                    break;
+                case END_ELEMENT:
+                    handleEndElement(reader.getLocalName());
+                    break;
+                case CHARACTERS:
+                case CDATA:
+                    verifyWhitespace();
+                    break;
+                default:
+                    break;
+            }
         }
 
-        @Override
-        public boolean accept(XMLEvent event) {
-            if (event.isCharacters()) {
-                return !event.asCharacters().isWhiteSpace();
+        private void handleStartElement(String name) throws XMLStreamException {
+            switch (name) {
+                case "CodeNarc":
+                    consumer.consumeStartCodeNarc(reader);
+                    break;
+                case "Report":
+                    consumer.consumeStartReport(reader);
+                    break;
+                case "Project":
+                    consumer.consumeStartProject(reader);
+                    break;
+                case "SourceDirectory":
+                    consumer.consumeSourceDirectory(reader);
+                    break;
+                case "PackageSummary":
+                    consumer.consumeStartPackageSummary(reader);
+                    break;
+                case "Package":
+                    consumer.consumeStartPackage(reader);
+                    break;
+                case "File":
+                    consumer.consumeStartFile(reader);
+                    break;
+                case "Violation":
+                    consumer.consumeStartViolation(reader);
+                    break;
+                case "SourceLine":
+                    consumer.consumeSourceLine(reader);
+                    break;
+                case "Message":
+                    consumer.consumeMessage(reader);
+                    break;
+                case "Rules":
+                    skipUntilEnd();
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unrecognized tag " + name);
             }
-            return !IGNORED_EVENTS.contains(event.getEventType());
+        }
+
+        private void handleEndElement(String name) {
+            switch (name) {
+                case "CodeNarc":
+                    consumer.consumeEndCodeNarc();
+                    break;
+                case "Package":
+                    consumer.consumeEndPackage();
+                    break;
+                case "File":
+                    consumer.consumeEndFile();
+                    break;
+                case "Violation":
+                    consumer.consumeEndViolation();
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void skipUntilEnd() throws XMLStreamException {
+            int depth = 1;
+            while (depth > 0) {
+                int event = reader.next();
+                if (event == START_ELEMENT) {
+                    depth++;
+                } else if (event == END_ELEMENT) {
+                    depth--;
+                }
+            }
+        }
+
+        private void verifyWhitespace() {
+            if (!reader.isWhiteSpace()) {
+                throw new IllegalArgumentException("Unexpected text: " + reader.getText());
+            }
+        }
+
+        CodeNarcAnalysis getAnalysis() {
+            return consumer.getAnalysis();
         }
     }
 
@@ -0,0 +1,87 @@
+package io.github.crizzis.codenarc.parser;
+
+import org.codenarc.results.FileResults;
+import org.codenarc.rule.Violation;
+
+import java.lang.ref.SoftReference;
+import java.util.List;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * The results of a single file of a CodeNarc XML report, holding only the rule and priority of each violation.
+ * The violations themselves are read from the report when first requested, and kept only as long as memory allows,
+ * so that asking for them again does not normally read the report again
+ */
+class LazyFileResults extends FileResults {
+
+    private final ReportIndex index;
+    private final int start;
+    private final int end;
+    private final int[] violationCounts;
+    private final int[] violationRules;
+    private volatile SoftReference<List<Violation>> violations = new SoftReference<>(null);
+
+    /**
+     * @param start the offset of the {@code File} element in the report
+     * @param end the offset just past the end of the {@code File} element
+     * @param violationCounts the number of violations of priority 1, 2 and 3
+     * @param violationRules the rule id (see {@link ReportIndex#getRuleName(int)}) and priority of every violation, in turn
+     */
+    LazyFileResults(String path, ReportIndex index, int start, int end, int[] violationCounts, int[] violationRules) {
+        super(path, List.of());
+        this.index = index;
+        this.start = start;
+        this.end = end;
+        this.violationCounts = violationCounts;
+        this.violationRules = violationRules;
+    }
+
+    /**
+     * Passes the rule name and priority of every violation to {@code action}, without reading the report
+     */
+    void forEachViolationRule(ObjIntConsumer<String> action) {
+        for (int i = 0; i < violationRules.length; i += 2) {
+            action.accept(index.getRuleName(violationRules[i]), violationRules[i + 1]);
+        }
+    }
+
+    @Override
+    public List<Violation> getViolations() {
+        List<Violation> loaded = violations.get();
+        if (loaded == null) {
+            loaded = index.loadViolations(start, end);
+            violations = new SoftReference<>(loaded);
+        }
+        return loaded;
+    }
+
+    @Override
+    public int getNumberOfViolationsWithPriority(int priority, boolean recursive) {
+        return priority >= 1 && priority <= violationCounts.length ? violationCounts[priority - 1] : 0;
+    }
+
+    @Override
+    public int getNumberOfViolationsWithPriority(int priority) {
+        return getNumberOfViolationsWithPriority(priority, true);
+    }
+
+    @Override
+    public int getNumberOfFilesWithViolations(int maxPriority, boolean recursive) {
+        for (int priority = 1; priority <= Math.min(maxPriority, violationCounts.length); priority++) {
+            if (violationCounts[priority - 1] > 0) {
+                return 1;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public int getNumberOfFilesWithViolations(int maxPriority) {
+        return getNumberOfFilesWithViolations(maxPriority, true);
+    }
+
+    @Override
+    public String toString() {
+        return "LazyFileResults(" + getPath() + ")";
+    }
+}
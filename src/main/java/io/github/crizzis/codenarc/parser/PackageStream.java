@@ -0,0 +1,191 @@
+package io.github.crizzis.codenarc.parser;
+
+import lombok.Value;
+import org.codenarc.results.DirectoryResults;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+
+/**
+ * Reads the {@code Package} elements of a CodeNarc XML report one at a time, so that a report can be processed
+ * package by package instead of being loaded into memory as a whole.
+ *
+ * The report header and the package summary are read when the stream is opened. The rule descriptions are collected
+ * once the stream has been read past the last package
+ */
+class PackageStream implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String PACKAGE_SUMMARY = "PackageSummary";
+    private static final String PACKAGE = "Package";
+    private static final String RULES = "Rules";
+    private static final String RULE = "Rule";
+    private static final String DESCRIPTION = "Description";
+
+    private final InputStream input;
+    private final XMLStreamReader reader;
+    private final CodeNarcXmlElementConsumer consumer;
+    private final CodeNarcXmlParser.CodeNarcXmlCursorProcessor processor;
+    private final Map<String, String> ruleDescriptions = new LinkedHashMap<>();
+    private PackageTotals summaryTotals;
+    private PackageTotals currentTotals;
+    private ReportPackage next;
+    private int sourceRoot = -1;
+
+    private PackageStream(InputStream input, XMLStreamReader reader) {
+        this.input = input;
+        this.reader = reader;
+        this.consumer = new CodeNarcXmlElementConsumer(this::packageRead);
+        this.processor = new CodeNarcXmlParser.CodeNarcXmlCursorProcessor(reader, consumer);
+    }
+
+    static PackageStream open(File xmlReport) throws IOException, XMLStreamException {
+        InputStream input = CodeNarcXmlParser.openReport(xmlReport, BUFFER_SIZE);
+        PackageStream stream;
+        try {
+            stream = new PackageStream(input, CodeNarcXmlParser.FACTORY.createXMLStreamReader(input));
+        } catch (XMLStreamException e) {
+            input.close();
+            throw e;
+        }
+        try {
+            stream.readHeader();
+            return stream;
+        } catch (XMLStreamException | RuntimeException e) {
+            stream.close();
+            throw e;
+        }
+    }
+
+    private void readHeader() throws XMLStreamException {
+        while (summaryTotals == null && reader.hasNext()) {
+            processEvent(reader.next());
+        }
+        if (summaryTotals == null) {
+            throw new IllegalArgumentException("Missing tag " + PACKAGE_SUMMARY);
+        }
+    }
+
+    /**
+     * @return the version, title, timestamp and source directories of the report
+     */
+    CodeNarcAnalysis getHeader() {
+        return consumer.peekAnalysis();
+    }
+
+    PackageTotals getSummaryTotals() {
+        return summaryTotals;
+    }
+
+    /**
+     * @return the next package of the report, without its subpackages, or {@code null} if there are no more packages
+     */
+    ReportPackage next() throws XMLStreamException {
+        next = null;
+        while (next == null && reader.hasNext()) {
+            processEvent(reader.next());
+        }
+        return next;
+    }
+
+    /**
+     * @return the index of the source root the package last returned by {@link #next()} belongs to
+     */
+    int getSourceRoot() {
+        return sourceRoot;
+    }
+
+    /**
+     * Reads the rest of the report, skipping any remaining packages
+     *
+     * @return the descriptions of the rules listed in the report, by rule name
+     */
+    Map<String, String> readRuleDescriptions() throws XMLStreamException {
+        while (reader.hasNext()) {
+            processEvent(reader.next());
+        }
+        return ruleDescriptions;
+    }
+
+    private void processEvent(int event) throws XMLStreamException {
+        if (event == START_ELEMENT) {
+            String name = reader.getLocalName();
+            if (RULES.equals(name)) {
+                readRules();
+                return;
+            }
+            if (PACKAGE.equals(name) || PACKAGE_SUMMARY.equals(name)) {
+                currentTotals = readTotals();
+            }
+            if (PACKAGE_SUMMARY.equals(name)) {
+                summaryTotals = currentTotals;
+            }
+        }
+        processor.processEvent(event);
+    }
+
+    private void packageRead(DirectoryResults packageResults) {
+        if (packageResults.getPath().isEmpty()) {
+            sourceRoot++;
+        }
+        next = new ReportPackage(packageResults, currentTotals);
+    }
+
+    private PackageTotals readTotals() {
+        return new PackageTotals(getIntAttributeValue("totalFiles"), getIntAttributeValue("filesWithViolations"),
+                new ViolationCounts(getIntAttributeValue("priority1"), getIntAttributeValue("priority2"), getIntAttributeValue("priority3")));
+    }
+
+    private void readRules() throws XMLStreamException {
+        String ruleName = null;
+        int event;
+        while ((event = reader.next()) != END_ELEMENT || !RULES.equals(reader.getLocalName())) {
+            if (event != START_ELEMENT) {
+                continue;
+            }
+            if (RULE.equals(reader.getLocalName())) {
+                ruleName = reader.getAttributeValue(null, "name");
+            } else if (DESCRIPTION.equals(reader.getLocalName()) && ruleName != null) {
+                ruleDescriptions.putIfAbsent(ruleName, consumer.getElementText(reader));
+            }
+        }
+    }
+
+    private int getIntAttributeValue(String name) {
+        String value = reader.getAttributeValue(null, name);
+        if (value == null) {
+            throw new IllegalArgumentException(String.format("Missing attribute %s of tag %s", name, reader.getLocalName()));
+        }
+        return Integer.parseInt(value);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            reader.close();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        } finally {
+            input.close();
+        }
+    }
+
+    /**
+     * A package, holding its files but not its subpackages, along with the totals reported for it
+     */
+    @Value
+    static class ReportPackage {
+
+        DirectoryResults results;
+        PackageTotals totals;
+    }
+}
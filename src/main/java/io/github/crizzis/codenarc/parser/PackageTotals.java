@@ -0,0 +1,24 @@
+package io.github.crizzis.codenarc.parser;
+
+import lombok.Value;
+
+/**
+ * The totals reported for a package (including its subpackages) or for the whole report
+ */
+@Value
+public class PackageTotals {
+
+    public static final PackageTotals EMPTY = new PackageTotals(0, 0, new ViolationCounts(0, 0, 0));
+
+    int totalFiles;
+    int filesWithViolations;
+    ViolationCounts violationCounts;
+
+    public PackageTotals plus(PackageTotals other) {
+        return new PackageTotals(totalFiles + other.totalFiles, filesWithViolations + other.filesWithViolations,
+                new ViolationCounts(
+                        violationCounts.getPriority1() + other.violationCounts.getPriority1(),
+                        violationCounts.getPriority2() + other.violationCounts.getPriority2(),
+                        violationCounts.getPriority3() + other.violationCounts.getPriority3()));
+    }
+}
@@ -0,0 +1,49 @@
+package io.github.crizzis.codenarc.parser;
+
+import lombok.RequiredArgsConstructor;
+import org.codenarc.results.DirectoryResults;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Rebuilds the package hierarchy from the flat list of {@code Package} elements of a CodeNarc XML report.
+ *
+ * Packages are listed in pre-order, each source directory starting with a package with an empty path,
+ * so the parent of a package is the closest ancestor path already seen within the current source directory
+ */
+@RequiredArgsConstructor
+class PackageTree {
+
+    private static final String PATH_SEPARATOR = "/";
+
+    private final DirectoryResults packageSummary;
+    private final Map<String, DirectoryResults> packagesByPath = new HashMap<>();
+
+    /**
+     * @param child a package, to be added in document order
+     */
+    void add(DirectoryResults child) {
+        String path = child.getPath();
+        if (path.isEmpty()) {
+            packagesByPath.clear();
+            packageSummary.addChild(child);
+        } else {
+            findParent(path).addChild(child);
+        }
+        packagesByPath.put(path, child);
+    }
+
+    private DirectoryResults findParent(String path) {
+        String ancestorPath = path;
+        while (!ancestorPath.isEmpty()) {
+            int separator = ancestorPath.lastIndexOf(PATH_SEPARATOR);
+            ancestorPath = separator < 0 ? "" : ancestorPath.substring(0, separator);
+            DirectoryResults ancestor = packagesByPath.get(ancestorPath);
+            if (ancestor != null) {
+                return ancestor;
+            }
+        }
+        return packageSummary;
+    }
+}
@@ -0,0 +1,170 @@
+package io.github.crizzis.codenarc.parser;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Splits the bytes of a CodeNarc XML report into the document without its {@code Package} elements,
+ * and runs of consecutive {@code Package} elements which can be parsed independently of each other.
+ *
+ * The report is scanned for tags only, skipping over CDATA sections and comments, which are the only places
+ * where markup-like text may legitimately appear. This requires an ASCII-compatible document encoding
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+class ReportChunks {
+
+    static final byte[] PACKAGE = "<Package".getBytes(US_ASCII);
+    static final byte[] RULES = "<Rules".getBytes(US_ASCII);
+    static final byte[] CODENARC_END = "</CodeNarc".getBytes(US_ASCII);
+    static final byte[] CDATA_START = "<![CDATA[".getBytes(US_ASCII);
+    static final byte[] CDATA_END = "]]>".getBytes(US_ASCII);
+    static final byte[] COMMENT_START = "<!--".getBytes(US_ASCII);
+    static final byte[] COMMENT_END = "-->".getBytes(US_ASCII);
+    private static final byte[] CHUNK_START = "<Packages>".getBytes(US_ASCII);
+    private static final byte[] CHUNK_END = "</Packages>".getBytes(US_ASCII);
+
+    private final ByteBuffer report;
+    private final List<Integer> packageStarts;
+    private final int packagesEnd;
+
+    /**
+     * @return the chunks of the report, or {@code null} if the report contains no {@code Package} elements
+     */
+    static ReportChunks scan(ByteBuffer report) {
+        List<Integer> packageStarts = new ArrayList<>();
+        int limit = report.limit();
+        for (int i = 0; i < limit; i++) {
+            if (report.get(i) != '<') {
+                continue;
+            }
+            if (startsWith(report, i, CDATA_START)) {
+                i = skipPast(report, i + CDATA_START.length, CDATA_END);
+            } else if (startsWith(report, i, COMMENT_START)) {
+                i = skipPast(report, i + COMMENT_START.length, COMMENT_END);
+            } else if (isTag(report, i, PACKAGE)) {
+                packageStarts.add(i);
+            } else if (!packageStarts.isEmpty() && (isTag(report, i, RULES) || isTag(report, i, CODENARC_END))) {
+                return new ReportChunks(report, packageStarts, i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the report without its {@code Package} elements
+     */
+    InputStream getSkeleton() {
+        return skeleton(report, packageStarts.get(0), packagesEnd);
+    }
+
+    /**
+     * @return the report without the bytes between the start of the first {@code Package} element and the end of the last one
+     */
+    static InputStream skeleton(ByteBuffer report, int packagesStart, int packagesEnd) {
+        return new SequenceInputStream(
+                inputStream(report, 0, packagesStart),
+                inputStream(report, packagesEnd, report.limit()));
+    }
+
+    /**
+     * @param count the desired number of chunks
+     * @return runs of consecutive {@code Package} elements of similar size, in document order,
+     * each wrapped in an artificial root element
+     */
+    List<InputStream> getPackageChunks(int count) {
+        int firstPackage = packageStarts.get(0);
+        long targetSize = Math.max(1, ((long) packagesEnd - firstPackage) / count);
+        List<InputStream> chunks = new ArrayList<>(count);
+        int chunkStart = firstPackage;
+        for (int packageStart : packageStarts) {
+            if (packageStart - chunkStart >= targetSize) {
+                chunks.add(chunk(chunkStart, packageStart));
+                chunkStart = packageStart;
+            }
+        }
+        chunks.add(chunk(chunkStart, packagesEnd));
+        return chunks;
+    }
+
+    private InputStream chunk(int start, int end) {
+        return new SequenceInputStream(new SequenceInputStream(
+                new ByteArrayInputStream(CHUNK_START),
+                inputStream(report, start, end)),
+                new ByteArrayInputStream(CHUNK_END));
+    }
+
+    static InputStream inputStream(ByteBuffer report, int start, int end) {
+        return new ByteBufferInputStream(report.duplicate().position(start).limit(end).slice());
+    }
+
+    static boolean isTag(ByteBuffer report, int position, byte[] name) {
+        if (!startsWith(report, position, name) || position + name.length >= report.limit()) {
+            return false;
+        }
+        byte next = report.get(position + name.length);
+        return next == '>' || next == '/' || next == ' ' || next == '\t' || next == '\r' || next == '\n';
+    }
+
+    static boolean startsWith(ByteBuffer report, int position, byte[] prefix) {
+        if (position + prefix.length > report.limit()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (report.get(position + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the position of the last byte of the terminator, or the end of the report if there is none
+     */
+    static int skipPast(ByteBuffer report, int position, byte[] terminator) {
+        int limit = report.limit() - terminator.length;
+        for (int i = position; i <= limit; i++) {
+            if (report.get(i) == terminator[0] && startsWith(report, i, terminator)) {
+                return i + terminator.length - 1;
+            }
+        }
+        return report.limit();
+    }
+
+    @RequiredArgsConstructor
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
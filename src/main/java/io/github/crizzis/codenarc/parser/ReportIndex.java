@@ -0,0 +1,305 @@
+package io.github.crizzis.codenarc.parser;
+
+import org.codenarc.results.DirectoryResults;
+import org.codenarc.rule.Violation;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.github.crizzis.codenarc.parser.ReportChunks.CDATA_END;
+import static io.github.crizzis.codenarc.parser.ReportChunks.CDATA_START;
+import static io.github.crizzis.codenarc.parser.ReportChunks.CODENARC_END;
+import static io.github.crizzis.codenarc.parser.ReportChunks.COMMENT_END;
+import static io.github.crizzis.codenarc.parser.ReportChunks.COMMENT_START;
+import static io.github.crizzis.codenarc.parser.ReportChunks.PACKAGE;
+import static io.github.crizzis.codenarc.parser.ReportChunks.RULES;
+import static io.github.crizzis.codenarc.parser.ReportChunks.inputStream;
+import static io.github.crizzis.codenarc.parser.ReportChunks.isTag;
+import static io.github.crizzis.codenarc.parser.ReportChunks.skipPast;
+import static io.github.crizzis.codenarc.parser.ReportChunks.startsWith;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * The package and file skeleton of a CodeNarc XML report, built by a single scan of the report bytes.
+ *
+ * Only the attributes of the {@code Package}, {@code File} and {@code Violation} tags are read, everything else
+ * (in particular the source lines and messages of the violations) is skipped over. Every file is represented
+ * by a {@link LazyFileResults} recording the byte range of its {@code File} element and the rule and priority of each
+ * of its violations, so that the totals per rule can be computed without parsing the violations,
+ * while the violations themselves are parsed on demand.
+ * Like {@link ReportChunks}, this requires an ASCII-compatible document encoding
+ */
+class ReportIndex {
+
+    private static final byte[] PACKAGE_END = "</Package".getBytes(US_ASCII);
+    private static final byte[] FILE = "<File".getBytes(US_ASCII);
+    private static final byte[] FILE_END = "</File".getBytes(US_ASCII);
+    private static final byte[] VIOLATION = "<Violation".getBytes(US_ASCII);
+    private static final byte[] PATH = "path".getBytes(US_ASCII);
+    private static final byte[] TOTAL_FILES = "totalFiles".getBytes(US_ASCII);
+    private static final byte[] NAME = "name".getBytes(US_ASCII);
+    private static final byte[] RULE_NAME = "ruleName".getBytes(US_ASCII);
+    private static final byte[] PRIORITY = "priority".getBytes(US_ASCII);
+    private static final byte[] WRAPPER_START = "<Package path=\"\" totalFiles=\"1\">".getBytes(US_ASCII);
+    private static final byte[] WRAPPER_END = "</Package>".getBytes(US_ASCII);
+    private static final int PRIORITIES = 3;
+    private static final int INITIAL_VIOLATIONS = 16;
+
+    private final ByteBuffer report;
+    private final Charset charset;
+    private final ViolationParser violationParser;
+    private final List<DirectoryResults> packages = new ArrayList<>();
+    private final Map<String, Integer> ruleIds = new HashMap<>();
+    private final List<String> ruleNames = new ArrayList<>();
+    private int packagesStart = -1;
+    private int packagesEnd = -1;
+
+    private ReportIndex(ByteBuffer report, Charset charset, ViolationParser violationParser) {
+        this.report = report;
+        this.charset = charset;
+        this.violationParser = violationParser;
+    }
+
+    /**
+     * @param charset the document encoding, used for decoding attribute values
+     * @param violationParser parses the violations of a single file, given a {@code Package} element containing only that file
+     * @return the index of the report, or {@code null} if the report contains no {@code Package} elements
+     */
+    static ReportIndex scan(ByteBuffer report, Charset charset, ViolationParser violationParser) {
+        ReportIndex index = new ReportIndex(report, charset, violationParser);
+        return index.scan() ? index : null;
+    }
+
+    private boolean scan() {
+        DirectoryResults currentPackage = null;
+        String fileName = null;
+        int fileStart = -1;
+        int[] violationCounts = null;
+        int[] violationRules = null;
+        int violations = 0;
+        int limit = report.limit();
+        for (int i = 0; i < limit; i++) {
+            if (report.get(i) != '<') {
+                continue;
+            }
+            if (startsWith(report, i, CDATA_START)) {
+                i = skipPast(report, i + CDATA_START.length, CDATA_END);
+            } else if (startsWith(report, i, COMMENT_START)) {
+                i = skipPast(report, i + COMMENT_START.length, COMMENT_END);
+            } else if (isTag(report, i, VIOLATION) && violationCounts != null) {
+                int tagEnd = tagEnd(i);
+                int priority = Integer.parseInt(attribute(i, tagEnd, PRIORITY));
+                if (priority >= 1 && priority <= PRIORITIES) {
+                    violationCounts[priority - 1]++;
+                }
+                if (2 * violations + 2 > violationRules.length) {
+                    violationRules = Arrays.copyOf(violationRules, violationRules.length * 2);
+                }
+                violationRules[2 * violations] = getRuleId(attribute(i, tagEnd, RULE_NAME));
+                violationRules[2 * violations + 1] = priority;
+                violations++;
+                i = tagEnd;
+            } else if (isTag(report, i, FILE) && currentPackage != null) {
+                int tagEnd = tagEnd(i);
+                fileStart = i;
+                fileName = attribute(i, tagEnd, NAME);
+                violationCounts = new int[PRIORITIES];
+                violationRules = new int[INITIAL_VIOLATIONS];
+                violations = 0;
+                if (isEmptyElement(tagEnd)) {
+                    currentPackage.addChild(new LazyFileResults(fileName, this, fileStart, tagEnd + 1, violationCounts, new int[0]));
+                    violationCounts = null;
+                }
+                i = tagEnd;
+            } else if (isTag(report, i, FILE_END) && violationCounts != null) {
+                int tagEnd = tagEnd(i);
+                currentPackage.addChild(new LazyFileResults(fileName, this, fileStart, tagEnd + 1, violationCounts,
+                        Arrays.copyOf(violationRules, 2 * violations)));
+                violationCounts = null;
+                i = tagEnd;
+            } else if (isTag(report, i, PACKAGE)) {
+                int tagEnd = tagEnd(i);
+                if (packagesStart < 0) {
+                    packagesStart = i;
+                }
+                currentPackage = new DirectoryResults(attribute(i, tagEnd, PATH), Integer.parseInt(attribute(i, tagEnd, TOTAL_FILES)));
+                packages.add(currentPackage);
+                i = tagEnd;
+            } else if (isTag(report, i, PACKAGE_END)) {
+                currentPackage = null;
+            } else if (packagesStart >= 0 && (isTag(report, i, RULES) || isTag(report, i, CODENARC_END))) {
+                packagesEnd = i;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the unescaped value of the attribute {@code name} of the tag
+     */
+    private String attribute(int tagStart, int tagEnd, byte[] name) {
+        int i = tagStart + 1;
+        while (i < tagEnd && !isWhitespace(report.get(i))) {
+            i++;
+        }
+        while (i < tagEnd) {
+            while (i < tagEnd && isWhitespace(report.get(i))) {
+                i++;
+            }
+            int nameStart = i;
+            while (i < tagEnd && report.get(i) != '=' && report.get(i) != '/' && !isWhitespace(report.get(i))) {
+                i++;
+            }
+            int nameEnd = i;
+            while (i < tagEnd && report.get(i) != '"' && report.get(i) != '\'') {
+                i++;
+            }
+            if (i >= tagEnd) {
+                break;
+            }
+            byte quote = report.get(i);
+            int valueStart = ++i;
+            while (report.get(i) != quote) {
+                i++;
+            }
+            if (nameEnd - nameStart == name.length && startsWith(report, nameStart, name)) {
+                return unescape(decode(valueStart, i));
+            }
+            i++;
+        }
+        throw new IllegalArgumentException(String.format("Missing attribute %s of tag at offset %d", new String(name, US_ASCII), tagStart));
+    }
+
+    private String decode(int start, int end) {
+        byte[] bytes = new byte[end - start];
+        report.duplicate().position(start).get(bytes);
+        return new String(bytes, charset);
+    }
+
+    /**
+     * Replaces the predefined entities and the character references, the only references an attribute value
+     * of a document without a DTD may contain
+     */
+    private static String unescape(String value) {
+        int ampersand = value.indexOf('&');
+        if (ampersand < 0) {
+            return value;
+        }
+        StringBuilder unescaped = new StringBuilder(value.length()).append(value, 0, ampersand);
+        int i = ampersand;
+        while (i < value.length()) {
+            char next = value.charAt(i);
+            int semicolon = next == '&' ? value.indexOf(';', i) : -1;
+            if (semicolon < 0) {
+                unescaped.append(next);
+                i++;
+                continue;
+            }
+            String entity = value.substring(i + 1, semicolon);
+            switch (entity) {
+                case "amp":
+                    unescaped.append('&');
+                    break;
+                case "lt":
+                    unescaped.append('<');
+                    break;
+                case "gt":
+                    unescaped.append('>');
+                    break;
+                case "quot":
+                    unescaped.append('"');
+                    break;
+                case "apos":
+                    unescaped.append('\'');
+                    break;
+                default:
+                    unescaped.appendCodePoint(entity.startsWith("#x")
+                            ? Integer.parseInt(entity.substring(2), 16)
+                            : Integer.parseInt(entity.substring(1)));
+                    break;
+            }
+            i = semicolon + 1;
+        }
+        return unescaped.toString();
+    }
+
+    private static boolean isWhitespace(byte value) {
+        return value == ' ' || value == '\t' || value == '\r' || value == '\n';
+    }
+
+    private int getRuleId(String ruleName) {
+        return ruleIds.computeIfAbsent(ruleName, name -> {
+            ruleNames.add(name);
+            return ruleNames.size() - 1;
+        });
+    }
+
+    String getRuleName(int ruleId) {
+        return ruleNames.get(ruleId);
+    }
+
+    /**
+     * @return the report without its {@code Package} elements
+     */
+    InputStream getSkeleton() {
+        return ReportChunks.skeleton(report, packagesStart, packagesEnd);
+    }
+
+    /**
+     * @return the packages of the report in document order, each containing its files
+     */
+    List<DirectoryResults> getPackages() {
+        return packages;
+    }
+
+    List<Violation> loadViolations(int start, int end) {
+        InputStream fileElement = new SequenceInputStream(new SequenceInputStream(
+                new ByteArrayInputStream(WRAPPER_START),
+                inputStream(report, start, end)),
+                new ByteArrayInputStream(WRAPPER_END));
+        try {
+            return violationParser.parse(fileElement);
+        } catch (XMLStreamException | RuntimeException e) {
+            throw new IllegalStateException("Could not read the violations at offset " + start + " of the CodeNarc report", e);
+        }
+    }
+
+    /**
+     * @return the position of the closing {@code >} of the tag, skipping over quoted attribute values
+     */
+    private int tagEnd(int tagStart) {
+        byte quote = 0;
+        for (int i = tagStart + 1; i < report.limit(); i++) {
+            byte next = report.get(i);
+            if (quote != 0) {
+                if (next == quote) {
+                    quote = 0;
+                }
+            } else if (next == '"' || next == '\'') {
+                quote = next;
+            } else if (next == '>') {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unterminated tag at offset " + tagStart);
+    }
+
+    private boolean isEmptyElement(int tagEnd) {
+        return report.get(tagEnd - 1) == '/';
+    }
+
+    interface ViolationParser {
+
+        List<Violation> parse(InputStream fileElement) throws XMLStreamException;
+    }
+}
@@ -0,0 +1,165 @@
+package io.github.crizzis.codenarc.parser;
+
+import org.codenarc.results.Results;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The file and violation totals of every directory of a {@link Results} tree, computed in a single post-order pass
+ * and stored in primitive arrays, so that the totals of any directory can be read in constant time.
+ *
+ * The totals are the same as the ones returned by the corresponding {@link Results} methods
+ * (with {@code maxPriority = 3} for the files with violations), which walk the subtree on every call.
+ * The tree must not be modified after the statistics have been computed
+ */
+public final class ResultsStatistics {
+
+    private static final int MAX_PRIORITY = 3;
+
+    private final Map<Results, Integer> indexes;
+    private final int[] ownFiles;
+    private final int[] totalFiles;
+    private final int[] ownFilesWithViolations;
+    private final int[] filesWithViolations;
+    private final int[] ownViolations;
+    private final int[] violations;
+
+    private ResultsStatistics(List<Results> directories) {
+        int size = directories.size();
+        this.indexes = new IdentityHashMap<>(size);
+        this.ownFiles = new int[size];
+        this.totalFiles = new int[size];
+        this.ownFilesWithViolations = new int[size];
+        this.filesWithViolations = new int[size];
+        this.ownViolations = new int[size * MAX_PRIORITY];
+        this.violations = new int[size * MAX_PRIORITY];
+        for (int i = 0; i < size; i++) {
+            indexes.put(directories.get(i), i);
+        }
+    }
+
+    public static ResultsStatistics of(Results root) {
+        List<Results> directories = preOrderDirectories(root);
+        ResultsStatistics statistics = new ResultsStatistics(directories);
+        // in reverse pre-order, every directory comes after all of its subdirectories
+        for (int i = directories.size() - 1; i >= 0; i--) {
+            statistics.collect(directories.get(i), i);
+        }
+        return statistics;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Results> preOrderDirectories(Results root) {
+        List<Results> directories = new ArrayList<>();
+        Deque<Results> toVisit = new ArrayDeque<>();
+        toVisit.push(root);
+        while (!toVisit.isEmpty()) {
+            Results directory = toVisit.pop();
+            directories.add(directory);
+            for (Results child : (List<Results>) directory.getChildren()) {
+                if (!child.isFile()) {
+                    toVisit.push(child);
+                }
+            }
+        }
+        return directories;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void collect(Results directory, int index) {
+        ownFiles[index] = directory.getTotalNumberOfFiles(false);
+        totalFiles[index] = ownFiles[index];
+        int offset = index * MAX_PRIORITY;
+        for (Results child : (List<Results>) directory.getChildren()) {
+            if (child.isFile()) {
+                ownFilesWithViolations[index] += child.getNumberOfFilesWithViolations(MAX_PRIORITY, false);
+                for (int priority = 1; priority <= MAX_PRIORITY; priority++) {
+                    ownViolations[offset + priority - 1] += child.getNumberOfViolationsWithPriority(priority, false);
+                }
+                continue;
+            }
+            int childIndex = indexes.get(child);
+            totalFiles[index] += totalFiles[childIndex];
+            filesWithViolations[index] += filesWithViolations[childIndex];
+            for (int priority = 0; priority < MAX_PRIORITY; priority++) {
+                violations[offset + priority] += violations[childIndex * MAX_PRIORITY + priority];
+            }
+        }
+        filesWithViolations[index] += ownFilesWithViolations[index];
+        for (int priority = 0; priority < MAX_PRIORITY; priority++) {
+            violations[offset + priority] += ownViolations[offset + priority];
+        }
+    }
+
+    /**
+     * @param recursive whether to include the files of the subdirectories
+     * @return the number of files of the directory, as returned by {@link Results#getTotalNumberOfFiles(boolean)}
+     */
+    public int getTotalNumberOfFiles(Results directory, boolean recursive) {
+        int index = indexOf(directory);
+        return recursive ? totalFiles[index] : ownFiles[index];
+    }
+
+    /**
+     * @param recursive whether to include the files of the subdirectories
+     * @return the number of files with violations of priority 1 to 3
+     */
+    public int getNumberOfFilesWithViolations(Results directory, boolean recursive) {
+        int index = indexOf(directory);
+        return recursive ? filesWithViolations[index] : ownFilesWithViolations[index];
+    }
+
+    /**
+     * @param recursive whether to include the violations of the files of the subdirectories
+     */
+    public int getNumberOfViolationsWithPriority(Results directory, int priority, boolean recursive) {
+        if (priority < 1 || priority > MAX_PRIORITY) {
+            throw new IllegalArgumentException("Unknown priority " + priority);
+        }
+        int index = indexOf(directory) * MAX_PRIORITY + priority - 1;
+        return recursive ? violations[index] : ownViolations[index];
+    }
+
+    /**
+     * @param recursive whether to include the violations of the files of the subdirectories
+     * @return the number of violations of priority 1 to 3
+     */
+    public int getTotalNumberOfViolations(Results directory, boolean recursive) {
+        int total = 0;
+        for (int priority = 1; priority <= MAX_PRIORITY; priority++) {
+            total += getNumberOfViolationsWithPriority(directory, priority, recursive);
+        }
+        return total;
+    }
+
+    /**
+     * @return the number of violations of each priority of the directory, including its subdirectories
+     */
+    public ViolationCounts getViolationCounts(Results directory) {
+        return new ViolationCounts(
+                getNumberOfViolationsWithPriority(directory, 1, true),
+                getNumberOfViolationsWithPriority(directory, 2, true),
+                getNumberOfViolationsWithPriority(directory, 3, true));
+    }
+
+    /**
+     * @return the totals of the directory, including its subdirectories
+     */
+    public PackageTotals getTotals(Results directory) {
+        return new PackageTotals(getTotalNumberOfFiles(directory, true), getNumberOfFilesWithViolations(directory, true),
+                getViolationCounts(directory));
+    }
+
+    private int indexOf(Results directory) {
+        Integer index = indexes.get(directory);
+        if (index == null) {
+            throw new IllegalArgumentException("Not a directory of the results: " + directory.getPath());
+        }
+        return index;
+    }
+}
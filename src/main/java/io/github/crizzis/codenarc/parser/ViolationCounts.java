@@ -0,0 +1,32 @@
+package io.github.crizzis.codenarc.parser;
+
+import lombok.Value;
+import org.codenarc.results.Results;
+
+/**
+ * The total number of violations of each priority found by an analysis
+ */
+@Value
+public class ViolationCounts {
+
+    int priority1;
+    int priority2;
+    int priority3;
+
+    public static ViolationCounts of(Results results) {
+        return ResultsStatistics.of(results).getViolationCounts(results);
+    }
+
+    public int getCount(int priority) {
+        switch (priority) {
+            case 1:
+                return priority1;
+            case 2:
+                return priority2;
+            case 3:
+                return priority3;
+            default:
+                throw new IllegalArgumentException("Unknown priority " + priority);
+        }
+    }
+}
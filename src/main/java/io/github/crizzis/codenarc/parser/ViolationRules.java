@@ -0,0 +1,27 @@
+package io.github.crizzis.codenarc.parser;
+
+import lombok.experimental.UtilityClass;
+import org.codenarc.results.FileResults;
+import org.codenarc.rule.Violation;
+
+import java.util.List;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Visits the rule name and priority of the violations of a file. For the files of a report parsed lazily,
+ * these are taken from the report index, so that computing totals per rule does not parse the violations
+ */
+@UtilityClass
+public class ViolationRules {
+
+    @SuppressWarnings("unchecked")
+    public void forEach(FileResults file, ObjIntConsumer<String> action) {
+        if (file instanceof LazyFileResults) {
+            ((LazyFileResults) file).forEachViolationRule(action);
+            return;
+        }
+        for (Violation violation : (List<Violation>) file.getViolations()) {
+            action.accept(violation.getRule().getName(), violation.getRule().getPriority());
+        }
+    }
+}
@@ -1,55 +1,95 @@
 package io.github.crizzis.codenarc.report;
 
 import io.github.crizzis.codenarc.parser.CodeNarcAnalysis;
+import io.github.crizzis.codenarc.parser.ResultsStatistics;
 import lombok.Getter;
 import lombok.Setter;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.maven.doxia.sink.Sink;
 import org.codenarc.results.DirectoryResults;
 import org.codenarc.results.Results;
+import org.codenarc.rule.Violation;
 
 import javax.inject.Named;
 import javax.inject.Singleton;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
 import java.util.function.Predicate;
 
 import static io.github.crizzis.codenarc.report.ResultWalker.*;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 /**
- * CodeNarc report generator. Takes an instance of {@link CodeNarcAnalysis} as input
+ * CodeNarc report generator. Takes an instance of {@link CodeNarcAnalysis} as input.
+ * The report is written either to a single page, or to a main page and a page per package (see {@link ReportConfig}).
+ * The package pages are rendered concurrently, each with its own sink, and only read the results,
+ * which are shared by all of them. The main page is written once all the package pages have been written
  */
 @Named
 @Singleton
 public class CodeNarcReportGenerator implements Localizable {
 
-    private static final int MAX_PRIORITY = 3;
     private static final String KEY_VALUE_SEPARATOR = ": ";
+    private static final String PAGE_EXTENSION = ".html";
+    private static final String DEFAULT_PACKAGE_PAGE = "default";
 
     private final ResultWalker resultWalker = new ResultWalker();
 
     public void generate(CodeNarcAnalysis input, Sink sink, Locale locale) {
+        generate(input, sink, locale, ReportConfig.builder().build());
+    }
+
+    /**
+     * @return the package pages written
+     * @throws UncheckedIOException if a package page could not be created
+     */
+    public List<File> generate(CodeNarcAnalysis input, Sink sink, Locale locale, ReportConfig config) {
+        ResultsStatistics statistics = ResultsStatistics.of(input.getResults());
+        List<File> packagePages = config.isSplitPages() && hasViolations(input, statistics)
+                ? generatePackagePages(input, locale, config)
+                : List.of();
         sink.head();
-        generateHead(input, sink, locale);
+        generateHead(sink, getCodeNarcMessages(locale).getString("report.codenarc.name"));
         sink.head_();
         sink.body();
-        generateBody(input, sink, locale);
+        generateBody(input, statistics, sink, locale, config);
         sink.body_();
+        return packagePages;
     }
 
-    private void generateHead(CodeNarcAnalysis input, Sink sink, Locale locale) {
+    private void generateHead(Sink sink, String title) {
         sink.title();
-        sink.text(getCodeNarcMessages(locale).getString("report.codenarc.name"));
+        sink.text(title);
         sink.title_();
     }
 
-    private void generateBody(CodeNarcAnalysis input, Sink sink, Locale locale) {
+    private void generateBody(CodeNarcAnalysis input, ResultsStatistics statistics, Sink sink, Locale locale, ReportConfig config) {
         generateHeading(input, sink, locale);
-        generateSummary(input, sink, locale);
-        if (hasViolations(input)) {
-            generatePackageSummary(input, sink, locale);
-            generateFileViolations(input, sink, locale);
+        generateSummary(input, statistics, sink, locale);
+        if (hasViolations(input, statistics)) {
+            generatePackageSummary(input, statistics, sink, locale, config);
+            generateRuleSummary(input, sink, locale);
+            if (config.getHotspots() > 0) {
+                generateHotspots(input, statistics, sink, locale, config.getHotspots());
+            }
+            if (!config.isSplitPages()) {
+                generateFileViolations(input, sink, locale, config);
+            }
         }
     }
 
@@ -62,27 +102,53 @@ public class CodeNarcReportGenerator implements Localizable {
         sink.section1_();
     }
 
-    private void generateSummary(CodeNarcAnalysis input, Sink sink, Locale locale) {
+    private void generateSummary(CodeNarcAnalysis input, ResultsStatistics statistics, Sink sink, Locale locale) {
         sink.section1();
         printSectionTitle(sink, getCodeNarcMessages(locale).getString("report.codenarc.summary"));
-        printTable(sink, new SummaryTableRenderer(locale), List.of((DirectoryResults) input.getResults()));
+        printTable(sink, new SummaryTableRenderer(locale, statistics), List.of((DirectoryResults) input.getResults()));
         sink.section1_();
     }
 
-    private void generatePackageSummary(CodeNarcAnalysis input, Sink sink, Locale locale) {
+    @SuppressWarnings("unchecked")
+    private void generatePackageSummary(CodeNarcAnalysis input, ResultsStatistics statistics, Sink sink, Locale locale, ReportConfig config) {
         sink.section1();
         printSectionTitle(sink, getCodeNarcMessages(locale).getString("report.codenarc.package_summary"));
         Iterator<String> sourceRootDirectories = input.getSourceDirectories().iterator();
-        input.getResults().getChildren().forEach(sourceRoot -> {
+        List<Results> sourceRoots = input.getResults().getChildren();
+        for (int i = 0; i < sourceRoots.size(); i++) {
             if (sourceRootDirectories.hasNext()) {
                 printSourceDirectoryTitle(sink, sourceRootDirectories.next(), locale);
             }
-            printResultTable(sink, new PackageSummaryTableRenderer(locale), (Results) sourceRoot, DIRECTORIES_WITH_FILES);
-        });
+            int sourceRoot = i;
+            Function<Results, String> pageLinks = config.isSplitPages() ? results -> getPageName(config, sourceRoot, results) : null;
+            printResultTable(sink, new PackageSummaryTableRenderer(locale, statistics, pageLinks), sourceRoots.get(i), DIRECTORIES_WITH_FILES);
+        }
+        sink.section1_();
+    }
+
+    private void generateRuleSummary(CodeNarcAnalysis input, Sink sink, Locale locale) {
+        sink.section1();
+        printSectionTitle(sink, getCodeNarcMessages(locale).getString("report.codenarc.rule_summary"));
+        printTable(sink, new RuleSummaryTableRenderer(locale), RuleSummary.collect(input.getResults()).getRules());
+        sink.section1_();
+    }
+
+    private void generateHotspots(CodeNarcAnalysis input, ResultsStatistics statistics, Sink sink, Locale locale, int limit) {
+        Hotspots hotspots = Hotspots.collect(input.getResults(), statistics, limit,
+                getCodeNarcMessages(locale).getString("report.codenarc.default_package"));
+        sink.section1();
+        printSectionTitle(sink, getCodeNarcMessages(locale).getString("report.codenarc.hotspots"));
+        printParagraph(sink, getCodeNarcMessages(locale).getString("report.codenarc.hotspots_description"));
+        printSubSectionTitle(sink, getCodeNarcMessages(locale).getString("report.codenarc.files"));
+        printTable(sink, new HotspotTableRenderer(locale, "report.codenarc.file"), hotspots.getFiles());
+        printSubSectionTitle(sink, getCodeNarcMessages(locale).getString("report.codenarc.hotspot_packages"));
+        printTable(sink, new HotspotTableRenderer(locale, "report.codenarc.package"), hotspots.getPackages());
+        printSubSectionTitle(sink, getCodeNarcMessages(locale).getString("report.codenarc.hotspot_rules"));
+        printTable(sink, new HotspotTableRenderer(locale, "report.codenarc.rule_name"), hotspots.getRules());
         sink.section1_();
     }
 
-    private void generateFileViolations(CodeNarcAnalysis input, Sink sink, Locale locale) {
+    private void generateFileViolations(CodeNarcAnalysis input, Sink sink, Locale locale, ReportConfig config) {
         sink.section1();
         printSectionTitle(sink, getCodeNarcMessages(locale).getString("report.codenarc.files"));
         final Iterator<String> sourceRootDirectories = input.getSourceDirectories().iterator();
@@ -90,10 +156,13 @@ public class CodeNarcReportGenerator implements Localizable {
         resultWalker.walk(input.getResults(), DIRECTORIES_WITH_FILES.or(FILES).or(SOURCE_ROOTS), results -> {
             if (results.isFile()) {
                 printSubSubSectionTitle(sink, toFilePath(context.getCurrentPackage(), results));
-                printTable(sink, new ViolationTableRenderer(locale), results.getViolations());
+                printViolationTable(sink, locale, config, context.getSourceDirectory(), context.getCurrentPackage(), results);
             } else {
-                if (isSourceRoot(results) && sourceRootDirectories.hasNext()) {
-                    printSourceDirectoryTitle(sink, sourceRootDirectories.next(), locale);
+                if (isSourceRoot(results)) {
+                    context.setSourceDirectory(sourceRootDirectories.hasNext() ? sourceRootDirectories.next() : null);
+                    if (context.getSourceDirectory() != null) {
+                        printSourceDirectoryTitle(sink, context.getSourceDirectory(), locale);
+                    }
                 }
                 context.setCurrentPackage(results);
             }
@@ -101,6 +170,140 @@ public class CodeNarcReportGenerator implements Localizable {
         sink.section1_();
     }
 
+    @SuppressWarnings("unchecked")
+    private List<File> generatePackagePages(CodeNarcAnalysis input, Locale locale, ReportConfig config) {
+        List<String> sourceDirectories = input.getSourceDirectories();
+        List<Results> sourceRoots = input.getResults().getChildren();
+        try {
+            Files.createDirectories(config.getOutputDirectory().toPath());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create the report directory: " + config.getOutputDirectory(), e);
+        }
+        List<Runnable> pages = new ArrayList<>();
+        List<File> pageFiles = new ArrayList<>();
+        for (int i = 0; i < sourceRoots.size(); i++) {
+            String sourceDirectory = i < sourceDirectories.size() ? sourceDirectories.get(i) : null;
+            int sourceRoot = i;
+            resultWalker.walk(sourceRoots.get(i), DIRECTORIES_WITH_FILES, packageResults -> {
+                String pageName = getPageName(config, sourceRoot, packageResults);
+                pageFiles.add(new File(config.getOutputDirectory(), pageName));
+                pages.add(() -> generatePackagePage(packageResults, sourceDirectory, pageName, locale, config));
+            });
+        }
+        renderPages(pages, config.getThreads() > 0 ? config.getThreads() : Runtime.getRuntime().availableProcessors());
+        return pageFiles;
+    }
+
+    private void renderPages(List<Runnable> pages, int threads) {
+        if (threads == 1 || pages.size() <= 1) {
+            pages.forEach(Runnable::run);
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, pages.size()));
+        try {
+            List<Future<?>> renderedPages = new ArrayList<>(pages.size());
+            for (Runnable page : pages) {
+                renderedPages.add(executor.submit(page));
+            }
+            for (Future<?> renderedPage : renderedPages) {
+                renderedPage.get();
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Could not render the report pages", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while rendering the report pages", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Writes the violations of a single package to a page of its own, so that only one package is rendered at a time
+     */
+    private void generatePackagePage(Results packageResults, String sourceDirectory, String pageName, Locale locale, ReportConfig config) {
+        Sink sink;
+        try {
+            sink = config.getSinkFactory().createSink(config.getOutputDirectory(), pageName);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create the report page: " + pageName, e);
+        }
+        try {
+            String packageName = getPackageName(packageResults, locale);
+            sink.head();
+            generateHead(sink, getCodeNarcMessages(locale).getString("report.codenarc.name") + KEY_VALUE_SEPARATOR + packageName);
+            sink.head_();
+            sink.body();
+            sink.section1();
+            printSectionTitle(sink, getCodeNarcMessages(locale).getString("report.codenarc.package") + KEY_VALUE_SEPARATOR + packageName);
+            if (sourceDirectory != null) {
+                printKeyValue(sink, getCodeNarcMessages(locale).getString("report.codenarc.source_directory"), sourceDirectory);
+            }
+            printLink(sink, config.getOutputName() + PAGE_EXTENSION, getCodeNarcMessages(locale).getString("report.codenarc.name"));
+            for (Results file : (List<Results>) packageResults.getChildren()) {
+                if (file.isFile()) {
+                    printSubSubSectionTitle(sink, toFilePath(packageResults, file));
+                    printViolationTable(sink, locale, config, sourceDirectory, packageResults, file);
+                }
+            }
+            sink.section1_();
+            sink.body_();
+            sink.flush();
+        } finally {
+            sink.close();
+        }
+    }
+
+    /**
+     * Every source file is read at most once, in a single pass, when its violation table is printed, and only the lines shown
+     * are kept until the table has been printed. If the file cannot be read anymore, only the source lines recorded
+     * in the analysis are shown
+     */
+    @SuppressWarnings("unchecked")
+    private void printViolationTable(Sink sink, Locale locale, ReportConfig config, String sourceDirectory, Results packageResults, Results file) {
+        List<Violation> violations = file.getViolations();
+        SourceFile source = config.getSourceContextLines() > 0 && sourceDirectory != null && !violations.isEmpty()
+                ? readSourceFile(config, sourceDirectory, toFilePath(packageResults, file), violations)
+                : null;
+        printTable(sink, new ViolationTableRenderer(locale, source, config.getSourceContextLines()), violations);
+    }
+
+    private SourceFile readSourceFile(ReportConfig config, String sourceDirectory, String filePath, List<Violation> violations) {
+        Path directory = Paths.get(sourceDirectory);
+        if (!directory.isAbsolute() && config.getBaseDirectory() != null) {
+            directory = config.getBaseDirectory().toPath().resolve(directory);
+        }
+        BitSet shownLines = new BitSet();
+        for (Violation violation : violations) {
+            Integer lineNumber = violation.getLineNumber();
+            if (lineNumber != null && lineNumber >= 1) {
+                shownLines.set(Math.max(1, lineNumber - config.getSourceContextLines()), lineNumber + config.getSourceContextLines() + 1);
+            }
+        }
+        if (shownLines.isEmpty()) {
+            return null;
+        }
+        try {
+            return SourceFile.read(directory.resolve(filePath), config.getSourceEncoding() != null ? config.getSourceEncoding() : UTF_8, shownLines);
+        } catch (IOException | InvalidPathException e) {
+            return null;
+        }
+    }
+
+    private String getPageName(ReportConfig config, int sourceRoot, Results packageResults) {
+        String packagePage = StringUtils.isBlank(packageResults.getPath()) ? DEFAULT_PACKAGE_PAGE : packageResults.getPath().replace('/', '.');
+        return config.getOutputName() + "-" + (sourceRoot + 1) + "-" + packagePage + PAGE_EXTENSION;
+    }
+
+    private String getPackageName(Results packageResults, Locale locale) {
+        return StringUtils.isBlank(packageResults.getPath())
+                ? getCodeNarcMessages(locale).getString("report.codenarc.default_package")
+                : packageResults.getPath().replace('/', '.');
+    }
+
     private void printSectionTitle(Sink sink, String title) {
         sink.sectionTitle1();
         sink.text(title);
@@ -116,6 +319,12 @@ public class CodeNarcReportGenerator implements Localizable {
         sink.sectionTitle2_();
     }
 
+    private void printSubSectionTitle(Sink sink, String title) {
+        sink.sectionTitle2();
+        sink.text(title);
+        sink.sectionTitle2_();
+    }
+
     private void printSubSubSectionTitle(Sink sink, String title) {
         sink.sectionTitle3();
         sink.text(title);
@@ -131,6 +340,14 @@ public class CodeNarcReportGenerator implements Localizable {
         sink.paragraph_();
     }
 
+    private void printLink(Sink sink, String href, String text) {
+        sink.paragraph();
+        sink.link(href);
+        sink.text(text);
+        sink.link_();
+        sink.paragraph_();
+    }
+
     private void printParagraph(Sink sink, String paragraphText) {
         sink.paragraph();
         sink.text(paragraphText);
@@ -145,8 +362,8 @@ public class CodeNarcReportGenerator implements Localizable {
         renderer.renderTable(sink, renderingCallback -> resultWalker.walk(root, include, renderingCallback));
     }
 
-    private boolean hasViolations(CodeNarcAnalysis input) {
-        return input.getResults().getNumberOfFilesWithViolations(MAX_PRIORITY, true) > 0;
+    private boolean hasViolations(CodeNarcAnalysis input, ResultsStatistics statistics) {
+        return statistics.getNumberOfFilesWithViolations(input.getResults(), true) > 0;
     }
 
     private String toFilePath(Results directory, Results file) {
@@ -162,5 +379,6 @@ public class CodeNarcReportGenerator implements Localizable {
     private static class CurrentPackageContext {
 
         private Results currentPackage;
+        private String sourceDirectory;
     }
 }
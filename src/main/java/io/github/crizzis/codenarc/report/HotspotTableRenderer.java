@@ -0,0 +1,53 @@
+package io.github.crizzis.codenarc.report;
+
+import io.github.crizzis.codenarc.report.Hotspots.Hotspot;
+import lombok.Getter;
+import org.apache.maven.doxia.sink.Sink;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.ResourceBundle;
+
+class HotspotTableRenderer implements TableRenderer<Hotspot>, Localizable {
+
+    @Getter
+    private final List<String> headers;
+
+    /**
+     * @param nameHeaderKey the message key of the header of the hotspot name column
+     */
+    HotspotTableRenderer(Locale locale, String nameHeaderKey) {
+        ResourceBundle messages = getCodeNarcMessages(locale);
+        this.headers = List.of(
+                messages.getString(nameHeaderKey),
+                messages.getString("report.codenarc.weighted_violations"),
+                messages.getString("report.codenarc.total_violations"),
+                messages.getString("report.codenarc.priority_one_violations"),
+                messages.getString("report.codenarc.priority_two_violations"),
+                messages.getString("report.codenarc.priority_three_violations"));
+    }
+
+    @Override
+    public void renderCell(Sink sink, Hotspot element, int index) {
+        switch (index) {
+            case 0:
+                sink.text(element.getName());
+                break;
+            case 1:
+                sink.text(String.valueOf(element.getWeight()));
+                break;
+            case 2:
+                sink.text(String.valueOf(element.getTotal()));
+                break;
+            case 3:
+                sink.text(String.valueOf(element.getPriority1()));
+                break;
+            case 4:
+                sink.text(String.valueOf(element.getPriority2()));
+                break;
+            case 5:
+                sink.text(String.valueOf(element.getPriority3()));
+                break;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package io.github.crizzis.codenarc.report;
+
+import io.github.crizzis.codenarc.parser.ResultsStatistics;
+import io.github.crizzis.codenarc.parser.ViolationRules;
+import lombok.Value;
+import org.apache.commons.lang3.StringUtils;
+import org.codenarc.results.FileResults;
+import org.codenarc.results.Results;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import static io.github.crizzis.codenarc.report.ResultWalker.DIRECTORIES_WITH_FILES;
+import static io.github.crizzis.codenarc.report.ResultWalker.FILES;
+
+/**
+ * The files, packages and rules with the most violations, weighted by priority
+ * (a priority 1 violation weighs 3, a priority 2 violation weighs 2, a priority 3 violation weighs 1).
+ *
+ * The hotspots are collected in a single walk over the results, keeping only the top entries of every kind
+ * in a fixed-size min-heap. Apart from the heaps, only the violation counts of every rule are held
+ */
+class Hotspots {
+
+    private static final int MAX_PRIORITY = 3;
+
+    /**
+     * Heaviest first, then by name
+     */
+    private static final Comparator<Hotspot> RANKING = Comparator.comparingInt(Hotspot::getWeight).reversed()
+            .thenComparing(Hotspot::getName);
+
+    private final TopHotspots files;
+    private final TopHotspots packages;
+    private final TopHotspots rules;
+
+    private Hotspots(int limit) {
+        this.files = new TopHotspots(limit);
+        this.packages = new TopHotspots(limit);
+        this.rules = new TopHotspots(limit);
+    }
+
+    /**
+     * @param limit the maximum number of files, packages and rules to keep
+     * @param defaultPackageName the name shown for the default package
+     */
+    static Hotspots collect(Results results, ResultsStatistics statistics, int limit, String defaultPackageName) {
+        Hotspots hotspots = new Hotspots(limit);
+        Map<String, int[]> ruleViolations = new HashMap<>();
+        Results[] currentPackage = new Results[1];
+        new ResultWalker().walk(results, DIRECTORIES_WITH_FILES.or(FILES), element -> {
+            if (!element.isFile()) {
+                currentPackage[0] = element;
+                hotspots.packages.offer(new Hotspot(getPackageName(element, defaultPackageName),
+                        statistics.getNumberOfViolationsWithPriority(element, 1, false),
+                        statistics.getNumberOfViolationsWithPriority(element, 2, false),
+                        statistics.getNumberOfViolationsWithPriority(element, 3, false)));
+                return;
+            }
+            int[] fileViolations = new int[MAX_PRIORITY];
+            ViolationRules.forEach((FileResults) element, (rule, priority) -> {
+                if (priority >= 1 && priority <= MAX_PRIORITY) {
+                    fileViolations[priority - 1]++;
+                    ruleViolations.computeIfAbsent(rule, name -> new int[MAX_PRIORITY])[priority - 1]++;
+                }
+            });
+            hotspots.files.offer(new Hotspot(getFilePath(currentPackage[0], element),
+                    fileViolations[0], fileViolations[1], fileViolations[2]));
+        });
+        ruleViolations.forEach((name, violations) -> hotspots.rules.offer(new Hotspot(name, violations[0], violations[1], violations[2])));
+        return hotspots;
+    }
+
+    List<Hotspot> getFiles() {
+        return files.ranked();
+    }
+
+    List<Hotspot> getPackages() {
+        return packages.ranked();
+    }
+
+    List<Hotspot> getRules() {
+        return rules.ranked();
+    }
+
+    private static String getPackageName(Results element, String defaultPackageName) {
+        return StringUtils.isBlank(element.getPath()) ? defaultPackageName : element.getPath().replace('/', '.');
+    }
+
+    private static String getFilePath(Results directory, Results file) {
+        return (directory == null || StringUtils.isBlank(directory.getPath()) ? "" : directory.getPath() + "/") + file.getPath();
+    }
+
+    @Value
+    static class Hotspot {
+
+        String name;
+        int priority1;
+        int priority2;
+        int priority3;
+
+        int getWeight() {
+            return 3 * priority1 + 2 * priority2 + priority3;
+        }
+
+        int getTotal() {
+            return priority1 + priority2 + priority3;
+        }
+    }
+
+    /**
+     * Keeps the {@code limit} heaviest hotspots with violations, evicting the lightest one from the top of a min-heap
+     */
+    private static class TopHotspots {
+
+        private final int limit;
+        private final PriorityQueue<Hotspot> heap;
+
+        TopHotspots(int limit) {
+            this.limit = limit;
+            this.heap = new PriorityQueue<>(limit + 1, RANKING.reversed());
+        }
+
+        void offer(Hotspot hotspot) {
+            if (hotspot.getWeight() == 0 || limit == 0) {
+                return;
+            }
+            if (heap.size() < limit) {
+                heap.add(hotspot);
+            } else if (RANKING.compare(hotspot, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(hotspot);
+            }
+        }
+
+        List<Hotspot> ranked() {
+            List<Hotspot> ranked = new ArrayList<>(heap);
+            ranked.sort(RANKING);
+            return ranked;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package io.github.crizzis.codenarc.report;
 
+import io.github.crizzis.codenarc.parser.ResultsStatistics;
 import lombok.Getter;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.maven.doxia.sink.Sink;
@@ -8,6 +9,7 @@ import org.codenarc.results.Results;
 import java.util.List;
 import java.util.Locale;
 import java.util.ResourceBundle;
+import java.util.function.Function;
 
 class PackageSummaryTableRenderer implements TableRenderer<Results>, Localizable {
 
@@ -15,13 +17,20 @@ class PackageSummaryTableRenderer implements TableRenderer<Results>, Localizable
     private static final int PRIORITY_TWO = 2;
     private static final int PRIORITY_THREE = 3;
 
+    private final ResultsStatistics statistics;
+    private final Function<Results, String> pageLinks;
     private final String defaultPackageName;
 
     @Getter
     private final List<String> headers;
 
-    PackageSummaryTableRenderer(Locale locale) {
+    /**
+     * @param pageLinks the pages the package names link to, or {@code null} if the package names are not links
+     */
+    PackageSummaryTableRenderer(Locale locale, ResultsStatistics statistics, Function<Results, String> pageLinks) {
         ResourceBundle messages = getCodeNarcMessages(locale);
+        this.statistics = statistics;
+        this.pageLinks = pageLinks;
         this.defaultPackageName = messages.getString("report.codenarc.default_package");
         this.headers = List.of(
                 messages.getString("report.codenarc.package"),
@@ -36,24 +45,28 @@ class PackageSummaryTableRenderer implements TableRenderer<Results>, Localizable
     public void renderCell(Sink sink, Results element, int index) {
         switch (index) {
             case 0:
-                sink.text(getPackageName(element));
+                if (pageLinks == null) {
+                    sink.text(getPackageName(element));
+                } else {
+                    sink.link(pageLinks.apply(element));
+                    sink.text(getPackageName(element));
+                    sink.link_();
+                }
                 break;
             case 1:
-                sink.text(String.valueOf(element.getNumberOfFilesWithViolations(PRIORITY_THREE, false)));
+                sink.text(String.valueOf(statistics.getNumberOfFilesWithViolations(element, false)));
                 break;
             case 2:
-                sink.text(String.valueOf(element.getNumberOfViolationsWithPriority(PRIORITY_ONE, false)
-                        + element.getNumberOfViolationsWithPriority(PRIORITY_TWO, false)
-                        + element.getNumberOfViolationsWithPriority(PRIORITY_THREE, false)));
+                sink.text(String.valueOf(statistics.getTotalNumberOfViolations(element, false)));
                 break;
             case 3:
-                sink.text(String.valueOf(element.getNumberOfViolationsWithPriority(PRIORITY_ONE, false)));
+                sink.text(String.valueOf(statistics.getNumberOfViolationsWithPriority(element, PRIORITY_ONE, false)));
                 break;
             case 4:
-                sink.text(String.valueOf(element.getNumberOfViolationsWithPriority(PRIORITY_TWO, false)));
+                sink.text(String.valueOf(statistics.getNumberOfViolationsWithPriority(element, PRIORITY_TWO, false)));
                 break;
             case 5:
-                sink.text(String.valueOf(element.getNumberOfViolationsWithPriority(PRIORITY_THREE, false)));
+                sink.text(String.valueOf(statistics.getNumberOfViolationsWithPriority(element, PRIORITY_THREE, false)));
                 break;
         }
     }
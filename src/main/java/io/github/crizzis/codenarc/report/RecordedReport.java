@@ -0,0 +1,291 @@
+package io.github.crizzis.codenarc.report;
+
+import org.apache.maven.doxia.sink.Sink;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * A report recorded as the sequence of sink events it was rendered with, stored in a directory together with
+ * a fingerprint of everything the report was rendered from, and the modification times of the files written alongside it
+ * (such as package pages). As long as the fingerprint matches and these files are unchanged, the report can be replayed
+ * into another sink instead of being parsed and rendered again.
+ *
+ * Only events with {@code String}, {@code int} and {@code boolean} arguments (or {@code null} arguments of any other type)
+ * can be recorded. A report emitting any other event is still rendered, but cannot be committed
+ */
+public class RecordedReport {
+
+    private static final String EVENTS_EXTENSION = ".events";
+    private static final String FINGERPRINT_EXTENSION = ".fingerprint";
+    private static final String TEMPORARY_EXTENSION = ".tmp";
+    private static final int FORMAT_VERSION = 1;
+    private static final String END_OF_EVENTS = "";
+    private static final int NULL_STRING = -1;
+    private static final String FINGERPRINT_ALGORITHM = "SHA-256";
+    private static final String OUTPUT_SEPARATOR = "\t";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The events which are left to the owner of the sink
+     */
+    private static final Set<String> UNRECORDED_EVENTS = Set.of("flush", "close");
+
+    private static final Map<String, Method> SINK_EVENTS = Arrays.stream(Sink.class.getMethods())
+            .collect(Collectors.toMap(RecordedReport::getSignature, Function.identity()));
+
+    private final Path events;
+    private final Path fingerprint;
+
+    public RecordedReport(File directory, String name) {
+        this.events = directory.toPath().resolve(name + EVENTS_EXTENSION);
+        this.fingerprint = directory.toPath().resolve(name + FINGERPRINT_EXTENSION);
+    }
+
+    /**
+     * @return a digest of the content of {@code input} and of the given rendering settings
+     * @throws IOException if {@code input} cannot be read
+     */
+    public static String fingerprint(File input, String... settings) throws IOException {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream content = Files.newInputStream(input.toPath())) {
+            for (int read = content.read(buffer); read >= 0; read = content.read(buffer)) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        for (String setting : settings) {
+            digest.update((byte) 0);
+            digest.update(String.valueOf(setting).getBytes(UTF_8));
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * @return true if the recorded report was rendered from inputs with the given fingerprint,
+     * and the files written alongside it still exist unchanged
+     */
+    public boolean isUpToDate(String expectedFingerprint) {
+        try {
+            if (!Files.isRegularFile(events)) {
+                return false;
+            }
+            List<String> lines = Files.readAllLines(fingerprint, UTF_8);
+            return !lines.isEmpty() && expectedFingerprint.equals(lines.get(0))
+                    && lines.stream().skip(1).allMatch(RecordedReport::isOutputUnchanged);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static boolean isOutputUnchanged(String output) {
+        int separator = output.indexOf(OUTPUT_SEPARATOR);
+        File file = new File(output.substring(separator + 1));
+        return file.isFile() && file.lastModified() == Long.parseLong(output.substring(0, separator));
+    }
+
+    /**
+     * Emits the recorded events into {@code sink}, in the order they were recorded
+     */
+    public void replay(Sink sink) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(events), BUFFER_SIZE))) {
+            if (input.readInt() != FORMAT_VERSION) {
+                throw new IOException("Unsupported recorded report format: " + events);
+            }
+            for (String signature = input.readUTF(); !signature.equals(END_OF_EVENTS); signature = input.readUTF()) {
+                Method event = SINK_EVENTS.get(signature);
+                if (event == null) {
+                    throw new IOException("Unknown sink event " + signature + " in: " + events);
+                }
+                Object[] arguments = readArguments(input, event.getParameterTypes());
+                try {
+                    event.invoke(sink, arguments);
+                } catch (IllegalAccessException | InvocationTargetException e) {
+                    throw new IllegalStateException("Could not replay sink event " + signature, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts recording the events emitted into the returned {@link Recording#getSink()}, all of which are passed on to {@code sink}.
+     * Any previous recording stops being up to date
+     */
+    public Recording record(Sink sink) throws IOException {
+        Files.deleteIfExists(fingerprint);
+        Files.createDirectories(events.getParent());
+        return new Recording(sink, events.resolveSibling(events.getFileName() + TEMPORARY_EXTENSION));
+    }
+
+    private static Object[] readArguments(DataInputStream input, Class<?>[] types) throws IOException {
+        Object[] arguments = new Object[types.length];
+        for (int i = 0; i < types.length; i++) {
+            if (types[i] == String.class) {
+                arguments[i] = readString(input);
+            } else if (types[i] == int.class) {
+                arguments[i] = input.readInt();
+            } else if (types[i] == boolean.class) {
+                arguments[i] = input.readBoolean();
+            }
+        }
+        return arguments;
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        int length = input.readInt();
+        if (length == NULL_STRING) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private static String getSignature(Method method) {
+        return method.getName() + Arrays.stream(method.getParameterTypes()).map(Class::getName).collect(Collectors.joining(",", "(", ")"));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(FINGERPRINT_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(FINGERPRINT_ALGORITHM + " not supported", e);
+        }
+    }
+
+    /**
+     * A recording in progress. Closing a recording which has not been committed discards it
+     */
+    public class Recording implements Closeable {
+
+        private final Sink sink;
+        private final Path temporaryEvents;
+        private final DataOutputStream output;
+        private IOException failure;
+        private boolean committed;
+
+        private Recording(Sink delegate, Path temporaryEvents) throws IOException {
+            this.temporaryEvents = temporaryEvents;
+            this.output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryEvents), BUFFER_SIZE));
+            this.output.writeInt(FORMAT_VERSION);
+            this.sink = (Sink) Proxy.newProxyInstance(Sink.class.getClassLoader(), new Class<?>[] { Sink.class },
+                    (proxy, method, arguments) -> {
+                        if (method.getDeclaringClass() != Object.class && !UNRECORDED_EVENTS.contains(method.getName())) {
+                            recordEvent(method, arguments);
+                        }
+                        try {
+                            return method.invoke(delegate, arguments);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+
+        public Sink getSink() {
+            return sink;
+        }
+
+        /**
+         * Stores the recorded events, to be replayed as long as the inputs match {@code inputsFingerprint}
+         *
+         * @throws IOException if the events could not be recorded
+         */
+        public void commit(String inputsFingerprint) throws IOException {
+            commit(inputsFingerprint, List.of());
+        }
+
+        /**
+         * Stores the recorded events, to be replayed as long as the inputs match {@code inputsFingerprint}
+         * and the {@code outputs} written alongside the report are left as they are
+         *
+         * @throws IOException if the events could not be recorded
+         */
+        public void commit(String inputsFingerprint, List<File> outputs) throws IOException {
+            if (failure == null) {
+                try {
+                    output.writeUTF(END_OF_EVENTS);
+                    output.close();
+                } catch (IOException e) {
+                    failure = e;
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            StringBuilder content = new StringBuilder(inputsFingerprint);
+            for (File file : outputs) {
+                content.append('\n').append(file.lastModified()).append(OUTPUT_SEPARATOR).append(file.getAbsolutePath());
+            }
+            Files.move(temporaryEvents, events, REPLACE_EXISTING);
+            Files.writeString(fingerprint, content, UTF_8);
+            committed = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!committed) {
+                output.close();
+                Files.deleteIfExists(temporaryEvents);
+            }
+        }
+
+        private void recordEvent(Method method, Object[] arguments) {
+            if (failure != null) {
+                return;
+            }
+            try {
+                output.writeUTF(getSignature(method));
+                Class<?>[] types = method.getParameterTypes();
+                for (int i = 0; i < types.length; i++) {
+                    writeArgument(types[i], arguments[i]);
+                }
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+
+        private void writeArgument(Class<?> type, Object argument) throws IOException {
+            if (type == String.class) {
+                if (argument == null) {
+                    output.writeInt(NULL_STRING);
+                } else {
+                    byte[] bytes = ((String) argument).getBytes(UTF_8);
+                    output.writeInt(bytes.length);
+                    output.write(bytes);
+                }
+            } else if (type == int.class) {
+                output.writeInt((Integer) argument);
+            } else if (type == boolean.class) {
+                output.writeBoolean((Boolean) argument);
+            } else if (argument != null) {
+                throw new IOException("Cannot record an argument of type " + type.getName() + " of a sink event");
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package io.github.crizzis.codenarc.report;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.apache.maven.doxia.sink.SinkFactory;
+
+import java.io.File;
+import java.nio.charset.Charset;
+
+/**
+ * Configures how {@link CodeNarcReportGenerator} lays out the report.
+ *
+ * By default, the whole report is written to a single page. When {@code splitPages} is set, the main page only contains
+ * the summary and the package summary, and the violations of every package are written to a separate page
+ * named {@code <outputName>-<source root number>-<package>.html}, created with {@code sinkFactory} in {@code outputDirectory}.
+ * The package pages are rendered by {@code threads} threads (0 meaning the number of available processors),
+ * so the sinks created by {@code sinkFactory} have to be independent of each other.
+ * When {@code hotspots} is positive, the main page also lists that many files, packages and rules with the most violations.
+ * When {@code sourceContextLines} is positive, every violation is shown with that many lines of its source file before and after it,
+ * read in {@code sourceEncoding} from the source directory of the analysis (resolved against {@code baseDirectory} when relative)
+ */
+@Getter
+@RequiredArgsConstructor
+@Builder
+public class ReportConfig {
+
+    private final boolean splitPages;
+    private final SinkFactory sinkFactory;
+    private final File outputDirectory;
+    private final String outputName;
+    private final int threads;
+    private final int hotspots;
+    private final int sourceContextLines;
+    private final File baseDirectory;
+    private final Charset sourceEncoding;
+}
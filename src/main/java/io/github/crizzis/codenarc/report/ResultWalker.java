@@ -3,14 +3,15 @@ package io.github.crizzis.codenarc.report;
 import org.codenarc.results.Results;
 
 import java.util.ArrayDeque;
-import java.util.Comparator;
 import java.util.Deque;
+import java.util.List;
 import java.util.Objects;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 
 /**
- * Performs a DFS traversal of CodeNarc results
+ * Performs a DFS traversal of CodeNarc results, visiting the files of a directory before its subdirectories.
+ * The traversal uses an explicit stack, so it is safe for arbitrarily deep trees
  */
 @SuppressWarnings("unchecked")
 class ResultWalker {
@@ -18,16 +19,43 @@ class ResultWalker {
     static final Predicate<Results> FILES = Results::isFile;
     static final Predicate<Results> DIRECTORIES = Predicate.not(FILES);
     static final Predicate<Results> SOURCE_ROOTS = DIRECTORIES.and(results -> Objects.nonNull(results.getPath()) && results.getPath().isBlank());
-    static final Predicate<Results> DIRECTORIES_WITH_FILES = results -> results.getChildren().stream().anyMatch(FILES);
-
-    private final Deque<Results> toVisit = new ArrayDeque<>();
+    static final Predicate<Results> DIRECTORIES_WITH_FILES = ResultWalker::hasFiles;
 
     void walk(Results results, Predicate<Results> filter, Consumer<Results> action) {
-        if (filter.test(results)) {
-            action.accept(results);
+        Deque<Results> toVisit = new ArrayDeque<>();
+        toVisit.push(results);
+        while (!toVisit.isEmpty()) {
+            Results next = toVisit.pop();
+            if (filter.test(next)) {
+                action.accept(next);
+            }
+            pushChildren(toVisit, next.getChildren());
+        }
+    }
+
+    /**
+     * Pushes the subdirectories and then the files, each in reverse order, so that they are popped files first,
+     * each group in the original order
+     */
+    private static void pushChildren(Deque<Results> toVisit, List<Results> children) {
+        for (int i = children.size() - 1; i >= 0; i--) {
+            if (!children.get(i).isFile()) {
+                toVisit.push(children.get(i));
+            }
+        }
+        for (int i = children.size() - 1; i >= 0; i--) {
+            if (children.get(i).isFile()) {
+                toVisit.push(children.get(i));
+            }
+        }
+    }
+
+    private static boolean hasFiles(Results results) {
+        for (Results child : (List<Results>) results.getChildren()) {
+            if (child.isFile()) {
+                return true;
+            }
         }
-        results.getChildren().stream()
-                .sorted(Comparator.comparing(Results::isFile).reversed())
-                .forEachOrdered(child -> walk((Results) child, filter, action));
+        return false;
     }
 }
@@ -0,0 +1,124 @@
+package io.github.crizzis.codenarc.report;
+
+import io.github.crizzis.codenarc.parser.ViolationRules;
+import lombok.Value;
+import org.codenarc.results.FileResults;
+import org.codenarc.results.Results;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.github.crizzis.codenarc.report.ResultWalker.DIRECTORIES_WITH_FILES;
+import static io.github.crizzis.codenarc.report.ResultWalker.FILES;
+
+/**
+ * The number of violations, files with violations and packages with violations of every rule.
+ *
+ * The counts are collected in a single walk over the results. Every rule name is mapped to a dense id once,
+ * and the counts are kept in arrays indexed by that id, so the cost per violation is a single map lookup.
+ * A rule's file and package counts are only incremented the first time the rule is seen in a given file or package,
+ * which is detected by remembering the ordinal of the last file and package the rule was seen in
+ */
+class RuleSummary {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * Most violations first, then by name
+     */
+    private static final Comparator<RuleTotals> RANKING = Comparator.comparingInt(RuleTotals::getViolations).reversed()
+            .thenComparing(RuleTotals::getName);
+
+    private final Map<String, Integer> ruleIds = new HashMap<>();
+    private String[] names = new String[INITIAL_CAPACITY];
+    private int[] priorities = new int[INITIAL_CAPACITY];
+    private int[] violations = new int[INITIAL_CAPACITY];
+    private int[] files = new int[INITIAL_CAPACITY];
+    private int[] packages = new int[INITIAL_CAPACITY];
+    private int[] lastFile = new int[INITIAL_CAPACITY];
+    private int[] lastPackage = new int[INITIAL_CAPACITY];
+    private int ruleCount;
+
+    private int fileOrdinal;
+    private int packageOrdinal;
+
+    private RuleSummary() {
+    }
+
+    static RuleSummary collect(Results results) {
+        RuleSummary summary = new RuleSummary();
+        new ResultWalker().walk(results, DIRECTORIES_WITH_FILES.or(FILES), element -> {
+            if (element.isFile()) {
+                summary.fileOrdinal++;
+                ViolationRules.forEach((FileResults) element, summary::count);
+            } else {
+                summary.packageOrdinal++;
+            }
+        });
+        return summary;
+    }
+
+    /**
+     * @return the totals of every rule with violations, the rules with the most violations first
+     */
+    List<RuleTotals> getRules() {
+        List<RuleTotals> rules = new ArrayList<>(ruleCount);
+        for (int id = 0; id < ruleCount; id++) {
+            rules.add(new RuleTotals(names[id], priorities[id], violations[id], files[id], packages[id]));
+        }
+        rules.sort(RANKING);
+        return rules;
+    }
+
+    private void count(String rule, int priority) {
+        int id = getRuleId(rule, priority);
+        violations[id]++;
+        if (lastFile[id] != fileOrdinal) {
+            lastFile[id] = fileOrdinal;
+            files[id]++;
+        }
+        if (lastPackage[id] != packageOrdinal) {
+            lastPackage[id] = packageOrdinal;
+            packages[id]++;
+        }
+    }
+
+    private int getRuleId(String rule, int priority) {
+        Integer id = ruleIds.get(rule);
+        if (id != null) {
+            return id;
+        }
+        if (ruleCount == names.length) {
+            grow();
+        }
+        names[ruleCount] = rule;
+        priorities[ruleCount] = priority;
+        ruleIds.put(rule, ruleCount);
+        return ruleCount++;
+    }
+
+    private void grow() {
+        int capacity = names.length * 2;
+        names = Arrays.copyOf(names, capacity);
+        priorities = Arrays.copyOf(priorities, capacity);
+        violations = Arrays.copyOf(violations, capacity);
+        files = Arrays.copyOf(files, capacity);
+        packages = Arrays.copyOf(packages, capacity);
+        lastFile = Arrays.copyOf(lastFile, capacity);
+        lastPackage = Arrays.copyOf(lastPackage, capacity);
+    }
+
+    @Value
+    static class RuleTotals {
+
+        String name;
+        int priority;
+        int violations;
+        int files;
+        int packages;
+    }
+}
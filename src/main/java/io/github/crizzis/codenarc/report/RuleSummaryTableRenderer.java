@@ -0,0 +1,46 @@
+package io.github.crizzis.codenarc.report;
+
+import io.github.crizzis.codenarc.report.RuleSummary.RuleTotals;
+import lombok.Getter;
+import org.apache.maven.doxia.sink.Sink;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.ResourceBundle;
+
+class RuleSummaryTableRenderer implements TableRenderer<RuleTotals>, Localizable {
+
+    @Getter
+    private final List<String> headers;
+
+    RuleSummaryTableRenderer(Locale locale) {
+        ResourceBundle messages = getCodeNarcMessages(locale);
+        this.headers = List.of(
+                messages.getString("report.codenarc.rule_name"),
+                messages.getString("report.codenarc.priority"),
+                messages.getString("report.codenarc.total_violations"),
+                messages.getString("report.codenarc.files_with_violations"),
+                messages.getString("report.codenarc.packages_with_violations"));
+    }
+
+    @Override
+    public void renderCell(Sink sink, RuleTotals element, int index) {
+        switch (index) {
+            case 0:
+                sink.text(element.getName());
+                break;
+            case 1:
+                sink.text(String.valueOf(element.getPriority()));
+                break;
+            case 2:
+                sink.text(String.valueOf(element.getViolations()));
+                break;
+            case 3:
+                sink.text(String.valueOf(element.getFiles()));
+                break;
+            case 4:
+                sink.text(String.valueOf(element.getPackages()));
+                break;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package io.github.crizzis.codenarc.report;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The lines of a source file shown around its violations, read in a single sequential pass over the file.
+ * Only the requested lines are kept, so holding a source file costs as much as the lines shown from it,
+ * regardless of the size of the file. Lines are split on '\n', '\r' or "\r\n", as the Groovy compiler does,
+ * and bytes which are not valid in the encoding are replaced
+ */
+class SourceFile {
+
+    private final Map<Integer, String> lines;
+    private final int lineCount;
+
+    private SourceFile(Map<Integer, String> lines, int lineCount) {
+        this.lines = lines;
+        this.lineCount = lineCount;
+    }
+
+    /**
+     * @param lineNumbers the 1-based numbers of the lines to keep
+     * @throws IOException if the file cannot be read
+     */
+    static SourceFile read(Path path, Charset charset, BitSet lineNumbers) throws IOException {
+        Map<Integer, String> lines = new HashMap<>();
+        int lineCount = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(Files.newInputStream(path), charset))) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                lineCount++;
+                if (lineNumbers.get(lineCount)) {
+                    lines.put(lineCount, line);
+                }
+            }
+        }
+        return new SourceFile(lines, lineCount);
+    }
+
+    int getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * @param lineNumber the 1-based number of a line requested when the file was read
+     */
+    String getLine(int lineNumber) {
+        if (lineNumber < 1 || lineNumber > lineCount) {
+            throw new IndexOutOfBoundsException("Line " + lineNumber + " out of range 1.." + lineCount);
+        }
+        String line = lines.get(lineNumber);
+        if (line == null) {
+            throw new IllegalStateException("Line " + lineNumber + " has not been read");
+        }
+        return line;
+    }
+}
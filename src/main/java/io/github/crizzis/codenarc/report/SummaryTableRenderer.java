@@ -1,5 +1,6 @@
 package io.github.crizzis.codenarc.report;
 
+import io.github.crizzis.codenarc.parser.ResultsStatistics;
 import lombok.Getter;
 import org.apache.maven.doxia.sink.Sink;
 import org.codenarc.results.DirectoryResults;
@@ -14,11 +15,14 @@ class SummaryTableRenderer implements TableRenderer<DirectoryResults>, Localizab
     private static final int PRIORITY_TWO = 2;
     private static final int PRIORITY_THREE = 3;
 
+    private final ResultsStatistics statistics;
+
     @Getter
     private final List<String> headers;
 
-    SummaryTableRenderer(Locale locale) {
+    SummaryTableRenderer(Locale locale, ResultsStatistics statistics) {
         ResourceBundle messages = getCodeNarcMessages(locale);
+        this.statistics = statistics;
         this.headers = List.of(
                 messages.getString("report.codenarc.total_files"),
                 messages.getString("report.codenarc.files_with_violations"),
@@ -36,19 +40,17 @@ class SummaryTableRenderer implements TableRenderer<DirectoryResults>, Localizab
     public int getValue(DirectoryResults element, int index) {
         switch (index) {
             case 0:
-                return element.getTotalNumberOfFiles(false);
+                return statistics.getTotalNumberOfFiles(element, false);
             case 1:
-                return element.getNumberOfFilesWithViolations(PRIORITY_THREE);
+                return statistics.getNumberOfFilesWithViolations(element, true);
             case 2:
-                return (element.getNumberOfViolationsWithPriority(PRIORITY_ONE)
-                        + element.getNumberOfViolationsWithPriority(PRIORITY_TWO)
-                        + element.getNumberOfViolationsWithPriority(PRIORITY_THREE));
+                return statistics.getTotalNumberOfViolations(element, true);
             case 3:
-                return element.getNumberOfViolationsWithPriority(PRIORITY_ONE);
+                return statistics.getNumberOfViolationsWithPriority(element, PRIORITY_ONE, true);
             case 4:
-                return element.getNumberOfViolationsWithPriority(PRIORITY_TWO);
+                return statistics.getNumberOfViolationsWithPriority(element, PRIORITY_TWO, true);
             case 5:
-                return element.getNumberOfViolationsWithPriority(PRIORITY_THREE);
+                return statistics.getNumberOfViolationsWithPriority(element, PRIORITY_THREE, true);
             default:
                 throw new IllegalArgumentException("Invalid table cell index");
         }
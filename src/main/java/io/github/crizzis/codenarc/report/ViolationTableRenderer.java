@@ -10,10 +10,26 @@ import java.util.ResourceBundle;
 
 class ViolationTableRenderer implements TableRenderer<Violation>, Localizable {
 
+    private static final String VIOLATION_LINE_MARKER = ">";
+    private static final String CONTEXT_LINE_MARKER = " ";
+
+    private final SourceFile source;
+    private final int contextLines;
+
     @Getter
     private final List<String> headers;
 
     ViolationTableRenderer(Locale locale) {
+        this(locale, null, 0);
+    }
+
+    /**
+     * @param source the file the violations were found in, or {@code null} if only the source line of every violation should be shown
+     * @param contextLines the number of lines of {@code source} shown before and after the line of every violation
+     */
+    ViolationTableRenderer(Locale locale, SourceFile source, int contextLines) {
+        this.source = source;
+        this.contextLines = contextLines;
         ResourceBundle messages = getCodeNarcMessages(locale);
         this.headers = List.of(
                 messages.getString("report.codenarc.rule_name"),
@@ -35,15 +51,43 @@ class ViolationTableRenderer implements TableRenderer<Violation>, Localizable {
                 sink.text(String.valueOf(element.getLineNumber()));
                 break;
             case 3:
-                sink.paragraph();
-                sink.italic();
-                sink.text(element.getSourceLine());
-                sink.italic_();
-                sink.paragraph_();
+                if (hasSourceContext(element)) {
+                    sink.verbatim(null);
+                    sink.text(getSourceContext(element.getLineNumber()));
+                    sink.verbatim_();
+                } else {
+                    sink.paragraph();
+                    sink.italic();
+                    sink.text(element.getSourceLine());
+                    sink.italic_();
+                    sink.paragraph_();
+                }
                 sink.paragraph();
                 sink.text(element.getMessage());
                 sink.paragraph_();
                 break;
         }
     }
+
+    private boolean hasSourceContext(Violation element) {
+        return source != null && element.getLineNumber() != null
+                && element.getLineNumber() >= 1 && element.getLineNumber() <= source.getLineCount();
+    }
+
+    /**
+     * The lines around the line of a violation, each prefixed with its number, the line of the violation marked
+     */
+    private String getSourceContext(int lineNumber) {
+        int first = Math.max(1, lineNumber - contextLines);
+        int last = Math.min(source.getLineCount(), lineNumber + contextLines);
+        String lineFormat = "%" + String.valueOf(last).length() + "d%s %s";
+        StringBuilder context = new StringBuilder();
+        for (int line = first; line <= last; line++) {
+            if (line > first) {
+                context.append('\n');
+            }
+            context.append(String.format(lineFormat, line, line == lineNumber ? VIOLATION_LINE_MARKER : CONTEXT_LINE_MARKER, source.getLine(line)));
+        }
+        return context.toString();
+    }
 }
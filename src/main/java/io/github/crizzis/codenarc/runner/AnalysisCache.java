@@ -0,0 +1,246 @@
+package io.github.crizzis.codenarc.runner;
+
+import lombok.RequiredArgsConstructor;
+import org.codenarc.rule.StubRule;
+import org.codenarc.rule.Violation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * An on-disk cache of per-file analysis results, used for incremental analysis.
+ *
+ * Entries are keyed by the file path and validated against a hash of the file content. The whole cache
+ * is discarded when the rule set fingerprint it was created with differs from the current one.
+ * When the cache is saved, the entries of the files analyzed in the current run replace the previous ones,
+ * and the entries of the files skipped by the current run are kept, unless the files no longer exist
+ */
+@RequiredArgsConstructor
+class AnalysisCache {
+
+    private static final int FORMAT_VERSION = 1;
+    private static final String HASH_ALGORITHM = "SHA-256";
+
+    private final File cacheFile;
+    private final String ruleSetFingerprint;
+
+    private Map<String, CacheEntry> previousEntries = new HashMap<>();
+    private final Map<String, CacheEntry> currentEntries = new ConcurrentHashMap<>();
+
+    static AnalysisCache disabled() {
+        return new AnalysisCache(null, null);
+    }
+
+    boolean isEnabled() {
+        return cacheFile != null;
+    }
+
+    void load() {
+        currentEntries.clear();
+        previousEntries = isEnabled() && cacheFile.isFile() ? readEntries() : new HashMap<>();
+    }
+
+    List<Violation> computeIfAbsent(File file, Supplier<List<Violation>> analysis) {
+        if (!isEnabled()) {
+            return analysis.get();
+        }
+        String path = file.getAbsolutePath();
+        byte[] contentHash = hash(file);
+        CacheEntry cached = previousEntries.get(path);
+        if (cached != null && Arrays.equals(cached.contentHash, contentHash)) {
+            currentEntries.put(path, cached);
+            return cached.toViolations();
+        }
+        List<Violation> violations = analysis.get();
+        currentEntries.put(path, new CacheEntry(contentHash,
+                violations.stream().map(CachedViolation::of).toArray(CachedViolation[]::new)));
+        return violations;
+    }
+
+    /**
+     * Writes the cache to a temporary file first, so that an interrupted build leaves the previous cache intact
+     */
+    void save() {
+        if (!isEnabled()) {
+            return;
+        }
+        try {
+            Path directory = Files.createDirectories(cacheFile.getAbsoluteFile().getParentFile().toPath());
+            Path temporary = Files.createTempFile(directory, cacheFile.getName(), ".tmp");
+            try {
+                try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                    output.writeInt(FORMAT_VERSION);
+                    writeString(output, ruleSetFingerprint);
+                    Map<String, CacheEntry> entries = getRetainedEntries();
+                    output.writeInt(entries.size());
+                    for (Map.Entry<String, CacheEntry> entry : entries.entrySet()) {
+                        writeString(output, entry.getKey());
+                        entry.getValue().write(output);
+                    }
+                }
+                Files.move(temporary, cacheFile.toPath(), REPLACE_EXISTING, ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write the analysis cache: " + cacheFile, e);
+        }
+    }
+
+    /**
+     * Filtered runs (e.g. with {@code changedSince}) only analyze some of the files, so the entries of the other files
+     * are carried over for the next full run
+     */
+    private Map<String, CacheEntry> getRetainedEntries() {
+        Map<String, CacheEntry> entries = new HashMap<>(previousEntries.size() + currentEntries.size());
+        previousEntries.forEach((path, entry) -> {
+            if (new File(path).isFile()) {
+                entries.put(path, entry);
+            }
+        });
+        entries.putAll(currentEntries);
+        return entries;
+    }
+
+    private Map<String, CacheEntry> readEntries() {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile.toPath())))) {
+            if (input.readInt() != FORMAT_VERSION || !ruleSetFingerprint.equals(readString(input))) {
+                return new HashMap<>();
+            }
+            int size = input.readInt();
+            Map<String, CacheEntry> entries = new HashMap<>(size * 2);
+            for (int i = 0; i < size; i++) {
+                entries.put(readString(input), CacheEntry.read(input));
+            }
+            return entries;
+        } catch (IOException e) {
+            return new HashMap<>(); // a corrupt cache is equivalent to no cache at all
+        }
+    }
+
+    private static byte[] hash(File file) {
+        try {
+            return MessageDigest.getInstance(HASH_ALGORITHM).digest(Files.readAllBytes(file.toPath()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read source file: " + file, e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        if (value == null) {
+            output.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        int length = input.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    @RequiredArgsConstructor
+    private static class CacheEntry {
+
+        private final byte[] contentHash;
+        private final CachedViolation[] violations;
+
+        List<Violation> toViolations() {
+            List<Violation> result = new ArrayList<>(violations.length);
+            for (CachedViolation violation : violations) {
+                result.add(violation.toViolation());
+            }
+            return result;
+        }
+
+        void write(DataOutputStream output) throws IOException {
+            output.writeInt(contentHash.length);
+            output.write(contentHash);
+            output.writeInt(violations.length);
+            for (CachedViolation violation : violations) {
+                violation.write(output);
+            }
+        }
+
+        static CacheEntry read(DataInputStream input) throws IOException {
+            byte[] contentHash = new byte[input.readInt()];
+            input.readFully(contentHash);
+            CachedViolation[] violations = new CachedViolation[input.readInt()];
+            for (int i = 0; i < violations.length; i++) {
+                violations[i] = CachedViolation.read(input);
+            }
+            return new CacheEntry(contentHash, violations);
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class CachedViolation {
+
+        private final String ruleName;
+        private final int priority;
+        private final Integer lineNumber;
+        private final String sourceLine;
+        private final String message;
+
+        static CachedViolation of(Violation violation) {
+            return new CachedViolation(violation.getRule().getName(), violation.getRule().getPriority(),
+                    violation.getLineNumber(), violation.getSourceLine(), violation.getMessage());
+        }
+
+        Violation toViolation() {
+            StubRule rule = new StubRule(priority);
+            rule.setName(ruleName);
+            Violation violation = new Violation();
+            violation.setRule(rule);
+            violation.setLineNumber(lineNumber);
+            violation.setSourceLine(sourceLine);
+            violation.setMessage(message);
+            return violation;
+        }
+
+        void write(DataOutputStream output) throws IOException {
+            writeString(output, ruleName);
+            output.writeInt(priority);
+            output.writeInt(lineNumber == null ? -1 : lineNumber);
+            writeString(output, sourceLine);
+            writeString(output, message);
+        }
+
+        static CachedViolation read(DataInputStream input) throws IOException {
+            String ruleName = readString(input);
+            int priority = input.readInt();
+            int lineNumber = input.readInt();
+            return new CachedViolation(ruleName, priority, lineNumber < 0 ? null : lineNumber,
+                    readString(input), readString(input));
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package io.github.crizzis.codenarc.runner;
+
+import org.codenarc.rule.Violation;
+import org.codenarc.source.SourceCode;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+/**
+ * Limits the number of source files (and hence Groovy ASTs) held in memory at the same time.
+ *
+ * The AST of a file is only reachable from its {@link SharedAstSourceFile},
+ * which is discarded as soon as all the rules have been applied to it
+ */
+class AstBudget {
+
+    private final Semaphore liveAsts;
+    private final ParseStatistics statistics;
+
+    AstBudget(int maxLiveAsts, ParseStatistics statistics) {
+        this.liveAsts = new Semaphore(maxLiveAsts > 0 ? maxLiveAsts : Integer.MAX_VALUE);
+        this.statistics = statistics;
+    }
+
+    static AstBudget unbounded() {
+        return new AstBudget(0, new ParseStatistics());
+    }
+
+    ParseStatistics getStatistics() {
+        return statistics;
+    }
+
+    List<Violation> analyze(File file, Function<SourceCode, List<Violation>> analysis) {
+        acquire();
+        SharedAstSourceFile sourceFile = new SharedAstSourceFile(file, statistics);
+        try {
+            statistics.fileAnalyzed();
+            return analysis.apply(sourceFile);
+        } finally {
+            if (sourceFile.isParsed()) {
+                statistics.astReleased();
+            }
+            liveAsts.release();
+        }
+    }
+
+    private void acquire() {
+        try {
+            liveAsts.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("CodeNarc analysis interrupted", e);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package io.github.crizzis.codenarc.runner;
+
+import lombok.RequiredArgsConstructor;
+import org.codenarc.CodeNarcRunner;
+import org.codenarc.ruleset.CompositeRuleSet;
+import org.codenarc.ruleset.PropertiesFileRuleSetConfigurer;
+import org.codenarc.ruleset.RuleSet;
+
+/**
+ * A {@link CodeNarcRunner} that obtains its rule sets from a {@link RuleSetCache} rather than loading them anew.
+ * Otherwise equivalent to {@link CodeNarcRunner#createRuleSet()}, including skipping blank rule set paths.
+ *
+ * The cached rule set definitions are shared by all the runners (of parallel module builds, or of concurrent daemon requests),
+ * so every runner creates and configures its own rule instances from them
+ */
+@RequiredArgsConstructor
+class CachingCodeNarcRunner extends CodeNarcRunner {
+
+    private final RuleSetCache ruleSetCache;
+
+    @Override
+    protected RuleSet createRuleSet() {
+        CompositeRuleSet ruleSet = new CompositeRuleSet();
+        for (String path : getRuleSetFiles().split(",")) {
+            if (!path.isBlank()) {
+                ruleSet.addRuleSet(ruleSetCache.load(path.trim()).newRuleSet());
+            }
+        }
+        new PropertiesFileRuleSetConfigurer().configure(ruleSet);
+        return ruleSet;
+    }
+}
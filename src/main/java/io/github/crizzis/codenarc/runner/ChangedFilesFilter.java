@@ -0,0 +1,26 @@
+package io.github.crizzis.codenarc.runner;
+
+import lombok.RequiredArgsConstructor;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Accepts only the source files contained in a given set of (canonical) files
+ */
+@RequiredArgsConstructor
+class ChangedFilesFilter implements Predicate<File> {
+
+    private final Set<File> changedFiles;
+
+    @Override
+    public boolean test(File file) {
+        try {
+            return changedFiles.contains(file.getCanonicalFile());
+        } catch (IOException e) {
+            return changedFiles.contains(file.getAbsoluteFile());
+        }
+    }
+}
@@ -8,6 +8,7 @@ import org.apache.maven.model.FileSet;
 
 import java.io.File;
 import java.util.List;
+import java.util.Set;
 
 @Getter
 @Setter
@@ -16,8 +17,15 @@ import java.util.List;
 public class CodeNarcConfig {
 
     private final String projectName;
+    private final File baseDirectory;
     private final List<FileSet> fileSets;
     private final File outputFile;
     private final boolean generateXmlReport;
     private final List<String> ruleSets;
+    private final int threads;
+    private final File cacheFile;
+    private final int maxLiveAsts;
+    private final ParseStatistics parseStatistics;
+    private final Set<File> changedFiles;
+    private final ViolationThresholds failFastThresholds;
 }
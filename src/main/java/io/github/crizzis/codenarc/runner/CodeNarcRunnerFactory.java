@@ -1,36 +1,61 @@
 package io.github.crizzis.codenarc.runner;
 
 import org.codenarc.CodeNarcRunner;
-import org.codenarc.report.XmlReportWriter;
 
 import javax.inject.Named;
 import javax.inject.Singleton;
 import java.util.List;
+import java.util.Optional;
 
 /**
- * Configures a {@link org.codenarc.CodeNarcRunner} used for running the {@code verify} goal
+ * Configures a {@link org.codenarc.CodeNarcRunner} used for running the {@code verify} goal.
+ * Loaded rule sets are shared between all the runners created by the factory
  */
 @Named
 @Singleton
 public class CodeNarcRunnerFactory {
 
+    private static final String COMPRESSED_EXTENSION = ".gz";
+
+    private final RuleSetCache ruleSetCache = new RuleSetCache();
+
     public CodeNarcRunner newCodeNarcRunner(CodeNarcConfig config) {
-        CodeNarcRunner runner = new CodeNarcRunner();
+        CodeNarcRunner runner = new CachingCodeNarcRunner(ruleSetCache);
         runner.setRuleSetFiles(joinedRuleSets(config));
         if (config.isGenerateXmlReport()) {
             configureXmlOutput(config, runner);
         }
-        runner.setSourceAnalyzer(new FileSetSourceAnalyzer(config.getFileSets()));
+        FileSetSourceAnalyzer sourceAnalyzer = new FileSetSourceAnalyzer(config.getFileSets(), config.getThreads(),
+                createAnalysisCache(config), createAstBudget(config));
+        if (config.getChangedFiles() != null) {
+            sourceAnalyzer.setSourceFilter(new ChangedFilesFilter(config.getChangedFiles()));
+        }
+        sourceAnalyzer.setFailFastThresholds(config.getFailFastThresholds());
+        runner.setSourceAnalyzer(sourceAnalyzer);
         return runner;
     }
 
     private void configureXmlOutput(CodeNarcConfig config, CodeNarcRunner runner) {
-        XmlReportWriter xmlReportWriter = new XmlReportWriter();
+        StreamingXmlReportWriter xmlReportWriter = new StreamingXmlReportWriter();
         xmlReportWriter.setTitle(config.getProjectName());
         xmlReportWriter.setOutputFile(config.getOutputFile().getAbsolutePath());
+        xmlReportWriter.setCompressed(config.getOutputFile().getName().endsWith(COMPRESSED_EXTENSION));
+        xmlReportWriter.setWriteSidecar(true);
         runner.setReportWriters(List.of(xmlReportWriter));
     }
 
+    private AnalysisCache createAnalysisCache(CodeNarcConfig config) {
+        if (config.getCacheFile() == null) {
+            return AnalysisCache.disabled();
+        }
+        return new AnalysisCache(config.getCacheFile(), RuleSetFingerprint.of(config.getRuleSets()));
+    }
+
+    private AstBudget createAstBudget(CodeNarcConfig config) {
+        ParseStatistics statistics = Optional.ofNullable(config.getParseStatistics()).orElseGet(ParseStatistics::new);
+        return new AstBudget(config.getMaxLiveAsts(), statistics);
+    }
+
     private String joinedRuleSets(CodeNarcConfig config) {
         return String.join(",", config.getRuleSets());
     }
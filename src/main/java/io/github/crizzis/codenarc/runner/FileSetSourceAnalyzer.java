@@ -2,20 +2,43 @@ package io.github.crizzis.codenarc.runner;
 
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import org.apache.maven.model.FileSet;
 import org.codenarc.analyzer.AbstractSourceAnalyzer;
 import org.codenarc.analyzer.FilesystemSourceAnalyzer;
 import org.codenarc.results.DirectoryResults;
+import org.codenarc.results.FileResults;
 import org.codenarc.results.Results;
+import org.codenarc.rule.Rule;
+import org.codenarc.rule.Violation;
 import org.codenarc.ruleset.RuleSet;
+import org.codenarc.source.SourceCode;
+import org.codenarc.source.SourceFile;
+import org.codenarc.util.PathUtil;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
-import java.util.stream.Collector;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 /**
- * A composite-style analyzer that supports multiple {@link FileSet}s
- * by using multiple {@link FilesystemSourceAnalyzer}s
+ * A composite-style analyzer that supports multiple {@link FileSet}s.
+ *
+ * The file sets are scanned up front (in file name order), the matching files are then analyzed individually
+ * on a work-stealing pool, and the {@link DirectoryResults} tree is assembled in scan order afterwards,
+ * so that the results do not depend on the number of threads used.
+ * Files whose content has not changed since the previous run are not re-analyzed if an {@link AnalysisCache} is enabled.
+ * Each file is parsed once, with the number of files in flight bounded by the {@link AstBudget}.
+ * In fail-fast mode, the files remaining after a violation threshold has been exceeded are skipped
+ * and a {@link ThresholdExceededException} is thrown
  */
 @RequiredArgsConstructor
 class FileSetSourceAnalyzer extends AbstractSourceAnalyzer {
@@ -23,23 +46,107 @@ class FileSetSourceAnalyzer extends AbstractSourceAnalyzer {
     @NonNull
     private final List<FileSet> fileSets;
 
+    private final int threads;
+
+    @NonNull
+    private final AnalysisCache analysisCache;
+
+    @NonNull
+    private final AstBudget astBudget;
+
+    @Setter
+    private Predicate<File> sourceFilter = file -> true;
+
+    /**
+     * If set, the analysis is aborted as soon as any of the thresholds is exceeded
+     */
+    @Setter
+    private ViolationThresholds failFastThresholds;
+
     @Override
-    @SuppressWarnings("unchecked")
     public Results analyze(RuleSet ruleSet) {
-        return fileSets.stream()
-                .map(fileSet -> analyze(fileSet, ruleSet))
-                .collect(Collector.of(DirectoryResults::new, DirectoryResults::addChild, (left, right) -> {
-                    ((List<Results>) right.getChildren()).forEach(left::addChild);
-                    return left;
-                }));
+        astBudget.getStatistics().setLatePhaseRules(findLatePhaseRules(ruleSet));
+        List<SourceDirectory> sourceRoots = fileSets.stream()
+                .map(fileSet -> SourceDirectory.scan(fileSet, sourceFilter))
+                .collect(Collectors.toList());
+        List<File> sourceFiles = new ArrayList<>();
+        sourceRoots.forEach(sourceRoot -> sourceRoot.collectFiles(sourceFiles));
+        analysisCache.load();
+        List<Optional<List<Violation>>> fileViolations = analyzeAll(sourceFiles, ruleSet);
+        if (failFastThresholds != null && failFastThresholds.isExceeded()) {
+            int priority = failFastThresholds.getExceededPriority();
+            throw new ThresholdExceededException(priority, failFastThresholds.getThreshold(priority),
+                    failFastThresholds.getCount(priority), countNotAnalyzed(fileViolations));
+        }
+        analysisCache.save();
+        Iterator<Optional<List<Violation>>> violations = fileViolations.iterator();
+        DirectoryResults results = new DirectoryResults();
+        sourceRoots.forEach(sourceRoot -> results.addChild(sourceRoot.toResults(violations)));
+        return results;
     }
 
-    private Results analyze(FileSet fileSet, RuleSet ruleSet) {
-        FilesystemSourceAnalyzer analyzer = new FilesystemSourceAnalyzer();
-        analyzer.setBaseDirectory(fileSet.getDirectory());
-        analyzer.setIncludes(String.join(",", fileSet.getIncludes()));
-        analyzer.setExcludes(String.join(",", fileSet.getExcludes()));
-        return (Results) analyzer.analyze(ruleSet).getChildren().get(0);
+    private List<Optional<List<Violation>>> analyzeAll(List<File> sourceFiles, RuleSet ruleSet) {
+        if (getEffectiveThreads() == 1) {
+            return sourceFiles.stream()
+                    .map(file -> analyze(file, ruleSet))
+                    .collect(Collectors.toList());
+        }
+        ForkJoinPool pool = newPool();
+        try {
+            return pool.submit(() -> sourceFiles.parallelStream()
+                    .map(file -> analyze(file, ruleSet))
+                    .collect(Collectors.toList())).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("CodeNarc analysis interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("CodeNarc analysis failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * @return the violations found in the file, or nothing if the file was skipped because a fail-fast threshold had been exceeded
+     */
+    @SuppressWarnings("unchecked")
+    private Optional<List<Violation>> analyze(File file, RuleSet ruleSet) {
+        if (failFastThresholds != null && failFastThresholds.isExceeded()) {
+            return Optional.empty();
+        }
+        List<Violation> violations = analysisCache.computeIfAbsent(file,
+                () -> astBudget.analyze(file, sourceFile -> collectViolations(sourceFile, ruleSet)));
+        if (failFastThresholds != null) {
+            failFastThresholds.record(violations);
+        }
+        return Optional.of(violations);
+    }
+
+    private static int countNotAnalyzed(List<Optional<List<Violation>>> fileViolations) {
+        return (int) fileViolations.stream()
+                .filter(Optional::isEmpty)
+                .count();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> findLatePhaseRules(RuleSet ruleSet) {
+        return ((List<Rule>) ruleSet.getRules()).stream()
+                .filter(rule -> rule.getCompilerPhase() != SourceCode.DEFAULT_COMPILER_PHASE)
+                .map(Rule::getName)
+                .collect(Collectors.toList());
+    }
+
+    private ForkJoinPool newPool() {
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        return new ForkJoinPool(getEffectiveThreads(), pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setContextClassLoader(contextClassLoader);
+            return thread;
+        }, null, false);
+    }
+
+    private int getEffectiveThreads() {
+        return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
     }
 
     @Override
@@ -48,4 +155,87 @@ class FileSetSourceAnalyzer extends AbstractSourceAnalyzer {
                 .map(FileSet::getDirectory)
                 .collect(Collectors.toList());
     }
+
+    /**
+     * Mirrors the directory structure produced by {@link FilesystemSourceAnalyzer},
+     * without performing any analysis while scanning
+     */
+    @RequiredArgsConstructor
+    private static class SourceDirectory {
+
+        private static final String SEPARATOR = "/";
+
+        private final String path;
+        private final List<Object> entries = new ArrayList<>();
+        private int numberOfFiles;
+
+        static SourceDirectory scan(FileSet fileSet, Predicate<File> sourceFilter) {
+            FileSetMatcher matcher = new FileSetMatcher(fileSet);
+            return scan(file -> matcher.matches(file) && sourceFilter.test(file), matcher.getBaseDirectory(), "");
+        }
+
+        private static SourceDirectory scan(Predicate<File> matcher, String baseDirectory, String path) {
+            SourceDirectory directory = new SourceDirectory(path);
+            File[] children = Optional.ofNullable(new File(baseDirectory, path).listFiles()).orElse(new File[0]);
+            Arrays.sort(children, Comparator.comparing(File::getName));
+            for (File child : children) {
+                String childPath = path.isEmpty() ? child.getName() : path + SEPARATOR + child.getName();
+                if (child.isDirectory()) {
+                    SourceDirectory subdirectory = scan(matcher, baseDirectory, childPath);
+                    if (!subdirectory.entries.isEmpty()) {
+                        directory.entries.add(subdirectory);
+                    }
+                } else if (matcher.test(child)) {
+                    directory.entries.add(child);
+                    directory.numberOfFiles++;
+                }
+            }
+            return directory;
+        }
+
+        void collectFiles(List<File> target) {
+            entries.forEach(entry -> {
+                if (entry instanceof File) {
+                    target.add((File) entry);
+                } else {
+                    ((SourceDirectory) entry).collectFiles(target);
+                }
+            });
+        }
+
+        /**
+         * Only called once every file has been analyzed
+         */
+        DirectoryResults toResults(Iterator<Optional<List<Violation>>> violations) {
+            DirectoryResults results = new DirectoryResults(path, numberOfFiles);
+            entries.forEach(entry -> {
+                if (entry instanceof File) {
+                    List<Violation> fileViolations = violations.next().orElseThrow();
+                    if (!fileViolations.isEmpty()) {
+                        results.addChild(new FileResults(PathUtil.normalizePath(((File) entry).getPath()), fileViolations));
+                    }
+                } else {
+                    results.addChild(((SourceDirectory) entry).toResults(violations));
+                }
+            });
+            return results;
+        }
+    }
+
+    /**
+     * Reuses the include/exclude semantics of {@link FilesystemSourceAnalyzer}
+     */
+    private static class FileSetMatcher extends FilesystemSourceAnalyzer {
+
+        FileSetMatcher(FileSet fileSet) {
+            setBaseDirectory(fileSet.getDirectory());
+            setIncludes(String.join(",", fileSet.getIncludes()));
+            setExcludes(String.join(",", fileSet.getExcludes()));
+            initializeWildcardPatterns();
+        }
+
+        boolean matches(File file) {
+            return matches(new SourceFile(file));
+        }
+    }
 }
@@ -0,0 +1,63 @@
+package io.github.crizzis.codenarc.runner;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records how many Groovy ASTs were created during an analysis.
+ *
+ * Every analyzed file is parsed exactly once, and the resulting AST is shared by all the rules
+ * using the default compiler phase. Rules requiring a later compiler phase
+ * (see {@link ParseStatistics#getLatePhaseRules()}) make CodeNarc parse the file once more per distinct phase
+ */
+public class ParseStatistics {
+
+    private final AtomicInteger filesAnalyzed = new AtomicInteger();
+    private final AtomicInteger astsParsed = new AtomicInteger();
+    private final AtomicInteger liveAsts = new AtomicInteger();
+    private final AtomicInteger peakLiveAsts = new AtomicInteger();
+    private volatile List<String> latePhaseRules = List.of();
+
+    public int getFilesAnalyzed() {
+        return filesAnalyzed.get();
+    }
+
+    public int getAstsParsed() {
+        return astsParsed.get();
+    }
+
+    public int getPeakLiveAsts() {
+        return peakLiveAsts.get();
+    }
+
+    public List<String> getLatePhaseRules() {
+        return latePhaseRules;
+    }
+
+    /**
+     * Adds the statistics of an analysis performed elsewhere (e.g. by an analysis daemon)
+     */
+    public void merge(int filesAnalyzed, int astsParsed, int peakLiveAsts, List<String> latePhaseRules) {
+        this.filesAnalyzed.addAndGet(filesAnalyzed);
+        this.astsParsed.addAndGet(astsParsed);
+        this.peakLiveAsts.accumulateAndGet(peakLiveAsts, Math::max);
+        setLatePhaseRules(latePhaseRules);
+    }
+
+    void fileAnalyzed() {
+        filesAnalyzed.incrementAndGet();
+    }
+
+    void astParsed() {
+        astsParsed.incrementAndGet();
+        peakLiveAsts.accumulateAndGet(liveAsts.incrementAndGet(), Math::max);
+    }
+
+    void astReleased() {
+        liveAsts.decrementAndGet();
+    }
+
+    void setLatePhaseRules(List<String> latePhaseRules) {
+        this.latePhaseRules = List.copyOf(latePhaseRules);
+    }
+}
@@ -0,0 +1,61 @@
+package io.github.crizzis.codenarc.runner;
+
+import lombok.Value;
+import org.codenarc.CodeNarcRunner;
+import org.codenarc.ruleset.RuleSetUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the definitions of the rule sets loaded by CodeNarc for the lifetime of the plugin (i.e. for the whole Maven session),
+ * so that modules sharing the same rule sets do not load and compile them again.
+ *
+ * Entries are keyed by the resolved rule set URL and its last modification time,
+ * so that a rule set file modified in the middle of the build is reloaded
+ */
+class RuleSetCache {
+
+    private final Map<Key, RuleSetDefinition> ruleSets = new ConcurrentHashMap<>();
+
+    RuleSetDefinition load(String path) {
+        return ruleSets.computeIfAbsent(Key.of(path), key -> RuleSetDefinition.of(RuleSetUtil.loadRuleSetFile(path)));
+    }
+
+    @Value
+    private static class Key {
+
+        String url;
+        long lastModified;
+
+        static Key of(String path) {
+            Optional<URL> url = resolve(path);
+            return new Key(url.map(URL::toExternalForm).orElse(path), url.map(Key::lastModified).orElse(0L));
+        }
+
+        private static Optional<URL> resolve(String path) {
+            try {
+                return Optional.of(new URL(path));
+            } catch (MalformedURLException e) {
+                return Optional.ofNullable(CodeNarcRunner.class.getClassLoader().getResource(path));
+            }
+        }
+
+        private static long lastModified(URL url) {
+            try {
+                if ("file".equals(url.getProtocol())) {
+                    return new File(url.toURI()).lastModified();
+                }
+                return url.openConnection().getLastModified();
+            } catch (IOException | URISyntaxException e) {
+                return 0L;
+            }
+        }
+    }
+}
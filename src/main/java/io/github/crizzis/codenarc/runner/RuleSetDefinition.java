@@ -0,0 +1,97 @@
+package io.github.crizzis.codenarc.runner;
+
+import groovy.lang.MetaBeanProperty;
+import groovy.lang.MetaProperty;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import org.codehaus.groovy.runtime.InvokerHelper;
+import org.codenarc.rule.Rule;
+import org.codenarc.ruleset.ListRuleSet;
+import org.codenarc.ruleset.RuleSet;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The rules of a loaded rule set, each recorded as its class and the properties the rule set overrides.
+ *
+ * Rules may keep state while applied to the sources, so they are never shared: every runner creates fresh instances
+ * from the definition, the same way CodeNarc itself creates them when loading a rule set, i.e. through the no-arg
+ * constructor followed by setting the overridden properties
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+class RuleSetDefinition {
+
+    private final List<RuleDefinition> rules;
+
+    @SuppressWarnings("unchecked")
+    static RuleSetDefinition of(RuleSet ruleSet) {
+        List<RuleDefinition> rules = new ArrayList<>();
+        for (Rule rule : (List<Rule>) ruleSet.getRules()) {
+            rules.add(RuleDefinition.of(rule));
+        }
+        return new RuleSetDefinition(List.copyOf(rules));
+    }
+
+    List<RuleDefinition> getRules() {
+        return rules;
+    }
+
+    RuleSet newRuleSet() {
+        List<Rule> newRules = new ArrayList<>();
+        for (RuleDefinition rule : rules) {
+            newRules.add(rule.newRule());
+        }
+        return new ListRuleSet(newRules);
+    }
+
+    @Value
+    static class RuleDefinition {
+
+        Class<? extends Rule> ruleClass;
+        Map<String, Object> properties;
+
+        /**
+         * @return the class of the rule, along with the writable properties whose values differ from those of a new instance
+         */
+        static RuleDefinition of(Rule rule) {
+            Rule defaults = newInstance(rule.getClass());
+            Map<String, Object> properties = new LinkedHashMap<>();
+            for (MetaProperty property : InvokerHelper.getMetaClass(rule).getProperties()) {
+                if (isReadWrite(property)) {
+                    Object value = property.getProperty(rule);
+                    if (!Objects.equals(value, property.getProperty(defaults))) {
+                        properties.put(property.getName(), value);
+                    }
+                }
+            }
+            return new RuleDefinition(rule.getClass(), properties);
+        }
+
+        Rule newRule() {
+            Rule rule = newInstance(ruleClass);
+            properties.forEach((name, value) -> InvokerHelper.setProperty(rule, name, value));
+            return rule;
+        }
+
+        private static boolean isReadWrite(MetaProperty property) {
+            if (!(property instanceof MetaBeanProperty) || "metaClass".equals(property.getName())) {
+                return false;
+            }
+            MetaBeanProperty beanProperty = (MetaBeanProperty) property;
+            return beanProperty.getGetter() != null && beanProperty.getSetter() != null;
+        }
+
+        private static Rule newInstance(Class<? extends Rule> ruleClass) {
+            try {
+                return ruleClass.getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Could not instantiate the rule class: " + ruleClass.getName(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package io.github.crizzis.codenarc.runner;
+
+import lombok.experimental.UtilityClass;
+import org.codenarc.CodeNarcRunner;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Optional;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Computes a fingerprint of everything that influences the violations reported for a given source file:
+ * the CodeNarc version, the contents of the rule set files and the {@code codenarc.properties} overrides
+ */
+@UtilityClass
+class RuleSetFingerprint {
+
+    private static final String CODENARC_VERSION_RESOURCE = "codenarc-version.txt";
+    private static final String CODENARC_PROPERTIES_RESOURCE = "codenarc.properties";
+
+    String of(List<String> ruleSets) {
+        MessageDigest digest = newDigest();
+        update(digest, CODENARC_VERSION_RESOURCE);
+        update(digest, CODENARC_PROPERTIES_RESOURCE);
+        ruleSets.forEach(ruleSet -> update(digest, ruleSet));
+        StringBuilder fingerprint = new StringBuilder();
+        for (byte b : digest.digest()) {
+            fingerprint.append(String.format("%02x", b));
+        }
+        return fingerprint.toString();
+    }
+
+    private void update(MessageDigest digest, String resource) {
+        digest.update(resource.getBytes(UTF_8));
+        try (InputStream content = open(resource)) {
+            if (content != null) {
+                digest.update(content.readAllBytes());
+            }
+        } catch (IOException e) {
+            digest.update((byte) 0); // unreadable rule sets will fail the analysis anyway
+        }
+    }
+
+    private InputStream open(String resource) throws IOException {
+        Optional<URL> url = toUrl(resource);
+        if (url.isPresent()) {
+            return url.get().openStream();
+        }
+        return CodeNarcRunner.class.getClassLoader().getResourceAsStream(resource);
+    }
+
+    private Optional<URL> toUrl(String resource) {
+        try {
+            return Optional.of(new URL(resource));
+        } catch (MalformedURLException e) {
+            return Optional.empty();
+        }
+    }
+
+    private MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
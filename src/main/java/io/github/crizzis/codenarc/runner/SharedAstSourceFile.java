@@ -0,0 +1,35 @@
+package io.github.crizzis.codenarc.runner;
+
+import org.codehaus.groovy.ast.ModuleNode;
+import org.codenarc.source.SourceFile;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A {@link SourceFile} reporting the moment its AST gets parsed.
+ * {@link org.codenarc.source.AbstractSourceCode} parses the source at most once,
+ * so all the rules applied to the same instance share a single AST
+ */
+class SharedAstSourceFile extends SourceFile {
+
+    private final ParseStatistics statistics;
+    private final AtomicBoolean parsed = new AtomicBoolean();
+
+    SharedAstSourceFile(File file, ParseStatistics statistics) {
+        super(file);
+        this.statistics = statistics;
+    }
+
+    @Override
+    public ModuleNode getAst() {
+        if (parsed.compareAndSet(false, true)) {
+            statistics.astParsed();
+        }
+        return super.getAst();
+    }
+
+    boolean isParsed() {
+        return parsed.get();
+    }
+}
@@ -0,0 +1,130 @@
+package io.github.crizzis.codenarc.runner;
+
+import io.github.crizzis.codenarc.parser.CodeNarcAnalysis;
+import io.github.crizzis.codenarc.parser.CodeNarcSidecar;
+import io.github.crizzis.codenarc.parser.CodeNarcXmlElementWriter;
+import io.github.crizzis.codenarc.parser.ResultsStatistics;
+import lombok.Getter;
+import lombok.Setter;
+import org.codenarc.AnalysisContext;
+import org.codenarc.report.AbstractReportWriter;
+import org.codenarc.results.FileResults;
+import org.codenarc.results.Results;
+import org.codenarc.rule.Rule;
+import org.codenarc.util.PathUtil;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Writes the same document as {@link org.codenarc.report.XmlReportWriter}, but streams the elements
+ * straight to a buffered UTF-8 writer while walking the {@link Results} tree,
+ * instead of building the whole document in memory first.
+ * Optionally compresses the report file with gzip, and writes a {@link CodeNarcSidecar} next to the report file
+ */
+@Getter
+@Setter
+class StreamingXmlReportWriter extends AbstractReportWriter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private String title;
+    private String defaultOutputFile = "CodeNarcXmlReport.xml";
+    private boolean writeSidecar;
+    private boolean compressed;
+
+    @Override
+    public void writeReport(AnalysisContext analysisContext, Results results) {
+        File outputFile = new File(getOutputFile() != null ? getOutputFile() : defaultOutputFile);
+        String timestamp = getFormattedTimestamp();
+        try {
+            File parent = outputFile.getAbsoluteFile().getParentFile();
+            Files.createDirectories(parent.toPath());
+            MessageDigest digest = CodeNarcSidecar.newReportDigest();
+            OutputStream output = new DigestOutputStream(Files.newOutputStream(outputFile.toPath()), digest);
+            if (compressed) {
+                output = new GZIPOutputStream(output, BUFFER_SIZE);
+            }
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(output, UTF_8), BUFFER_SIZE)) {
+                writeReport(writer, analysisContext, results, timestamp);
+            }
+            if (writeSidecar) {
+                CodeNarcSidecar.write(outputFile, digest.digest(), analysis(analysisContext, results, timestamp));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write the CodeNarc report: " + outputFile, e);
+        }
+    }
+
+    @Override
+    public void writeReport(Writer writer, AnalysisContext analysisContext, Results results) {
+        writeReport(writer, analysisContext, results, getFormattedTimestamp());
+    }
+
+    @SuppressWarnings("unchecked")
+    private CodeNarcAnalysis analysis(AnalysisContext analysisContext, Results results, String timestamp) {
+        CodeNarcAnalysis analysis = new CodeNarcAnalysis();
+        analysis.setCodeNarcVersion(getCodeNarcVersion());
+        analysis.setProjectTitle(title);
+        analysis.setReportTimestamp(timestamp);
+        ((List<String>) analysisContext.getSourceDirectories()).forEach(analysis::addSourceDirectory);
+        analysis.setResults(results);
+        return analysis;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeReport(Writer writer, AnalysisContext analysisContext, Results results, String timestamp) {
+        initializeResourceBundle.call();
+        try {
+            CodeNarcXmlElementWriter elements = new CodeNarcXmlElementWriter(XMLOutputFactory.newFactory().createXMLStreamWriter(writer));
+            elements.writeStartCodeNarc(CODENARC_URL, getCodeNarcVersion());
+            elements.writeReport(timestamp);
+            elements.writeProject(title, (List<String>) analysisContext.getSourceDirectories());
+            writePackageElement(elements, results, ResultsStatistics.of(results));
+            writeRulesElement(elements, analysisContext);
+            elements.writeEndCodeNarc();
+        } catch (XMLStreamException e) {
+            throw new IllegalStateException("Could not write the CodeNarc report", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writePackageElement(CodeNarcXmlElementWriter elements, Results results, ResultsStatistics statistics) throws XMLStreamException {
+        elements.writeStartPackage(results.getPath(), statistics.getTotals(results));
+        List<Results> children = results.getChildren();
+        for (Results child : children) {
+            if (child.isFile()) {
+                elements.writeFile(PathUtil.getName(child.getPath()), ((FileResults) child).getViolations());
+            }
+        }
+        elements.writeEndPackage();
+        for (Results child : children) {
+            if (!child.isFile()) {
+                writePackageElement(elements, child, statistics);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeRulesElement(CodeNarcXmlElementWriter elements, AnalysisContext analysisContext) throws XMLStreamException {
+        elements.writeStartRules();
+        for (Rule rule : (List<Rule>) getSortedRules(analysisContext)) {
+            elements.writeRule(rule.getName(), getDescriptionForRule(rule));
+        }
+        elements.writeEndRules();
+    }
+}
@@ -0,0 +1,24 @@
+package io.github.crizzis.codenarc.runner;
+
+import lombok.Getter;
+
+/**
+ * Thrown when a fail-fast analysis has been aborted because a violation threshold was exceeded
+ */
+@Getter
+public class ThresholdExceededException extends RuntimeException {
+
+    private final int priority;
+    private final int threshold;
+    private final int violations;
+    private final int unanalyzedFiles;
+
+    public ThresholdExceededException(int priority, int threshold, int violations, int unanalyzedFiles) {
+        super(String.format("totalPriority%dViolations exceeded threshold of %d errors with %d "
+                + "(analysis aborted, %d files were not analyzed)", priority, threshold, violations, unanalyzedFiles));
+        this.priority = priority;
+        this.threshold = threshold;
+        this.violations = violations;
+        this.unanalyzedFiles = unanalyzedFiles;
+    }
+}
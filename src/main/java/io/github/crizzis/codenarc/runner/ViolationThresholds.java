@@ -0,0 +1,57 @@
+package io.github.crizzis.codenarc.runner;
+
+import org.codenarc.rule.Violation;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Keeps live per-priority violation counts during an analysis, and detects the moment any of the thresholds is exceeded.
+ * A negative threshold means the number of violations of the given priority is not limited
+ */
+public class ViolationThresholds {
+
+    private static final int PRIORITIES = 3;
+
+    private final int[] thresholds;
+    private final AtomicIntegerArray counts = new AtomicIntegerArray(PRIORITIES);
+    private volatile int exceededPriority;
+
+    public ViolationThresholds(int maxPriority1Violations, int maxPriority2Violations, int maxPriority3Violations) {
+        this.thresholds = new int[] {maxPriority1Violations, maxPriority2Violations, maxPriority3Violations};
+    }
+
+    /**
+     * @return {@code true} if any threshold has been exceeded, including by violations recorded earlier
+     */
+    boolean record(List<Violation> violations) {
+        for (Violation violation : violations) {
+            int priority = violation.getRule().getPriority();
+            if (priority < 1 || priority > PRIORITIES) {
+                continue;
+            }
+            int count = counts.incrementAndGet(priority - 1);
+            int threshold = thresholds[priority - 1];
+            if (threshold >= 0 && count > threshold && exceededPriority == 0) {
+                exceededPriority = priority;
+            }
+        }
+        return isExceeded();
+    }
+
+    boolean isExceeded() {
+        return exceededPriority != 0;
+    }
+
+    int getExceededPriority() {
+        return exceededPriority;
+    }
+
+    public int getThreshold(int priority) {
+        return thresholds[priority - 1];
+    }
+
+    int getCount(int priority) {
+        return counts.get(priority - 1);
+    }
+}
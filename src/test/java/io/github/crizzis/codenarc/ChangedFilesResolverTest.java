@@ -0,0 +1,98 @@
+package io.github.crizzis.codenarc;
+
+import io.github.crizzis.codenarc.util.Phrasify;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayNameGeneration(Phrasify.class)
+class ChangedFilesResolverTest {
+
+    @TempDir
+    Path repository;
+
+    @BeforeEach
+    void setup() throws Exception {
+        git("init", "-q");
+        write("src/main/groovy/Unchanged.groovy", "class Unchanged {}");
+        write("src/main/groovy/Modified.groovy", "class Modified {}");
+        write("src/main/groovy/Deleted.groovy", "class Deleted {}");
+        commit("initial");
+        git("tag", "base");
+    }
+
+    @Test
+    void resolveChangedFiles_shouldIncludeCommittedUncommittedAndUntrackedChanges() throws Exception {
+        //given
+        write("src/main/groovy/Committed.groovy", "class Committed {}");
+        commit("second");
+        write("src/main/groovy/Modified.groovy", "class Modified { int x }");
+        write("src/main/groovy/Untracked.groovy", "class Untracked {}");
+        Files.delete(repository.resolve("src/main/groovy/Deleted.groovy"));
+
+        //when
+        Set<File> changedFiles = new ChangedFilesResolver(repository.resolve("src").toFile()).resolveChangedFiles("base");
+
+        //then
+        assertThat(changedFiles, containsInAnyOrder(
+                file("src/main/groovy/Committed.groovy"),
+                file("src/main/groovy/Modified.groovy"),
+                file("src/main/groovy/Untracked.groovy")));
+    }
+
+    @Test
+    void resolveChangedFiles_shouldReturnNoFiles_whenNothingChanged() throws Exception {
+        //when
+        Set<File> changedFiles = new ChangedFilesResolver(repository.toFile()).resolveChangedFiles("base");
+
+        //then
+        assertThat(changedFiles, empty());
+    }
+
+    @Test
+    void resolveChangedFiles_shouldThrow_whenRevisionDoesNotExist() {
+        //given
+        ChangedFilesResolver resolver = new ChangedFilesResolver(repository.toFile());
+
+        //when / then
+        assertThrows(MojoExecutionException.class, () -> resolver.resolveChangedFiles("no-such-revision"));
+    }
+
+    private File file(String path) throws Exception {
+        return repository.resolve(path).toFile().getCanonicalFile();
+    }
+
+    private void write(String path, String content) throws Exception {
+        Path file = repository.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+
+    private void commit(String message) throws Exception {
+        git("add", "-A");
+        git("-c", "user.name=test", "-c", "user.email=test@example.com", "commit", "-q", "-m", message);
+    }
+
+    private void git(String... arguments) throws Exception {
+        List<String> command = new ArrayList<>(List.of("git"));
+        command.addAll(List.of(arguments));
+        Process process = new ProcessBuilder(command).directory(repository.toFile()).inheritIO().start();
+        if (process.waitFor() != 0) {
+            throw new IllegalStateException("git failed: " + command);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package io.github.crizzis.codenarc;
+
+import io.github.crizzis.codenarc.parser.CodeNarcAnalysis;
+import io.github.crizzis.codenarc.parser.CodeNarcReportMerger;
+import io.github.crizzis.codenarc.parser.CodeNarcXmlParser;
+import io.github.crizzis.codenarc.report.CodeNarcReportGenerator;
+import io.github.crizzis.codenarc.util.Phrasify;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.reporting.MavenReportException;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayNameGeneration(Phrasify.class)
+class CodeNarcAggregateMojoTest {
+
+    @TempDir
+    Path tempDir;
+
+    private CodeNarcReportMerger merger = mock(CodeNarcReportMerger.class);
+    private CodeNarcReportGenerator generator = mock(CodeNarcReportGenerator.class);
+    private CodeNarcXmlParser xmlParser = mock(CodeNarcXmlParser.class);
+    private CodeNarcAggregateMojo mojo = new CodeNarcAggregateMojo(merger, xmlParser, generator);
+
+    @Test
+    void getOutputName_shouldReturnAggregateReportName() {
+        //when, then
+        assertEquals(mojo.getOutputName(), "codenarc-aggregate");
+    }
+
+    @Test
+    void getName_shouldLoadNameFromBundle() {
+        //when, then
+        assertEquals(mojo.getName(new Locale("en")), "CodeNarc Aggregate Report");
+    }
+
+    @Test
+    void canGenerateReport_shouldReturnFalse_whenSkipIsTrue() throws Exception {
+        //given
+        mojo.setModules(List.of(module("first", "CodeNarc.xml")));
+        mojo.setSkip(true);
+
+        //when, then
+        assertFalse(mojo.canGenerateReport());
+    }
+
+    @Test
+    void canGenerateReport_shouldReturnFalse_whenNoModuleReportExists() throws Exception {
+        //given
+        mojo.setModules(List.of(module("first", null), module("second", null)));
+
+        //when, then
+        assertFalse(mojo.canGenerateReport());
+    }
+
+    @Test
+    void executeReport_shouldMergeExistingModuleReports_whenConfiguredCorrectly() throws Exception {
+        //given
+        CodeNarcAnalysis analysis = new CodeNarcAnalysis();
+        Locale locale = new Locale("en-US");
+        File aggregate = tempDir.resolve("CodeNarc-aggregate.xml").toFile();
+        mojo.setModules(List.of(module("first", "CodeNarc.xml"), module("second", null), module("third", "CodeNarc.xml.gz")));
+        mojo.setProjectName("parent");
+        mojo.setBaseDirectory(tempDir.toFile());
+        mojo.setAggregateXmlOutputFile(aggregate);
+        when(xmlParser.parseLazily(aggregate)).thenReturn(analysis);
+
+        //when
+        mojo.executeReport(locale);
+
+        //then
+        verify(merger).merge(List.of(
+                new CodeNarcReportMerger.ModuleReport(tempDir.resolve("first/target/CodeNarc.xml").toFile(), "first"),
+                new CodeNarcReportMerger.ModuleReport(tempDir.resolve("third/target/CodeNarc.xml.gz").toFile(), "third")), "parent", aggregate);
+        verify(generator).generate(eq(analysis), any(), eq(locale), argThat(config -> !config.isSplitPages()));
+    }
+
+    @Test
+    void executeReport_shouldReportError_whenMergingError() throws Exception {
+        //given
+        mojo.setModules(List.of(module("first", "CodeNarc.xml")));
+        mojo.setAggregateXmlOutputFile(tempDir.resolve("CodeNarc-aggregate.xml").toFile());
+        doThrow(CodeNarcXmlParser.XmlParserException.class).when(merger).merge(any(), any(), any());
+
+        //when, then
+        MavenReportException thrown = assertThrows(MavenReportException.class,
+                () -> mojo.executeReport(new Locale("en-US")));
+        assertThat(thrown.getMessage(), startsWith("Could not merge the CodeNarc reports into: "));
+        assertThat(thrown.getCause(), instanceOf(CodeNarcXmlParser.XmlParserException.class));
+    }
+
+    private MavenProject module(String name, String xmlReport) throws Exception {
+        Path buildDirectory = Files.createDirectories(tempDir.resolve(name).resolve("target"));
+        if (xmlReport != null) {
+            Files.write(buildDirectory.resolve(xmlReport), new byte[0]);
+        }
+        MavenProject module = new MavenProject();
+        module.setFile(tempDir.resolve(name).resolve("pom.xml").toFile());
+        module.getBuild().setDirectory(buildDirectory.toString());
+        return module;
+    }
+}
@@ -4,19 +4,29 @@ import io.github.crizzis.codenarc.parser.CodeNarcAnalysis;
 import io.github.crizzis.codenarc.parser.CodeNarcXmlParser;
 import io.github.crizzis.codenarc.report.CodeNarcReportGenerator;
 import io.github.crizzis.codenarc.util.Phrasify;
+import io.github.crizzis.codenarc.util.SinkMock;
+import org.apache.maven.doxia.sink.Sink;
+import org.apache.maven.doxia.module.xhtml.XhtmlSinkFactory;
 import org.apache.maven.reporting.MavenReportException;
 import org.junit.jupiter.api.DisplayNameGeneration;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
 import java.io.File;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Locale;
 import java.util.stream.Stream;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.startsWith;
 import static org.junit.jupiter.api.Assertions.*;
@@ -99,26 +109,169 @@ class CodeNarcReportMojoTest {
         assertFalse(mojo.canGenerateReport());
     }
 
+    @Test
+    void canGenerateReport_shouldReturnTrue_whenOnlyCompressedFileExists(@TempDir Path tempDir) throws Exception {
+        //given
+        Files.write(tempDir.resolve("CodeNarc.xml.gz"), new byte[0]);
+        mojo.setXmlOutputDirectory(tempDir.toFile());
+
+        //when, then
+        assertTrue(mojo.canGenerateReport());
+    }
+
     @Test
     void executeReport_shouldGenerateReport_whenConfiguredCorrectly() throws Exception {
         //given
         CodeNarcAnalysis analysis = new CodeNarcAnalysis();
         Locale locale = new Locale("en-US");
         mojo.setXmlOutputDirectory(new File("output"));
-        when(xmlParser.parse(new File("output/CodeNarc.xml"))).thenReturn(analysis);
+        when(xmlParser.parse(new File("output/CodeNarc.xml"), 0)).thenReturn(analysis);
+
+        //when
+        mojo.executeReport(locale);
+
+        //then
+        verify(generator).generate(eq(analysis), any(), eq(locale), argThat(config -> !config.isSplitPages()));
+    }
+
+    @Test
+    void executeReport_shouldParseSkeletonOnly_whenLazyViolationsIsTrue() throws Exception {
+        //given
+        CodeNarcAnalysis analysis = new CodeNarcAnalysis();
+        Locale locale = new Locale("en-US");
+        mojo.setXmlOutputDirectory(new File("output"));
+        mojo.setLazyViolations(true);
+        when(xmlParser.parseLazily(new File("output/CodeNarc.xml"))).thenReturn(analysis);
+
+        //when
+        mojo.executeReport(locale);
+
+        //then
+        verify(generator).generate(eq(analysis), any(), eq(locale), argThat(config -> !config.isSplitPages()));
+        verify(xmlParser, never()).parse(any(), anyInt());
+    }
+
+    @Test
+    void executeReport_shouldWritePackagePagesNextToReport_whenSplitReportIsTrue(@TempDir Path tempDir) throws Exception {
+        //given
+        CodeNarcAnalysis analysis = new CodeNarcAnalysis();
+        Locale locale = new Locale("en-US");
+        mojo.setXmlOutputDirectory(new File("output"));
+        mojo.setReportOutputDirectory(tempDir.toFile());
+        mojo.setSplitReport(true);
+        when(xmlParser.parse(new File("output/CodeNarc.xml"), 0)).thenReturn(analysis);
 
         //when
         mojo.executeReport(locale);
 
         //then
-        verify(generator).generate(eq(analysis), any(), eq(locale));
+        verify(generator).generate(eq(analysis), any(), eq(locale), argThat(config -> config.isSplitPages()
+                && config.getSinkFactory() instanceof XhtmlSinkFactory
+                && config.getOutputDirectory().equals(tempDir.toFile())
+                && config.getOutputName().equals("codenarc")));
+    }
+
+    @Test
+    void generate_shouldReplayRecordedReport_whenXmlReportAndSettingsUnchanged(@TempDir Path tempDir) throws Exception {
+        //given
+        CodeNarcAnalysis analysis = new CodeNarcAnalysis();
+        Locale locale = new Locale("en-US");
+        File xmlOutput = Files.writeString(tempDir.resolve("CodeNarc.xml"), "<CodeNarc/>").toFile();
+        mojo.setXmlOutputDirectory(tempDir.toFile());
+        mojo.setReportOutputDirectory(tempDir.resolve("site").toFile());
+        when(xmlParser.parse(xmlOutput, 0)).thenReturn(analysis);
+        doAnswer(invocation -> {
+            Sink sink = invocation.getArgument(1);
+            sink.paragraph();
+            sink.text("rendered");
+            sink.paragraph_();
+            return List.of();
+        }).when(generator).generate(eq(analysis), any(), eq(locale), any());
+        SinkMock rendered = new SinkMock();
+        SinkMock replayed = new SinkMock();
+
+        //when
+        mojo.generate(rendered.initialize(), locale);
+        mojo.generate(replayed.initialize(), locale);
+
+        //then
+        verify(xmlParser, times(1)).parse(xmlOutput, 0);
+        verify(generator, times(1)).generate(eq(analysis), any(), eq(locale), any());
+        assertThat(replayed.terminate(), allOf(containsString("rendered"), equalTo(rendered.terminate())));
+    }
+
+    @Test
+    void generate_shouldRenderReportAgain_whenXmlReportChanged(@TempDir Path tempDir) throws Exception {
+        //given
+        CodeNarcAnalysis analysis = new CodeNarcAnalysis();
+        Locale locale = new Locale("en-US");
+        File xmlOutput = Files.writeString(tempDir.resolve("CodeNarc.xml"), "<CodeNarc/>").toFile();
+        mojo.setXmlOutputDirectory(tempDir.toFile());
+        mojo.setReportOutputDirectory(tempDir.resolve("site").toFile());
+        when(xmlParser.parse(xmlOutput, 0)).thenReturn(analysis);
+
+        //when
+        mojo.generate(new SinkMock().initialize(), locale);
+        Files.writeString(xmlOutput.toPath(), "<CodeNarc version='1.5'/>");
+        mojo.generate(new SinkMock().initialize(), locale);
+
+        //then
+        verify(xmlParser, times(2)).parse(xmlOutput, 0);
+        verify(generator, times(2)).generate(eq(analysis), any(), eq(locale), any());
+    }
+
+    @Test
+    void generate_shouldRenderReportAgain_whenPackagePageDeleted(@TempDir Path tempDir) throws Exception {
+        //given
+        CodeNarcAnalysis analysis = new CodeNarcAnalysis();
+        Locale locale = new Locale("en-US");
+        File xmlOutput = Files.writeString(tempDir.resolve("CodeNarc.xml"), "<CodeNarc/>").toFile();
+        File packagePage = tempDir.resolve("site/codenarc-1-default.html").toFile();
+        mojo.setXmlOutputDirectory(tempDir.toFile());
+        mojo.setReportOutputDirectory(tempDir.resolve("site").toFile());
+        mojo.setSplitReport(true);
+        when(xmlParser.parse(xmlOutput, 0)).thenReturn(analysis);
+        when(generator.generate(eq(analysis), any(), eq(locale), any())).thenAnswer(invocation -> {
+            Files.writeString(packagePage.toPath(), "package");
+            return List.of(packagePage);
+        });
+
+        //when
+        mojo.generate(new SinkMock().initialize(), locale);
+        mojo.generate(new SinkMock().initialize(), locale);
+        Files.delete(packagePage.toPath());
+        mojo.generate(new SinkMock().initialize(), locale);
+
+        //then
+        verify(xmlParser, times(2)).parse(xmlOutput, 0);
+        assertTrue(packagePage.isFile());
+    }
+
+    @Test
+    void generate_shouldRenderReportAgain_whenSourceContextLinesShown(@TempDir Path tempDir) throws Exception {
+        //given
+        CodeNarcAnalysis analysis = new CodeNarcAnalysis();
+        Locale locale = new Locale("en-US");
+        File xmlOutput = Files.writeString(tempDir.resolve("CodeNarc.xml"), "<CodeNarc/>").toFile();
+        mojo.setXmlOutputDirectory(tempDir.toFile());
+        mojo.setReportOutputDirectory(tempDir.resolve("site").toFile());
+        mojo.setSourceContextLines(2);
+        when(xmlParser.parse(xmlOutput, 0)).thenReturn(analysis);
+
+        //when
+        mojo.generate(new SinkMock().initialize(), locale);
+        mojo.generate(new SinkMock().initialize(), locale);
+
+        //then
+        verify(xmlParser, times(2)).parse(xmlOutput, 0);
+        verify(generator, times(2)).generate(eq(analysis), any(), eq(locale), any());
     }
 
     @Test
     void executeReport_shouldReportError_whenXmlReportParsingError() throws Exception {
         //given
         mojo.setXmlOutputDirectory(new File("output"));
-        when(xmlParser.parse(new File("output/CodeNarc.xml"))).thenThrow(CodeNarcXmlParser.XmlParserException.class);
+        when(xmlParser.parse(new File("output/CodeNarc.xml"), 0)).thenThrow(CodeNarcXmlParser.XmlParserException.class);
 
         //when, then
         MavenReportException thrown = assertThrows(MavenReportException.class,
@@ -1,22 +1,28 @@
 package io.github.crizzis.codenarc;
 
 import io.github.crizzis.codenarc.integration.GroovyCompilerPluginIntegration;
-import io.github.crizzis.codenarc.parser.CodeNarcAnalysis;
 import io.github.crizzis.codenarc.parser.CodeNarcXmlParser;
+import io.github.crizzis.codenarc.parser.ViolationCounts;
 import io.github.crizzis.codenarc.runner.CodeNarcConfig;
 import io.github.crizzis.codenarc.runner.CodeNarcRunnerFactory;
+import io.github.crizzis.codenarc.runner.ThresholdExceededException;
 import io.github.crizzis.codenarc.util.Phrasify;
 import org.apache.maven.model.FileSet;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.project.MavenProject;
 import org.codenarc.CodeNarcRunner;
+import org.codenarc.results.DirectoryResults;
+import org.codenarc.results.FileResults;
 import org.codenarc.results.Results;
+import org.codenarc.rule.StubRule;
+import org.codenarc.rule.Violation;
 import org.hamcrest.Matcher;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayNameGeneration;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -26,6 +32,10 @@ import org.mockito.ArgumentCaptor;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -77,8 +87,7 @@ class CodeNarcVerifyMojoTest {
     void execute_shouldRelyOnPreExistingAnalysis_whenIgnoreExistingReportIsFalse() throws Exception {
         //given
         File xmlOutput = new File(resource("sample/CodeNarc.xml").toURI());
-        CodeNarcAnalysis analysis = analysisWithViolationCounts(3, 0, 0);
-        doReturn(analysis).when(codeNarcXmlParser).parse(xmlOutput);
+        doReturn(new ViolationCounts(3, 0, 0)).when(codeNarcXmlParser).parseViolationCounts(xmlOutput);
         mojo.setIgnoreExistingReport(false);
         mojo.setXmlOutputDirectory(xmlOutput.getParentFile());
         mojo.setMaxPriority1Violations(2);
@@ -186,6 +195,39 @@ class CodeNarcVerifyMojoTest {
         assertEquals(executionException.getCause(), codeNarcException);
     }
 
+    @Test
+    void execute_shouldFailExecution_whenFailFastAnalysisAborted() {
+        //given
+        when(codeNarcRunner.execute()).thenThrow(new ThresholdExceededException(1, 0, 1, 7));
+        mojo.setFailFast(true);
+        mojo.setMaxPriority1Violations(0);
+
+        //when, then
+        MojoFailureException failureException = assertThrows(MojoFailureException.class, () -> mojo.execute());
+        assertThat(failureException.getMessage(), containsString("7 files were not analyzed"));
+    }
+
+    @Test
+    void execute_shouldConfigureFailFastThresholds_whenFailFastIsTrue() throws MojoFailureException, MojoExecutionException {
+        //given
+        mojo.setFailFast(true);
+
+        //when
+        mojo.execute();
+
+        //then
+        assertNotNull(config.getValue().getFailFastThresholds());
+    }
+
+    @Test
+    void execute_shouldNotConfigureFailFastThresholds_whenFailFastIsFalse() throws MojoFailureException, MojoExecutionException {
+        //when
+        mojo.execute();
+
+        //then
+        assertNull(config.getValue().getFailFastThresholds());
+    }
+
     @Test
     void execute_shouldConfigureProjectTitleCorrectly() throws MojoFailureException, MojoExecutionException {
         //when
@@ -207,6 +249,54 @@ class CodeNarcVerifyMojoTest {
         assertEquals(config.getValue().getOutputFile(), new File("output/CodeNarc.xml"));
     }
 
+    @Test
+    void execute_shouldConfigureCompressedOutputFile_whenCompressXmlOutputIsTrue() throws MojoFailureException, MojoExecutionException {
+        //given
+        mojo.setXmlOutputDirectory(new File("output"));
+        mojo.setCompressXmlOutput(true);
+
+        //when
+        mojo.execute();
+
+        //then
+        assertEquals(config.getValue().getOutputFile(), new File("output/CodeNarc.xml.gz"));
+    }
+
+    @Test
+    void execute_shouldConfigureUncompressedOutputFileAndDeleteCompressedOne_whenCompressXmlOutputSwitchedOff(@TempDir Path tempDir) throws Exception {
+        //given
+        File compressedReport = Files.writeString(tempDir.resolve("CodeNarc.xml.gz"), "stale").toFile();
+        File uncompressedReport = Files.writeString(tempDir.resolve("CodeNarc.xml"), "stale").toFile();
+        assertTrue(uncompressedReport.setLastModified(compressedReport.lastModified() - 60_000));
+        mojo.setXmlOutputDirectory(tempDir.toFile());
+        mojo.setCompressXmlOutput(false);
+
+        //when
+        mojo.execute();
+
+        //then
+        assertEquals(config.getValue().getOutputFile(), uncompressedReport);
+        assertFalse(compressedReport.exists());
+    }
+
+    @Test
+    void execute_shouldReadMoreRecentCompressedReport_whenCompressXmlOutputIsFalse(@TempDir Path tempDir) throws Exception {
+        //given
+        File compressedReport = Files.writeString(tempDir.resolve("CodeNarc.xml.gz"), "report").toFile();
+        File uncompressedReport = Files.writeString(tempDir.resolve("CodeNarc.xml"), "stale").toFile();
+        assertTrue(uncompressedReport.setLastModified(compressedReport.lastModified() - 60_000));
+        doReturn(new ViolationCounts(0, 0, 0)).when(codeNarcXmlParser).parseViolationCounts(compressedReport);
+        mojo.setXmlOutputDirectory(tempDir.toFile());
+        mojo.setIgnoreExistingReport(false);
+
+        //when
+        mojo.execute();
+
+        //then
+        verify(codeNarcXmlParser).parseViolationCounts(compressedReport);
+        verify(codeNarcRunner, never()).execute();
+    }
+
     @ParameterizedTest
     @MethodSource("sourceConfigurationTestCases")
     void execute_shouldConfigureSourcesCorrectly_whenSourcesProvided(
@@ -397,13 +487,23 @@ class CodeNarcVerifyMojoTest {
     }
 
     private Results resultsWithViolationCounts(int priorityOne, int priorityTwo, int priorityThree) {
-        Results results = mock(Results.class);
-        when(results.getNumberOfViolationsWithPriority(1, true)).thenReturn(priorityOne);
-        when(results.getNumberOfViolationsWithPriority(2, true)).thenReturn(priorityTwo);
-        when(results.getNumberOfViolationsWithPriority(3, true)).thenReturn(priorityThree);
+        List<Violation> violations = new ArrayList<>();
+        violations.addAll(violations(1, priorityOne));
+        violations.addAll(violations(2, priorityTwo));
+        violations.addAll(violations(3, priorityThree));
+        DirectoryResults results = new DirectoryResults(null, 1);
+        DirectoryResults sourceRoot = new DirectoryResults("", 1);
+        sourceRoot.addChild(new FileResults("Sample.groovy", violations));
+        results.addChild(sourceRoot);
         return results;
     }
 
+    private List<Violation> violations(int priority, int count) {
+        Violation violation = new Violation();
+        violation.setRule(new StubRule(priority));
+        return Collections.nCopies(count, violation);
+    }
+
     private Matcher<Iterable<? extends FileSet>> equalToFileSets(List<FileSet> expected) {
         return expected.isEmpty() ? emptyIterable() : contains(expected.stream().map(this::equalToFileSet).collect(Collectors.toList()));
     }
@@ -415,10 +515,4 @@ class CodeNarcVerifyMojoTest {
                 hasProperty("excludes", equalTo(expected.getExcludes()))
         );
     }
-
-    private CodeNarcAnalysis analysisWithViolationCounts(int priorityOne, int priorityTwo, int priorityThree) {
-        CodeNarcAnalysis analysis = new CodeNarcAnalysis();
-        analysis.setResults(resultsWithViolationCounts(priorityOne, priorityTwo, priorityThree));
-        return analysis;
-    }
 }
\ No newline at end of file
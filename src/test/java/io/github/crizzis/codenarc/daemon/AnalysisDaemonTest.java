@@ -0,0 +1,242 @@
+package io.github.crizzis.codenarc.daemon;
+
+import io.github.crizzis.codenarc.runner.CodeNarcConfig;
+import io.github.crizzis.codenarc.runner.CodeNarcRunnerFactory;
+import io.github.crizzis.codenarc.runner.ParseStatistics;
+import io.github.crizzis.codenarc.runner.ThresholdExceededException;
+import io.github.crizzis.codenarc.runner.ViolationThresholds;
+import io.github.crizzis.codenarc.util.Phrasify;
+import org.apache.maven.model.FileSet;
+import org.codenarc.results.Results;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static io.github.crizzis.codenarc.util.CodeNarcResultsMatcher.equalToResults;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayNameGeneration(Phrasify.class)
+class AnalysisDaemonTest {
+
+    private static final String CLASS_PATH_ID = "class-path-id";
+    private static final String TOKEN = DaemonTokens.generate();
+
+    @TempDir
+    Path tempDir;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private ServerSocket serverSocket;
+    private Future<?> daemon;
+
+    @BeforeEach
+    void startDaemon() throws Exception {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        daemon = executor.submit(() -> {
+            new AnalysisDaemon(serverSocket, TimeUnit.MINUTES.toMillis(1), CLASS_PATH_ID, TOKEN).run();
+            return null;
+        });
+    }
+
+    @AfterEach
+    void stopDaemon() throws Exception {
+        serverSocket.close();
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+    }
+
+    @Test
+    void analyze_shouldReturnSameResultsAsInProcessAnalysis() throws Exception {
+        //given
+        Results expected = new CodeNarcRunnerFactory().newCodeNarcRunner(config(null)).execute();
+        CodeNarcConfig config = config(null);
+
+        //when
+        Results results = analyze(config, TOKEN, CLASS_PATH_ID);
+        Results secondResults = analyze(config(null), TOKEN, CLASS_PATH_ID);
+
+        //then
+        assertThat(results, equalToResults(expected));
+        assertThat(secondResults, equalToResults(expected));
+        assertThat(config.getParseStatistics().getFilesAnalyzed(), equalTo(3));
+    }
+
+    @Test
+    void analyze_shouldRethrowThresholdExceeded_whenFailFastThresholdExceeded() throws Exception {
+        //given
+        CodeNarcConfig config = config(new ViolationThresholds(-1, 0, -1));
+
+        //when
+        ThresholdExceededException exception = assertThrows(ThresholdExceededException.class, () -> analyze(config, TOKEN, CLASS_PATH_ID));
+
+        //then
+        assertThat(exception.getPriority(), equalTo(2));
+        assertThat(exception.getThreshold(), equalTo(0));
+    }
+
+    @Test
+    void analyze_shouldRejectClientAndKeepServing_whenClassPathDiffers() throws Exception {
+        //when
+        assertThrows(DaemonProtocol.IncompatibleDaemonException.class, () -> analyze(config(null), TOKEN, "other-class-path-id"));
+
+        //then
+        assertThat(serverSocket.isClosed(), equalTo(false));
+        assertThat(analyze(config(null), TOKEN, CLASS_PATH_ID).getTotalNumberOfFiles(true), equalTo(3));
+    }
+
+    @Test
+    void analyze_shouldRejectClientAndKeepServing_whenTokenDiffers() throws Exception {
+        //when
+        IOException exception = assertThrows(IOException.class, () -> analyze(config(null), DaemonTokens.generate(), CLASS_PATH_ID));
+
+        //then
+        assertThat(exception.getMessage(), containsString("rejected the authentication token"));
+        assertThat(analyze(config(null), TOKEN, CLASS_PATH_ID).getTotalNumberOfFiles(true), equalTo(3));
+    }
+
+    @Test
+    void analyze_shouldAnswerVersionMismatchAndKeepServing_whenProtocolVersionDiffers() throws Exception {
+        //when
+        IOException exception;
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort());
+             DataOutputStream output = new DataOutputStream(socket.getOutputStream());
+             DataInputStream input = new DataInputStream(socket.getInputStream())) {
+            output.writeInt(DaemonProtocol.VERSION + 1);
+            output.flush();
+            exception = assertThrows(IOException.class, () -> DaemonProtocol.readHandshake(input));
+        }
+
+        //then
+        assertThat(exception.getMessage(), containsString("protocol version " + DaemonProtocol.VERSION));
+        assertThat(analyze(config(null), TOKEN, CLASS_PATH_ID).getTotalNumberOfFiles(true), equalTo(3));
+    }
+
+    @Test
+    void analyze_shouldDropClientAndKeepServing_whenHeaderStringTooLong() throws Exception {
+        //when
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort());
+             DataOutputStream output = new DataOutputStream(socket.getOutputStream());
+             DataInputStream input = new DataInputStream(socket.getInputStream())) {
+            output.writeInt(DaemonProtocol.VERSION);
+            output.writeInt(Integer.MAX_VALUE);
+            output.flush();
+            assertThrows(IOException.class, input::readByte);
+        }
+
+        //then
+        assertThat(analyze(config(null), TOKEN, CLASS_PATH_ID).getTotalNumberOfFiles(true), equalTo(3));
+    }
+
+    @Test
+    void run_shouldStopAfterIdleTimeout_whenClientStaysSilent() throws Exception {
+        //given
+        ExecutorService idleExecutor = Executors.newSingleThreadExecutor();
+        try (ServerSocket idleServerSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+             Socket silentClient = new Socket(InetAddress.getLoopbackAddress(), idleServerSocket.getLocalPort())) {
+
+            //when
+            Future<?> idleDaemon = idleExecutor.submit(() -> {
+                new AnalysisDaemon(idleServerSocket, 200, CLASS_PATH_ID, TOKEN).run();
+                return null;
+            });
+
+            //then
+            idleDaemon.get(1, TimeUnit.MINUTES);
+            assertThat(silentClient.getInputStream().read(), equalTo(-1));
+        } finally {
+            idleExecutor.shutdown();
+        }
+    }
+
+    @Test
+    void analyze_shouldFail_whenOutputFileOutsideProject() throws Exception {
+        //given
+        CodeNarcConfig config = config(null, tempDir.resolve("project").toFile());
+
+        //when
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> analyze(config, TOKEN, CLASS_PATH_ID));
+
+        //then
+        assertThat(exception.getMessage(), containsString("outside of the project base directory"));
+        assertThat(tempDir.resolve("CodeNarc.xml").toFile().exists(), equalTo(false));
+    }
+
+    @Test
+    void shutDown_shouldStopDaemon_whenTokenMatches() throws Exception {
+        //when
+        shutDown(TOKEN);
+
+        //then
+        daemon.get(1, TimeUnit.MINUTES);
+        assertThat(serverSocket.isClosed(), equalTo(true));
+    }
+
+    @Test
+    void shutDown_shouldBeRejected_whenTokenDiffers() throws Exception {
+        //when
+        assertThrows(IOException.class, () -> shutDown(DaemonTokens.generate()));
+
+        //then
+        assertThat(serverSocket.isClosed(), equalTo(false));
+    }
+
+    private void shutDown(String token) throws Exception {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort());
+             DataOutputStream output = new DataOutputStream(socket.getOutputStream());
+             DataInputStream input = new DataInputStream(socket.getInputStream())) {
+            DaemonProtocol.writeHeader(output, token, DaemonProtocol.SHUTDOWN, CLASS_PATH_ID);
+            DaemonProtocol.readHandshake(input);
+        }
+    }
+
+    private Results analyze(CodeNarcConfig config, String token, String classPathId) throws Exception {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort());
+             DataOutputStream output = new DataOutputStream(socket.getOutputStream());
+             DataInputStream input = new DataInputStream(socket.getInputStream())) {
+            DaemonProtocol.writeHeader(output, token, DaemonProtocol.ANALYZE, classPathId);
+            DaemonProtocol.readHandshake(input);
+            DaemonProtocol.writeConfig(output, config);
+            return DaemonProtocol.readResponse(input, config.getParseStatistics());
+        }
+    }
+
+    private CodeNarcConfig config(ViolationThresholds failFastThresholds) throws Exception {
+        return config(failFastThresholds, tempDir.toFile());
+    }
+
+    private CodeNarcConfig config(ViolationThresholds failFastThresholds, File baseDirectory) throws Exception {
+        FileSet fileSet = new FileSet();
+        fileSet.setDirectory(new File(getClass().getClassLoader()
+                .getResource("projects/codenarc-minimal-config/src/main/groovy").toURI()).getPath());
+        fileSet.setIncludes(List.of("**/*.groovy"));
+        return CodeNarcConfig.builder()
+                .projectName("daemon")
+                .baseDirectory(baseDirectory)
+                .fileSets(List.of(fileSet))
+                .outputFile(tempDir.resolve("CodeNarc.xml").toFile())
+                .generateXmlReport(true)
+                .ruleSets(List.of("rulesets/basic.xml", "rulesets/imports.xml"))
+                .threads(2)
+                .parseStatistics(new ParseStatistics())
+                .failFastThresholds(failFastThresholds)
+                .build();
+    }
+}
@@ -0,0 +1,62 @@
+package io.github.crizzis.codenarc.daemon;
+
+import io.github.crizzis.codenarc.util.Phrasify;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+
+@DisplayNameGeneration(Phrasify.class)
+class DaemonTokensTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void read_shouldReturnWrittenToken() throws Exception {
+        //given
+        Path tokenFile = tempDir.resolve("codenarc/daemon.token");
+        String token = DaemonTokens.generate();
+
+        //when
+        DaemonTokens.write(tokenFile, "previous");
+        DaemonTokens.write(tokenFile, token);
+
+        //then
+        assertThat(DaemonTokens.read(tokenFile), equalTo(token));
+        assertThat(DaemonTokens.generate(), not(equalTo(token)));
+    }
+
+    @Test
+    void read_shouldReturnNull_whenNoTokenFile() throws Exception {
+        //when
+        String token = DaemonTokens.read(tempDir.resolve("daemon.token"));
+
+        //then
+        assertThat(token, nullValue());
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    void write_shouldRestrictTokenFileToOwner() throws Exception {
+        //given
+        Path tokenFile = tempDir.resolve("codenarc/daemon.token");
+
+        //when
+        DaemonTokens.write(tokenFile, DaemonTokens.generate());
+
+        //then
+        assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(tokenFile)), equalTo("rw-------"));
+        assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(tokenFile.getParent())), equalTo("rwx------"));
+    }
+}
@@ -0,0 +1,240 @@
+package io.github.crizzis.codenarc.parser;
+
+import io.github.crizzis.codenarc.util.Phrasify;
+import org.codenarc.results.FileResults;
+import org.codenarc.results.Results;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayNameGeneration(Phrasify.class)
+class CodeNarcReportMergerTest {
+
+    private static final Pattern TOTAL = Pattern.compile("='(\\d+)'");
+
+    @TempDir
+    Path tempDir;
+
+    private CodeNarcReportMerger merger = new CodeNarcReportMerger();
+    private CodeNarcXmlParser parser = new CodeNarcXmlParser();
+
+    @Test
+    void shouldCombinePackagesWithSamePath_whenReportsOverlap() throws Exception {
+        //given
+        File first = report("first", List.of("src/main/groovy"),
+                pkg("", 2, 1, 0, 1, 0),
+                pkg("com", 2, 1, 0, 1, 0),
+                pkg("com/a", 1, 1, 0, 1, 0, file("A.groovy", "Rule1", 2)),
+                pkg("com/c", 1, 0, 0, 0, 0, file("C.groovy")));
+        File second = report("second", List.of("src/main/groovy"),
+                pkg("", 2, 2, 1, 0, 2),
+                pkg("com", 2, 2, 1, 0, 2),
+                pkg("com/a", 1, 1, 1, 0, 0, file("B.groovy", "Rule1", 1)),
+                pkg("com/a/b", 1, 1, 0, 0, 2, file("D.groovy", "Rule2", 3), file("E.groovy", "Rule2", 3)),
+                pkg("com/b", 0, 0, 0, 0, 0));
+        File merged = tempDir.resolve("merged.xml").toFile();
+
+        //when
+        merger.merge(reports(first, second), "merged", merged);
+        CodeNarcAnalysis analysis = parser.parse(merged);
+
+        //then
+        assertThat(analysis.getProjectTitle(), equalTo("merged"));
+        assertThat(analysis.getSourceDirectories(), contains("src/main/groovy"));
+        assertThat(tree(analysis.getResults()), equalTo("[''[com[com/a{A.groovy,B.groovy}[com/a/b{D.groovy,E.groovy}]][com/b][com/c{C.groovy}]]]"));
+        assertThat(parser.parseViolationCounts(merged), equalTo(new ViolationCounts(1, 1, 2)));
+    }
+
+    @Test
+    void shouldMergeSourceRootsBySourceDirectory_whenReportsListDifferentSourceDirectories() throws Exception {
+        //given
+        File first = report("first", List.of("src/main/groovy", "src/test/groovy"),
+                pkg("", 1, 0, 0, 0, 0),
+                pkg("com", 1, 0, 0, 0, 0, file("Main.groovy")),
+                pkg("", 1, 0, 0, 0, 0),
+                pkg("com", 1, 0, 0, 0, 0, file("MainTest.groovy")));
+        File second = report("second", List.of("src/test/groovy", "src/it/groovy"),
+                pkg("", 1, 0, 0, 0, 0),
+                pkg("org", 1, 0, 0, 0, 0, file("OtherTest.groovy")),
+                pkg("", 1, 0, 0, 0, 0),
+                pkg("org", 1, 0, 0, 0, 0, file("OtherIT.groovy")));
+        File third = report("third", List.of("src/it/groovy", "src/main/groovy"),
+                pkg("", 1, 0, 0, 0, 0, file("ThirdIT.groovy")),
+                pkg("", 1, 0, 0, 0, 0),
+                pkg("com", 1, 0, 0, 0, 0, file("Third.groovy")));
+        File merged = tempDir.resolve("merged.xml").toFile();
+
+        //when
+        merger.merge(reports(first, second, third), "merged", merged);
+        CodeNarcAnalysis analysis = parser.parse(merged);
+
+        //then
+        assertThat(analysis.getSourceDirectories(), contains("src/main/groovy", "src/test/groovy", "src/it/groovy"));
+        assertThat(tree(analysis.getResults()), equalTo("[''[com{Main.groovy,Third.groovy}]]"
+                + "[''[com{MainTest.groovy}][org{OtherTest.groovy}]]"
+                + "[''{ThirdIT.groovy}[org{OtherIT.groovy}]]"));
+    }
+
+    @Test
+    void shouldListRulesOfAllReports_whenReportsMerged() throws Exception {
+        //given
+        File first = report("first", List.of("src/main/groovy"), pkg("", 0, 0, 0, 0, 0));
+        File second = report("second", List.of("src/main/groovy"), pkg("", 0, 0, 0, 0, 0));
+        Files.writeString(second.toPath(), Files.readString(second.toPath()).replace("Rule1", "Rule3"));
+        File merged = tempDir.resolve("merged.xml.gz").toFile();
+
+        //when
+        merger.merge(reports(first, second), "merged", merged);
+
+        //then
+        try (PackageStream stream = PackageStream.open(merged)) {
+            assertThat(stream.readRuleDescriptions().keySet(), contains("Rule1", "Rule2", "Rule3"));
+        }
+    }
+
+    @Test
+    void shouldThrowXmlParserException_whenReportMalformed() throws Exception {
+        //given
+        File malformed = Files.writeString(tempDir.resolve("malformed.xml"), "<CodeNarc><Report").toFile();
+
+        //when, then
+        assertThrows(CodeNarcXmlParser.XmlParserException.class,
+                () -> merger.merge(reports(malformed), "merged", tempDir.resolve("merged.xml").toFile()));
+    }
+
+    @Test
+    void shouldOrderSubpackagesBeforeSiblings_whenComparingPaths() {
+        assertThat(CodeNarcReportMerger.PACKAGE_ORDER.compare("", "com"), lessThan(0));
+        assertThat(CodeNarcReportMerger.PACKAGE_ORDER.compare("com/a/b", "com/ab"), lessThan(0));
+        assertThat(CodeNarcReportMerger.PACKAGE_ORDER.compare("com/a", "com/a/b"), lessThan(0));
+        assertThat(CodeNarcReportMerger.PACKAGE_ORDER.compare("com/b", "com/a/b"), equalTo(1));
+    }
+
+    @Test
+    void shouldKeepModulesApart_whenModulesShareRelativeSourceDirectory() throws Exception {
+        //given
+        File first = report("first", List.of("src/main/groovy"),
+                pkg("", 1, 0, 0, 0, 0),
+                pkg("com", 1, 0, 0, 0, 0, file("First.groovy")));
+        File second = report("second", List.of("src/main/groovy", "/absolute/src/main/groovy"),
+                pkg("", 1, 0, 0, 0, 0),
+                pkg("com", 1, 0, 0, 0, 0, file("Second.groovy")),
+                pkg("", 1, 0, 0, 0, 0, file("Absolute.groovy")));
+        File merged = tempDir.resolve("merged.xml").toFile();
+
+        //when
+        merger.merge(List.of(new CodeNarcReportMerger.ModuleReport(first, "first"),
+                new CodeNarcReportMerger.ModuleReport(second, "modules/second")), "merged", merged);
+        CodeNarcAnalysis analysis = parser.parse(merged);
+
+        //then
+        assertThat(analysis.getSourceDirectories(), contains("first/src/main/groovy", "modules/second/src/main/groovy",
+                "/absolute/src/main/groovy"));
+        assertThat(tree(analysis.getResults()), equalTo("[''[com{First.groovy}]][''[com{Second.groovy}]][''{Absolute.groovy}]"));
+    }
+
+    @Test
+    void shouldThrowXmlParserException_whenPackagesOutOfOrder() throws Exception {
+        //given
+        File unordered = report("unordered", List.of("src/main/groovy"),
+                pkg("", 2, 0, 0, 0, 0),
+                pkg("com/b", 1, 0, 0, 0, 0, file("B.groovy")),
+                pkg("com/a", 1, 0, 0, 0, 0, file("A.groovy")));
+
+        //when
+        CodeNarcXmlParser.XmlParserException thrown = assertThrows(CodeNarcXmlParser.XmlParserException.class,
+                () -> merger.merge(reports(unordered), "merged", tempDir.resolve("merged.xml").toFile()));
+
+        //then
+        assertThat(thrown.getCause().getMessage(), containsString("package 'com/a' follows 'com/b'"));
+    }
+
+    @Test
+    void shouldThrowXmlParserException_whenPackageListedTwice() throws Exception {
+        //given
+        File duplicated = report("duplicated", List.of("src/main/groovy"),
+                pkg("", 2, 0, 0, 0, 0),
+                pkg("com", 1, 0, 0, 0, 0, file("A.groovy")),
+                pkg("com", 1, 0, 0, 0, 0, file("B.groovy")));
+
+        //when, then
+        assertThrows(CodeNarcXmlParser.XmlParserException.class,
+                () -> merger.merge(reports(duplicated), "merged", tempDir.resolve("merged.xml").toFile()));
+    }
+
+    private static List<CodeNarcReportMerger.ModuleReport> reports(File... xmlReports) {
+        return Stream.of(xmlReports)
+                .map(xmlReport -> new CodeNarcReportMerger.ModuleReport(xmlReport, ""))
+                .collect(Collectors.toList());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String tree(Results results) {
+        return ((List<Results>) results.getChildren()).stream()
+                .filter(child -> !child.isFile())
+                .map(child -> "[" + (child.getPath().isEmpty() ? "''" : child.getPath()) + files(child) + tree(child) + "]")
+                .collect(Collectors.joining());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String files(Results results) {
+        String files = ((List<Results>) results.getChildren()).stream()
+                .filter(Results::isFile)
+                .map(child -> ((FileResults) child).getPath())
+                .collect(Collectors.joining(","));
+        return files.isEmpty() ? "" : "{" + files + "}";
+    }
+
+    private static String pkg(String path, int totalFiles, int filesWithViolations, int priority1, int priority2, int priority3,
+                              String... files) {
+        return String.format("<Package path='%s' totalFiles='%d' filesWithViolations='%d' priority1='%d' priority2='%d' priority3='%d'>",
+                path, totalFiles, filesWithViolations, priority1, priority2, priority3)
+                + String.join("", files) + "</Package>";
+    }
+
+    private static String file(String name) {
+        return "<File name='" + name + "'/>";
+    }
+
+    private static String file(String name, String ruleName, int priority) {
+        return "<File name='" + name + "'><Violation ruleName='" + ruleName + "' priority='" + priority + "' lineNumber='1'>"
+                + "<SourceLine><![CDATA[line]]></SourceLine><Message><![CDATA[message]]></Message></Violation></File>";
+    }
+
+    private File report(String name, List<String> sourceDirectories, String... packages) throws Exception {
+        int[] summary = new int[5];
+        Stream.of(packages).filter(pkg -> pkg.startsWith("<Package path=''")).forEach(pkg -> {
+            Matcher totals = TOTAL.matcher(pkg.substring(0, pkg.indexOf('>')));
+            for (int i = 0; totals.find(); i++) {
+                summary[i] += Integer.parseInt(totals.group(1));
+            }
+        });
+        File report = tempDir.resolve(name + ".xml").toFile();
+        Files.writeString(report.toPath(), "<?xml version='1.0'?><CodeNarc url='http://www.codenarc.org' version='1.5'>"
+                + "<Report timestamp='now'/><Project title='" + name + "'>"
+                + sourceDirectories.stream().map(directory -> "<SourceDirectory>" + directory + "</SourceDirectory>").collect(Collectors.joining())
+                + "</Project>"
+                + String.format("<PackageSummary totalFiles='%d' filesWithViolations='%d' priority1='%d' priority2='%d' priority3='%d'/>",
+                        summary[0], summary[1], summary[2], summary[3], summary[4])
+                + String.join("", packages)
+                + "<Rules><Rule name='Rule1'><Description><![CDATA[first]]></Description></Rule>"
+                + "<Rule name='Rule2'><Description><![CDATA[second]]></Description></Rule></Rules></CodeNarc>");
+        return report;
+    }
+}
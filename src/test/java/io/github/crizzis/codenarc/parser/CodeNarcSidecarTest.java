@@ -0,0 +1,129 @@
+package io.github.crizzis.codenarc.parser;
+
+import io.github.crizzis.codenarc.util.Phrasify;
+import org.codenarc.results.DirectoryResults;
+import org.codenarc.results.FileResults;
+import org.codenarc.results.Results;
+import org.codenarc.rule.StubRule;
+import org.codenarc.rule.Violation;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static io.github.crizzis.codenarc.util.CodeNarcResultsMatcher.equalToResults;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+@DisplayNameGeneration(Phrasify.class)
+class CodeNarcSidecarTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final CodeNarcXmlParser parser = new CodeNarcXmlParser();
+
+    @Test
+    void read_shouldReturnWrittenAnalysis_whenReportUnchanged() throws Exception {
+        //given
+        File report = copyOfSample("sample/codenarc-multiple-sources.xml");
+        CodeNarcAnalysis expected = parser.parse(report);
+        expected.setResults(results(0, "src/main/groovy/Sample.groovy"));
+        CodeNarcSidecar.write(report, CodeNarcSidecar.digest(report), expected);
+
+        //when
+        Optional<CodeNarcAnalysis> analysis = CodeNarcSidecar.read(report);
+
+        //then
+        assertThat(analysis.isPresent(), equalTo(true));
+        assertThat(analysis.get().getResults(), equalToResults(results(1, "Sample.groovy")));
+        assertThat(analysis.get().getCodeNarcVersion(), equalTo(expected.getCodeNarcVersion()));
+        assertThat(analysis.get().getProjectTitle(), equalTo(expected.getProjectTitle()));
+        assertThat(analysis.get().getReportTimestamp(), equalTo(expected.getReportTimestamp()));
+        assertThat(analysis.get().getSourceDirectories(), equalTo(expected.getSourceDirectories()));
+    }
+
+    @Test
+    void read_shouldIgnoreSidecar_whenReportModified() throws Exception {
+        //given
+        File report = copyOfSample("sample/codenarc-multiple-sources.xml");
+        CodeNarcSidecar.write(report, CodeNarcSidecar.digest(report), parser.parse(report));
+        Files.writeString(report.toPath(), "\n", StandardOpenOption.APPEND);
+
+        //when
+        Optional<CodeNarcAnalysis> analysis = CodeNarcSidecar.read(report);
+
+        //then
+        assertThat(analysis.isPresent(), equalTo(false));
+    }
+
+    @Test
+    void read_shouldIgnoreSidecar_whenReportRewrittenWithSameLengthAndModificationTime() throws Exception {
+        //given
+        File report = copyOfSample("sample/codenarc-multiple-sources.xml");
+        CodeNarcSidecar.write(report, CodeNarcSidecar.digest(report), parser.parse(report));
+        long lastModified = report.lastModified();
+        byte[] content = Files.readAllBytes(report.toPath());
+        content[content.length - "</CodeNarc>".length() - 1] = ' '; // the line break before the closing tag
+        Files.write(report.toPath(), content);
+        report.setLastModified(lastModified);
+
+        //when
+        Optional<CodeNarcAnalysis> analysis = CodeNarcSidecar.read(report);
+
+        //then
+        assertThat(analysis.isPresent(), equalTo(false));
+    }
+
+    @Test
+    void read_shouldIgnoreSidecar_whenTruncated() throws Exception {
+        //given
+        File report = copyOfSample("sample/codenarc-multiple-sources.xml");
+        CodeNarcSidecar.write(report, CodeNarcSidecar.digest(report), parser.parse(report));
+        File sidecar = CodeNarcSidecar.sidecarFor(report);
+        byte[] content = Files.readAllBytes(sidecar.toPath());
+        Files.write(sidecar.toPath(), Arrays.copyOf(content, content.length / 2));
+
+        //when
+        Optional<CodeNarcAnalysis> analysis = CodeNarcSidecar.read(report);
+
+        //then
+        assertThat(analysis.isPresent(), equalTo(false));
+    }
+
+    @Test
+    void sidecarFor_shouldReplaceExtension() {
+        assertThat(CodeNarcSidecar.sidecarFor(new File("target", "CodeNarc.xml")), equalTo(new File("target", "CodeNarc.bin")));
+    }
+
+    /**
+     * Read back, the file counts of directories are recursive and files are identified by name, as in the XML report
+     */
+    private static Results results(int rootFiles, String filePath) {
+        StubRule rule = new StubRule(2);
+        rule.setName("SampleRule");
+        Violation violation = new Violation();
+        violation.setRule(rule);
+        violation.setLineNumber(1);
+        violation.setSourceLine("def x");
+        violation.setMessage("Sample message");
+        DirectoryResults sourceDirectory = new DirectoryResults("", 1);
+        sourceDirectory.addChild(new FileResults(filePath, List.of(violation)));
+        DirectoryResults root = new DirectoryResults(null, rootFiles);
+        root.addChild(sourceDirectory);
+        return root;
+    }
+
+    private File copyOfSample(String name) throws Exception {
+        Path report = tempDir.resolve("CodeNarc.xml");
+        Files.copy(Path.of(getClass().getClassLoader().getResource(name).toURI()), report);
+        return report.toFile();
+    }
+}
@@ -1,30 +1,56 @@
 package io.github.crizzis.codenarc.parser;
 
+import io.github.crizzis.codenarc.report.CodeNarcReportGenerator;
 import io.github.crizzis.codenarc.util.Phrasify;
+import io.github.crizzis.codenarc.util.SinkMock;
+import org.codenarc.results.DirectoryResults;
+import org.codenarc.results.FileResults;
 import org.codenarc.results.Results;
+import org.codenarc.rule.StubRule;
+import org.codenarc.rule.Violation;
 import org.hamcrest.MatcherAssert;
 import org.junit.jupiter.api.DisplayNameGeneration;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.junitpioneer.jupiter.DefaultLocale;
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 
 import static io.github.crizzis.codenarc.ResultsSamples.*;
 import static io.github.crizzis.codenarc.util.CodeNarcResultsMatcher.equalToResults;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.params.provider.Arguments.arguments;
 
 @DefaultLocale("en-US")
 @DisplayNameGeneration(Phrasify.class)
 class CodeNarcXmlParserTest {
 
+    @TempDir
+    Path tempDir;
+
     private CodeNarcXmlParser parser = new CodeNarcXmlParser();
 
     @ParameterizedTest(name = "should build correct results for {0}")
@@ -48,6 +74,174 @@ class CodeNarcXmlParserTest {
         );
     }
 
+    @ParameterizedTest(name = "should build correct results for {0} in parallel")
+    @MethodSource("shouldBuildCorrectResults_whenValidXmlInput")
+    void shouldBuildCorrectResults_whenValidXmlInputParsedInChunks(String fileName, Results expected) throws Exception {
+        //when
+        CodeNarcAnalysis analysis = parser.parseInChunks(new File(resource(fileName).toURI()), 4);
+
+        //then
+        assertThat(analysis.getResults(), equalToResults(expected));
+        assertThat(analysis.getProjectTitle(), equalTo(parser.parse(new File(resource(fileName).toURI())).getProjectTitle()));
+    }
+
+    @Test
+    void shouldBuildSameTreeInChunks_whenManyPackagesAcrossSourceDirectories() throws Exception {
+        //given
+        String[] paths = IntStream.range(0, 500)
+                .mapToObj(i -> i % 100 == 0 ? "" : i % 10 == 0 ? "p" + i / 10 : "p" + i / 10 + "/c" + i % 10)
+                .toArray(String[]::new);
+        File report = reportWithPackages(paths);
+
+        //when
+        Results results = parser.parseInChunks(report, 3).getResults();
+
+        //then
+        assertThat(tree(results), equalTo(tree(parser.parse(report).getResults())));
+        assertThat(results.getChildren().size(), equalTo(5));
+    }
+
+    @ParameterizedTest(name = "should build correct results for {0} lazily")
+    @MethodSource("shouldBuildCorrectResults_whenValidXmlInput")
+    void shouldBuildCorrectResults_whenValidXmlInputParsedLazily(String fileName, Results expected) throws Exception {
+        //when
+        CodeNarcAnalysis analysis = parser.parseLazily(new File(resource(fileName).toURI()));
+
+        //then
+        assertThat(analysis.getResults(), equalToResults(expected));
+        assertThat(analysis.getSourceDirectories(), equalTo(parser.parse(new File(resource(fileName).toURI())).getSourceDirectories()));
+    }
+
+    @ParameterizedTest(name = "should build correct results for compressed {0}")
+    @MethodSource("shouldBuildCorrectResults_whenValidXmlInput")
+    void shouldBuildCorrectResults_whenValidXmlInputCompressed(String fileName, Results expected) throws Exception {
+        //given
+        File report = tempDir.resolve("CodeNarc.xml.gz").toFile();
+        try (OutputStream output = new GZIPOutputStream(new FileOutputStream(report))) {
+            Files.copy(Path.of(resource(fileName).toURI()), output);
+        }
+
+        //when
+        CodeNarcAnalysis analysis = parser.parse(report, 4);
+        CodeNarcAnalysis lazyAnalysis = parser.parseLazily(report);
+        ViolationCounts violationCounts = parser.parseViolationCounts(report);
+
+        //then
+        assertThat(analysis.getResults(), equalToResults(expected));
+        assertThat(lazyAnalysis.getResults(), equalToResults(expected));
+        assertThat(violationCounts, equalTo(parser.parseViolationCounts(new File(resource(fileName).toURI()))));
+    }
+
+    @Test
+    void shouldCountViolationsWithoutLoadingThem_whenParsedLazily() throws Exception {
+        //given
+        File report = report("<Package path='' totalFiles='2' filesWithViolations='1' priority1='1' priority2='0' priority3='2'>"
+                + "<File name='A &amp; B.groovy'>"
+                + "<Violation ruleName='First' priority='3' lineNumber='1'><SourceLine><![CDATA[<File name='C.groovy'>]]></SourceLine></Violation>"
+                + "<Violation ruleName='Second' priority='1'><Message><![CDATA[message]]></Message></Violation>"
+                + "<Violation ruleName='Third' priority='3' lineNumber='2'/>"
+                + "</File>"
+                + "<File name=\"Empty.groovy\"/>"
+                + "</Package>");
+
+        //when
+        Results results = parser.parseLazily(report).getResults();
+        Results sourceRoot = (Results) results.getChildren().get(0);
+        FileResults file = (FileResults) sourceRoot.getChildren().get(0);
+
+        //then
+        assertThat(file.getPath(), equalTo("A & B.groovy"));
+        assertThat(file.getNumberOfViolationsWithPriority(3, true), equalTo(2));
+        assertThat(results.getNumberOfViolationsWithPriority(1, true), equalTo(1));
+        assertThat(results.getNumberOfFilesWithViolations(3, true), equalTo(1));
+        assertThat(((Results) sourceRoot.getChildren().get(1)).getPath(), equalTo("Empty.groovy"));
+        assertThat(((Violation) file.getViolations().get(0)).getSourceLine(), equalTo("<File name='C.groovy'>"));
+        assertThat(((Violation) file.getViolations().get(1)).getMessage(), equalTo("message"));
+        assertThat(file.getViolations().size(), equalTo(3));
+    }
+
+    @Test
+    void shouldVisitViolationRulesFromIndex_whenParsedLazily() throws Exception {
+        //given
+        File report = report("<Package path='' totalFiles='1' filesWithViolations='1' priority1='1' priority2='0' priority3='1'>"
+                + "<File name='A.groovy'>"
+                + "<Violation ruleName='First &amp; Last' priority='3' lineNumber='1'><SourceLine><![CDATA[<Violation ruleName='Other'>]]></SourceLine></Violation>"
+                + "<Violation ruleName=\"Second\" priority='1'/>"
+                + "</File>"
+                + "</Package>");
+        FileResults file = (FileResults) ((Results) parser.parseLazily(report).getResults().getChildren().get(0)).getChildren().get(0);
+        List<String> rules = new ArrayList<>();
+
+        //when
+        ViolationRules.forEach(file, (rule, priority) -> rules.add(rule + ":" + priority));
+
+        //then
+        assertThat(rules, contains("First & Last:3", "Second:1"));
+    }
+
+    @Test
+    void shouldLoadViolationsOncePerRenderedTable_whenParsedLazily() throws Exception {
+        //given
+        byte[] report = Files.readAllBytes(report("<Package path='' totalFiles='1' filesWithViolations='1' priority1='1' priority2='0' priority3='0'>"
+                + "<File name='A.groovy'><Violation ruleName='Rule' priority='1' lineNumber='1'/></File>"
+                + "</Package>").toPath());
+        AtomicInteger loads = new AtomicInteger();
+        ReportIndex index = ReportIndex.scan(ByteBuffer.wrap(report), UTF_8, fileElement -> {
+            loads.incrementAndGet();
+            StubRule rule = new StubRule(1);
+            rule.setName("Rule");
+            Violation violation = new Violation();
+            violation.setRule(rule);
+            violation.setLineNumber(1);
+            return List.of(violation);
+        });
+        DirectoryResults results = new DirectoryResults("", 1);
+        results.addChild(index.getPackages().get(0));
+        CodeNarcAnalysis analysis = new CodeNarcAnalysis();
+        analysis.setResults(results);
+
+        //when
+        new CodeNarcReportGenerator().generate(analysis, new SinkMock().initialize(), Locale.ENGLISH);
+        ((FileResults) index.getPackages().get(0).getChildren().get(0)).getViolations();
+
+        //then
+        assertThat(loads.get(), equalTo(1));
+    }
+
+    @Test
+    void findXmlReport_shouldReturnMoreRecentVariant() throws Exception {
+        //given
+        File xmlReport = Files.writeString(tempDir.resolve("CodeNarc.xml"), "").toFile();
+        File compressedXmlReport = Files.writeString(tempDir.resolve("CodeNarc.xml.gz"), "").toFile();
+        compressedXmlReport.setLastModified(xmlReport.lastModified() - 10_000);
+
+        //when
+        File olderCompressed = CodeNarcXmlParser.findXmlReport(tempDir.toFile());
+        compressedXmlReport.setLastModified(xmlReport.lastModified() + 10_000);
+        File newerCompressed = CodeNarcXmlParser.findXmlReport(tempDir.toFile());
+
+        //then
+        assertThat(olderCompressed, equalTo(xmlReport));
+        assertThat(newerCompressed, equalTo(compressedXmlReport));
+    }
+
+    @Test
+    void shouldNotSplitReport_whenCDataContainsPackageTag() throws Exception {
+        //given
+        File report = reportWithViolations("<Violation ruleName='Rule' priority='1' lineNumber='1'>"
+                + "<SourceLine><![CDATA[def xml = \"<Package path='com'>\"]]></SourceLine>"
+                + "<!-- <Package path='org'> -->"
+                + "<Message><![CDATA[message]]></Message>"
+                + "</Violation>");
+
+        //when
+        Results results = parser.parseInChunks(report, 2).getResults();
+
+        //then
+        assertThat(results, equalToResults(parser.parse(report).getResults()));
+        assertThat(tree(results), equalTo("['']"));
+    }
+
     @Test
     void shouldReadCorrectTimestampSourcesProjectTitleAndCodeNarcVersion_whenValidXmlInput() throws Exception {
         //when
@@ -60,6 +254,118 @@ class CodeNarcXmlParserTest {
         assertThat(analysis.getSourceDirectories(), contains("src/main/groovy", "src/test/groovy"));
     }
 
+    @Test
+    void shouldJoinCDataSectionsAndAllowMissingLineNumber_whenViolationTextSplit() throws Exception {
+        //given
+        File report = reportWithViolations("<Violation ruleName='Rule' priority='1'>"
+                + "<SourceLine><![CDATA[def a = b[c[0]]]]]><![CDATA[>]]></SourceLine>"
+                + "<Message>  <![CDATA[first]]>\n  <![CDATA[ second]]>  </Message>"
+                + "</Violation>");
+
+        //when
+        Results results = parser.parse(report).getResults();
+        Violation violation = (Violation) ((FileResults) ((Results) ((Results) results.getChildren().get(0))
+                .getChildren().get(0))).getViolations().get(0);
+
+        //then
+        assertThat(violation.getSourceLine(), equalTo("def a = b[c[0]]]>"));
+        assertThat(violation.getMessage(), equalTo("first second"));
+        assertThat(violation.getLineNumber(), nullValue());
+    }
+
+    @Test
+    void shouldReadViolationCountsFromPackageSummary_whenValidXmlInput() throws Exception {
+        //when
+        ViolationCounts violationCounts = parser.parseViolationCounts(new File(resource("sample/codenarc-multiple-sources.xml").toURI()));
+
+        //then
+        assertThat(violationCounts, equalTo(new ViolationCounts(0, 2, 7)));
+    }
+
+    @Test
+    void shouldThrowXmlParserException_whenPackageSummaryMissing() throws Exception {
+        //given
+        File report = Files.writeString(tempDir.resolve("CodeNarc.xml"),
+                "<CodeNarc url='https://codenarc.github.io/CodeNarc' version='1.5'><Report timestamp='now'/></CodeNarc>").toFile();
+
+        //when, then
+        assertThrows(CodeNarcXmlParser.XmlParserException.class, () -> parser.parseViolationCounts(report));
+    }
+
+    @Test
+    void shouldThrowXmlParserException_whenUnrecognizedTag() throws Exception {
+        //given
+        File report = reportWithViolations("<Violation ruleName='Rule' priority='1'><Unknown/></Violation>");
+
+        //when, then
+        assertThrows(CodeNarcXmlParser.XmlParserException.class, () -> parser.parse(report));
+    }
+
+    @Test
+    void shouldNestPackagesUnderLongestExistingAncestor_whenSiblingsSharePathPrefix() throws Exception {
+        //given
+        File report = reportWithPackages("", "com", "com/a", "com/a/b", "com/ab", "com/ab/c");
+
+        //when
+        Results results = parser.parse(report).getResults();
+
+        //then
+        assertThat(tree(results), equalTo("[''[com[com/a[com/a/b]][com/ab[com/ab/c]]]]"));
+    }
+
+    @Test
+    void shouldNestPackagesUnderClosestAncestor_whenIntermediatePackagesAbsent() throws Exception {
+        //given
+        File report = reportWithPackages("", "com", "com/example/deeply/nested", "org/example");
+
+        //when
+        Results results = parser.parse(report).getResults();
+
+        //then
+        assertThat(tree(results), equalTo("[''[com[com/example/deeply/nested]][org/example]]"));
+    }
+
+    @Test
+    void shouldStartNewSourceDirectory_whenDefaultPackageRepeated() throws Exception {
+        //given
+        File report = reportWithPackages("", "com", "com/a", "", "com/a", "");
+
+        //when
+        Results results = parser.parse(report).getResults();
+
+        //then
+        assertThat(tree(results), equalTo("[''[com[com/a]]][''[com/a]]['']"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String tree(Results results) {
+        return ((List<Results>) results.getChildren()).stream()
+                .filter(child -> !child.isFile())
+                .map(child -> "[" + (child.getPath().isEmpty() ? "''" : child.getPath()) + tree(child) + "]")
+                .collect(Collectors.joining());
+    }
+
+    private File reportWithPackages(String... paths) throws Exception {
+        return report(Arrays.stream(paths)
+                .map(path -> "<Package path='" + path + "' totalFiles='0' filesWithViolations='0' priority1='0' priority2='0' priority3='0'/>")
+                .collect(Collectors.joining()));
+    }
+
+    private File reportWithViolations(String violations) throws Exception {
+        return report("<Package path='' totalFiles='1' filesWithViolations='1' priority1='1' priority2='0' priority3='0'>"
+                + "<File name='A.groovy'>" + violations + "</File></Package>");
+    }
+
+    private File report(String packages) throws Exception {
+        File report = tempDir.resolve("CodeNarc.xml").toFile();
+        Files.writeString(report.toPath(), "<?xml version='1.0'?><CodeNarc url='http://www.codenarc.org' version='1.5'>"
+                + "<Report timestamp='now'/><Project title='sample'/>"
+                + "<PackageSummary totalFiles='1' filesWithViolations='1' priority1='1' priority2='0' priority3='0'/>"
+                + packages
+                + "<Rules><Rule name='Rule'><Description><![CDATA[description]]></Description></Rule></Rules></CodeNarc>");
+        return report;
+    }
+
     private static URL resource(String name) {
         return CodeNarcXmlParserTest.class.getClassLoader().getResource(name);
     }
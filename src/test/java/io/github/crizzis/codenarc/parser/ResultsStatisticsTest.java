@@ -0,0 +1,113 @@
+package io.github.crizzis.codenarc.parser;
+
+import io.github.crizzis.codenarc.util.Phrasify;
+import org.codenarc.results.DirectoryResults;
+import org.codenarc.results.FileResults;
+import org.codenarc.results.Results;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static io.github.crizzis.codenarc.ResultsSamples.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+@DisplayNameGeneration(Phrasify.class)
+class ResultsStatisticsTest {
+
+    @ParameterizedTest
+    @MethodSource
+    void shouldReturnSameTotalsAsResults_forEveryDirectory(Results results) {
+        //when
+        ResultsStatistics statistics = ResultsStatistics.of(results);
+
+        //then
+        for (Results directory : directories(results)) {
+            for (boolean recursive : new boolean[]{false, true}) {
+                assertThat(statistics.getTotalNumberOfFiles(directory, recursive), equalTo(directory.getTotalNumberOfFiles(recursive)));
+                assertThat(statistics.getNumberOfFilesWithViolations(directory, recursive),
+                        equalTo(directory.getNumberOfFilesWithViolations(3, recursive)));
+                for (int priority = 1; priority <= 3; priority++) {
+                    assertThat(statistics.getNumberOfViolationsWithPriority(directory, priority, recursive),
+                            equalTo(directory.getNumberOfViolationsWithPriority(priority, recursive)));
+                }
+            }
+        }
+    }
+
+    static Stream<Arguments> shouldReturnSameTotalsAsResults_forEveryDirectory() {
+        return Stream.of(
+                arguments(emptyResults()),
+                arguments(defaultPackageSingleFileResults()),
+                arguments(defaultPackageMultipleFilesResults()),
+                arguments(regularPackageMultipleFilesResults()),
+                arguments(multiplePackagesResults()),
+                arguments(multipleSourcesResults()));
+    }
+
+    @Test
+    void shouldReturnSameTotalsAsResults_whenParsedLazily() throws Exception {
+        //given
+        Results results = new CodeNarcXmlParser().parseLazily(
+                new File(ResultsStatisticsTest.class.getClassLoader().getResource("sample/codenarc-multiple-sources.xml").toURI())).getResults();
+
+        //when
+        ResultsStatistics statistics = ResultsStatistics.of(results);
+
+        //then
+        assertThat(statistics.getViolationCounts(results), equalTo(new ViolationCounts(
+                results.getNumberOfViolationsWithPriority(1, true),
+                results.getNumberOfViolationsWithPriority(2, true),
+                results.getNumberOfViolationsWithPriority(3, true))));
+    }
+
+    @Test
+    void shouldHandleDeepTrees_whenPackageDepthExceedsStackDepth() {
+        //given
+        DirectoryResults root = new DirectoryResults(null, 0);
+        DirectoryResults parent = root;
+        for (int depth = 0; depth < 100_000; depth++) {
+            DirectoryResults child = new DirectoryResults("p" + depth, 1);
+            child.addChild(new FileResults("A.groovy", List.of()));
+            parent.addChild(child);
+            parent = child;
+        }
+
+        //when
+        ResultsStatistics statistics = ResultsStatistics.of(root);
+
+        //then
+        assertThat(statistics.getTotalNumberOfFiles(root, true), equalTo(100_000));
+        assertThat(statistics.getTotalNumberOfFiles(parent, true), equalTo(1));
+    }
+
+    @Test
+    void shouldThrowIllegalArgumentException_whenNotADirectoryOfResults() {
+        //given
+        ResultsStatistics statistics = ResultsStatistics.of(multiplePackagesResults());
+
+        //when, then
+        assertThrows(IllegalArgumentException.class, () -> statistics.getTotalNumberOfFiles(new DirectoryResults("other"), true));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Results> directories(Results results) {
+        List<Results> directories = new ArrayList<>();
+        directories.add(results);
+        for (Results child : (List<Results>) results.getChildren()) {
+            if (!child.isFile()) {
+                directories.addAll(directories(child));
+            }
+        }
+        return directories;
+    }
+}
@@ -6,10 +6,16 @@ import io.github.crizzis.codenarc.util.MinimalDocumentBuilderFactory;
 import io.github.crizzis.codenarc.util.Phrasify;
 import io.github.crizzis.codenarc.util.SinkMock;
 import org.apache.commons.io.IOUtils;
+import org.apache.maven.doxia.module.xhtml.XhtmlSinkFactory;
+import org.codenarc.results.DirectoryResults;
+import org.codenarc.results.FileResults;
 import org.codenarc.results.Results;
+import org.codenarc.rule.StubRule;
+import org.codenarc.rule.Violation;
 import org.hamcrest.Matcher;
 import org.junit.jupiter.api.DisplayNameGeneration;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -26,8 +32,10 @@ import java.io.IOException;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static io.github.crizzis.codenarc.ResultsSamples.*;
@@ -101,9 +109,131 @@ class CodeNarcReportGeneratorTest {
         assertThat(actual, hasGeneralInfoSectionCorrectlyLocalized());
         assertThat(actual, hasSummarySectionCorrectlyLocalized());
         assertThat(actual, hasPackageSummarySectionCorrectlyLocalized());
+        assertThat(actual, hasRuleSummarySectionCorrectlyLocalized());
         assertThat(actual, hasFilesSectionCorrectlyLocalized());
     }
 
+    @Test
+    void shouldWriteViolationsToPackagePages_whenSplitPagesEnabled(@TempDir Path tempDir) throws Exception {
+        //given
+        ReportConfig config = ReportConfig.builder()
+                .splitPages(true)
+                .sinkFactory(new XhtmlSinkFactory())
+                .outputDirectory(tempDir.toFile())
+                .outputName("codenarc")
+                .build();
+
+        //when
+        generator.generate(defaultAnalysis(List.of("src/main/groovy"), multiplePackagesResults()), sinkMock.initialize(), ENGLISH, config);
+        Document actual = xmlBuilder.parse(IOUtils.toInputStream(sinkMock.terminate(), UTF_8));
+
+        //then
+        assertThat(actual, hasXPath("count(" + FILES_TITLE.path() + ")", equalTo("0")));
+        assertThat(actual, hasXPath("count(//tableCell/link)", equalTo("3")));
+        try (Stream<Path> pages = Files.list(tempDir)) {
+            assertThat(pages.map(page -> page.getFileName().toString()).collect(Collectors.toList()), containsInAnyOrder(
+                    "codenarc-1-com.example.html",
+                    "codenarc-1-com.example.packageone.html",
+                    "codenarc-1-com.example.packageonetwo.html"));
+        }
+        assertThat(Files.readString(tempDir.resolve("codenarc-1-com.example.packageonetwo.html")), allOf(
+                containsString("MessageStoreTest.groovy"),
+                containsString("src/main/groovy"),
+                containsString("href=\"codenarc.html\""),
+                not(containsString("SampleMessageIT.groovy"))));
+    }
+
+    @Test
+    void shouldWriteSamePackagePages_whenPagesRenderedConcurrently(@TempDir Path tempDir) throws Exception {
+        //given
+        CodeNarcAnalysis analysis = defaultAnalysis(List.of("src/main/groovy", "src/test/groovy"), multipleSourcesResults());
+        Path sequential = Files.createDirectory(tempDir.resolve("sequential"));
+        Path concurrent = Files.createDirectory(tempDir.resolve("concurrent"));
+
+        //when
+        generator.generate(analysis, sinkMock.initialize(), ENGLISH, splitPagesConfig(sequential, 1));
+        String sequentialIndex = sinkMock.terminate();
+        generator.generate(analysis, sinkMock.initialize(), ENGLISH, splitPagesConfig(concurrent, 4));
+        String concurrentIndex = sinkMock.terminate();
+
+        //then
+        assertThat(concurrentIndex, equalTo(sequentialIndex));
+        List<String> pages;
+        try (Stream<Path> sequentialPages = Files.list(sequential)) {
+            pages = sequentialPages.map(page -> page.getFileName().toString()).sorted().collect(Collectors.toList());
+        }
+        assertThat(pages, hasSize(2));
+        for (String page : pages) {
+            assertThat(Files.readString(concurrent.resolve(page)), equalTo(Files.readString(sequential.resolve(page))));
+        }
+    }
+
+    @Test
+    void shouldListHotspotsAfterRuleSummary_whenHotspotsEnabled() throws Exception {
+        //given
+        ReportConfig config = ReportConfig.builder().hotspots(2).build();
+
+        //when
+        generator.generate(defaultAnalysis(List.of("src/main/groovy"), multiplePackagesResults()), sinkMock.initialize(), ENGLISH, config);
+        Document actual = xmlBuilder.parse(IOUtils.toInputStream(sinkMock.terminate(), UTF_8));
+
+        //then
+        assertThat(actual, hasXPath("//body/section1[5]/sectionTitle1/text()", equalToCompressingWhiteSpace("Hotspots")));
+        assertThat(actual, hasXPath("count(//body/section1[5]/table)", equalTo("3")));
+        assertThat(actual, hasXPath("count(//body/section1[5]/table[1]/tableRow)", equalTo("3")));
+        assertThat(actual, hasXPath("//body/section1[5]/table[3]//tableHeaderCell[1]/text()", equalToCompressingWhiteSpace("Rule Name")));
+        assertThat(actual, hasXPath("//body/section1[6]/sectionTitle1/text()", equalToCompressingWhiteSpace("Files")));
+    }
+
+    @Test
+    void shouldShowSurroundingSourceLines_whenSourceContextLinesSet(@TempDir Path tempDir) throws Exception {
+        //given
+        Path sources = Files.createDirectories(tempDir.resolve("src/main/groovy/com/example"));
+        Files.writeString(sources.resolve("Sample.groovy"), "one\r\ntwo\r\nthree\r\nfour\r\nfive\r\n");
+        ReportConfig config = ReportConfig.builder()
+                .sourceContextLines(1)
+                .baseDirectory(tempDir.toFile())
+                .build();
+
+        //when
+        generator.generate(defaultAnalysis(List.of("src/main/groovy", "src/test/groovy"), singleViolationResults(3, 1)),
+                sinkMock.initialize(), ENGLISH, config);
+        Document actual = xmlBuilder.parse(IOUtils.toInputStream(sinkMock.terminate(), UTF_8));
+
+        //then
+        assertThat(actual, hasXPath("(" + FILES_TABLE_CELLS.path() + ")[4]/verbatim/text()", containsString("2  two\n3> three\n4  four")));
+        assertThat(actual, hasXPath("(" + FILES_TABLE_CELLS.path() + ")[8]/paragraph[1]/italic/text()", equalToCompressingWhiteSpace("one")));
+    }
+
+    private static Results singleViolationResults(int... lineNumbers) {
+        DirectoryResults results = new DirectoryResults(null);
+        for (int lineNumber : lineNumbers) {
+            DirectoryResults sourceRoot = new DirectoryResults("");
+            DirectoryResults example = new DirectoryResults("com/example");
+            StubRule rule = new StubRule(2);
+            rule.setName("UnusedImport");
+            Violation violation = new Violation();
+            violation.setRule(rule);
+            violation.setLineNumber(lineNumber);
+            violation.setSourceLine("one");
+            violation.setMessage("The import is never used");
+            example.addChild(new FileResults("Sample.groovy", List.of(violation)));
+            sourceRoot.addChild(example);
+            results.addChild(sourceRoot);
+        }
+        return results;
+    }
+
+    private static ReportConfig splitPagesConfig(Path outputDirectory, int threads) {
+        return ReportConfig.builder()
+                .splitPages(true)
+                .sinkFactory(new XhtmlSinkFactory())
+                .outputDirectory(outputDirectory.toFile())
+                .outputName("codenarc")
+                .threads(threads)
+                .build();
+    }
+
     private Matcher<Document> hasFilesSectionCorrectlyLocalized() {
         return describedAs("Report with correctly localized Files section", allOf(
                 hasPath(FILES_TITLE, containsString("DE Files")),
@@ -128,6 +258,17 @@ class CodeNarcReportGeneratorTest {
         ));
     }
 
+    private Matcher<Document> hasRuleSummarySectionCorrectlyLocalized() {
+        return describedAs("Report with correctly localized Rule Summary section", allOf(
+                hasPath(RULE_SUMMARY_TITLE, equalToCompressingWhiteSpace("DE Rule Summary")),
+                hasPath(RULE_SUMMARY_RULE_NAME_HEADER, equalToCompressingWhiteSpace("DE Rule Name")),
+                hasPath(RULE_SUMMARY_PRIORITY_HEADER, equalToCompressingWhiteSpace("DE Priority")),
+                hasPath(RULE_SUMMARY_TOTAL_VIOLATIONS_HEADER, equalToCompressingWhiteSpace("DE Total Violations")),
+                hasPath(RULE_SUMMARY_FILES_WITH_VIOLATIONS_HEADER, equalToCompressingWhiteSpace("DE Files with Violations")),
+                hasPath(RULE_SUMMARY_PACKAGES_WITH_VIOLATIONS_HEADER, equalToCompressingWhiteSpace("DE Packages with Violations"))
+        ));
+    }
+
     private Matcher<Document> hasSummarySectionCorrectlyLocalized() {
         return describedAs("Report with correctly localized Summary section",allOf(
                 hasPath(SUMMARY_SECTION_TITLE, equalToCompressingWhiteSpace("DE Summary")),
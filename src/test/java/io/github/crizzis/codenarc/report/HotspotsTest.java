@@ -0,0 +1,102 @@
+package io.github.crizzis.codenarc.report;
+
+import io.github.crizzis.codenarc.parser.ResultsStatistics;
+import io.github.crizzis.codenarc.report.Hotspots.Hotspot;
+import io.github.crizzis.codenarc.util.Phrasify;
+import org.codenarc.results.DirectoryResults;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static io.github.crizzis.codenarc.util.ResultsFixtures.directory;
+import static io.github.crizzis.codenarc.util.ResultsFixtures.file;
+import static io.github.crizzis.codenarc.util.ResultsFixtures.violations;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+
+@DisplayNameGeneration(Phrasify.class)
+class HotspotsTest {
+
+    private final DirectoryResults root = new DirectoryResults(null);
+    private final DirectoryResults sourceRoot = directory(root, "");
+
+    @Test
+    void shouldRankFilesByWeightedViolations_whenMoreFilesThanLimit() {
+        //given
+        DirectoryResults example = directory(sourceRoot, "com/example");
+        file(sourceRoot, "Script.groovy", violations("Rule", 3, 3));
+        file(example, "Light.groovy", violations("Rule", 3, 1));
+        file(example, "Heavy.groovy", violations("Rule", 1, 2));
+        file(example, "Medium.groovy", violations("Rule", 2, 2));
+        file(example, "Clean.groovy", List.of());
+
+        //when
+        Hotspots hotspots = collect(3);
+
+        //then
+        assertThat(hotspots.getFiles(), contains(
+                new Hotspot("com/example/Heavy.groovy", 2, 0, 0),
+                new Hotspot("com/example/Medium.groovy", 0, 2, 0),
+                new Hotspot("Script.groovy", 0, 0, 3)));
+    }
+
+    @Test
+    void shouldSumPackagesAndRulesAcrossFiles_whenViolationsSpreadOverFiles() {
+        //given
+        DirectoryResults first = directory(sourceRoot, "com/first");
+        DirectoryResults second = directory(sourceRoot, "com/second");
+        file(first, "A.groovy", violations("UnusedImport", 3, 2));
+        file(first, "B.groovy", violations("UnusedImport", 3, 1));
+        file(second, "C.groovy", violations("EmptyCatchBlock", 1, 1));
+        file(second, "D.groovy", violations("MethodSize", 2, 1));
+
+        //when
+        Hotspots hotspots = collect(10);
+
+        //then
+        assertThat(hotspots.getPackages(), contains(
+                new Hotspot("com.second", 1, 1, 0),
+                new Hotspot("com.first", 0, 0, 3)));
+        assertThat(hotspots.getRules(), contains(
+                new Hotspot("EmptyCatchBlock", 1, 0, 0),
+                new Hotspot("UnusedImport", 0, 0, 3),
+                new Hotspot("MethodSize", 0, 1, 0)));
+    }
+
+    @Test
+    void shouldBreakTiesByName_whenWeightsEqual() {
+        //given
+        file(sourceRoot, "B.groovy", violations("Rule", 1, 1));
+        file(sourceRoot, "C.groovy", violations("Rule", 1, 1));
+        file(sourceRoot, "A.groovy", violations("Rule", 1, 1));
+
+        //when
+        Hotspots hotspots = collect(2);
+
+        //then
+        assertThat(hotspots.getFiles(), contains(
+                new Hotspot("A.groovy", 1, 0, 0),
+                new Hotspot("B.groovy", 1, 0, 0)));
+        assertThat(hotspots.getPackages(), contains(new Hotspot("(default package)", 3, 0, 0)));
+    }
+
+    @Test
+    void shouldReturnNoHotspots_whenNoViolations() {
+        //given
+        file(sourceRoot, "Clean.groovy", List.of());
+
+        //when
+        Hotspots hotspots = collect(10);
+
+        //then
+        assertThat(hotspots.getFiles(), empty());
+        assertThat(hotspots.getPackages(), empty());
+        assertThat(hotspots.getRules(), empty());
+    }
+
+    private Hotspots collect(int limit) {
+        return Hotspots.collect(root, ResultsStatistics.of(root), limit, "(default package)");
+    }
+}
@@ -0,0 +1,144 @@
+package io.github.crizzis.codenarc.report;
+
+import io.github.crizzis.codenarc.util.Phrasify;
+import io.github.crizzis.codenarc.util.SinkMock;
+import org.apache.maven.doxia.sink.Sink;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayNameGeneration(Phrasify.class)
+class RecordedReportTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldReplaySameEvents_whenRecordingCommitted() throws Exception {
+        //given
+        RecordedReport recordedReport = new RecordedReport(tempDir.toFile(), "codenarc");
+        SinkMock original = new SinkMock();
+        SinkMock replayed = new SinkMock();
+
+        //when
+        try (RecordedReport.Recording recording = recordedReport.record(original.initialize())) {
+            render(recording.getSink());
+            recording.commit("fingerprint");
+        }
+        recordedReport.replay(replayed.initialize());
+
+        //then
+        String expected = original.terminate();
+        assertThat(expected, allOf(containsString("Grüß Gott"), containsString("<verbatim>"), containsString("<link>")));
+        assertThat(replayed.terminate(), equalTo(expected));
+        assertTrue(recordedReport.isUpToDate("fingerprint"));
+        assertFalse(recordedReport.isUpToDate("other fingerprint"));
+    }
+
+    @Test
+    void shouldNotBeUpToDate_whenOutputWrittenAlongsideDeletedOrModified() throws Exception {
+        //given
+        RecordedReport recordedReport = new RecordedReport(tempDir.toFile(), "codenarc");
+        File firstPage = Files.writeString(tempDir.resolve("codenarc-1-com.html"), "first").toFile();
+        File secondPage = Files.writeString(tempDir.resolve("codenarc-1-org.html"), "second").toFile();
+        try (RecordedReport.Recording recording = recordedReport.record(new SinkMock().initialize())) {
+            render(recording.getSink());
+            recording.commit("fingerprint", List.of(firstPage, secondPage));
+        }
+        boolean upToDate = recordedReport.isUpToDate("fingerprint");
+
+        //when
+        assertTrue(secondPage.setLastModified(secondPage.lastModified() - 60_000));
+        boolean upToDateAfterModification = recordedReport.isUpToDate("fingerprint");
+        Files.delete(firstPage.toPath());
+        boolean upToDateAfterDeletion = recordedReport.isUpToDate("fingerprint");
+
+        //then
+        assertTrue(upToDate);
+        assertFalse(upToDateAfterModification);
+        assertFalse(upToDateAfterDeletion);
+    }
+
+    @Test
+    void shouldNotBeUpToDate_whenRecordingNotCommitted() throws Exception {
+        //given
+        RecordedReport recordedReport = new RecordedReport(tempDir.toFile(), "codenarc");
+        try (RecordedReport.Recording recording = recordedReport.record(new SinkMock().initialize())) {
+            render(recording.getSink());
+            recording.commit("fingerprint");
+        }
+
+        //when
+        try (RecordedReport.Recording recording = recordedReport.record(new SinkMock().initialize())) {
+            render(recording.getSink());
+        }
+
+        //then
+        assertFalse(recordedReport.isUpToDate("fingerprint"));
+        try (var files = Files.list(tempDir)) {
+            assertThat(files.map(file -> file.getFileName().toString()).toArray(), arrayContaining("codenarc.events"));
+        }
+    }
+
+    @Test
+    void shouldRefuseToCommit_whenEventArgumentCannotBeRecorded() throws Exception {
+        //given
+        RecordedReport recordedReport = new RecordedReport(tempDir.toFile(), "codenarc");
+
+        //when, then
+        try (RecordedReport.Recording recording = recordedReport.record(new SinkMock().initialize())) {
+            recording.getSink().tableRows(new int[] { Sink.JUSTIFY_LEFT }, false);
+            assertThrows(IOException.class, () -> recording.commit("fingerprint"));
+        }
+        assertFalse(recordedReport.isUpToDate("fingerprint"));
+    }
+
+    @Test
+    void fingerprint_shouldChange_whenContentOrSettingsChange() throws Exception {
+        //given
+        File input = Files.writeString(tempDir.resolve("CodeNarc.xml"), "<CodeNarc/>").toFile();
+        String original = RecordedReport.fingerprint(input, "en", "false");
+
+        //when
+        String sameInputs = RecordedReport.fingerprint(input, "en", "false");
+        String otherSettings = RecordedReport.fingerprint(input, "de", "false");
+        Files.writeString(input.toPath(), "<CodeNarc version='1.5'/>");
+        String otherContent = RecordedReport.fingerprint(input, "en", "false");
+
+        //then
+        assertThat(sameInputs, equalTo(original));
+        assertThat(otherSettings, not(equalTo(original)));
+        assertThat(otherContent, not(equalTo(original)));
+    }
+
+    private static void render(Sink sink) {
+        sink.head();
+        sink.title();
+        sink.text("CodeNarc Report");
+        sink.title_();
+        sink.head_();
+        sink.body();
+        sink.paragraph();
+        sink.text("def greeting = 'Grüß Gott'");
+        sink.paragraph_();
+        sink.verbatim(null);
+        sink.text(null);
+        sink.verbatim_();
+        sink.link("codenarc-1-default.html");
+        sink.text("(default package)");
+        sink.link_();
+        sink.body_();
+    }
+}
@@ -25,12 +25,19 @@ public enum ReportElements {
     PACKAGE_SUMMARY_PRIORITY_ONE_VIOLATIONS_HEADER("//body/section1[3]/table//tableHeaderCell[4]/text()"),
     PACKAGE_SUMMARY_PRIORITY_TWO_VIOLATIONS_HEADER("//body/section1[3]/table//tableHeaderCell[5]/text()"),
     PACKAGE_SUMMARY_PRIORITY_THREE_VIOLATIONS_HEADER("//body/section1[3]/table//tableHeaderCell[6]/text()"),
-    FILES_TITLE("//body/section1[4]/sectionTitle1/text()"),
-    FILES_SOURCE_DIRECTORY_CAPTION("//body/section1[4]/sectionTitle2/text()"),
-    FILES_RULE_NAME_HEADER("//body/section1[4]/table//tableHeaderCell[1]/text()"),
-    FILES_PRIORITY_HEADER("//body/section1[4]/table//tableHeaderCell[2]/text()"),
-    FILES_LINE_HEADER("//body/section1[4]/table//tableHeaderCell[3]/text()"),
-    FILES_SOURCE_LINE_MESSAGE_HEADER("//body/section1[4]/table//tableHeaderCell[4]/text()");
+    RULE_SUMMARY_TITLE("//body/section1[4]/sectionTitle1/text()"),
+    RULE_SUMMARY_RULE_NAME_HEADER("//body/section1[4]/table//tableHeaderCell[1]/text()"),
+    RULE_SUMMARY_PRIORITY_HEADER("//body/section1[4]/table//tableHeaderCell[2]/text()"),
+    RULE_SUMMARY_TOTAL_VIOLATIONS_HEADER("//body/section1[4]/table//tableHeaderCell[3]/text()"),
+    RULE_SUMMARY_FILES_WITH_VIOLATIONS_HEADER("//body/section1[4]/table//tableHeaderCell[4]/text()"),
+    RULE_SUMMARY_PACKAGES_WITH_VIOLATIONS_HEADER("//body/section1[4]/table//tableHeaderCell[5]/text()"),
+    FILES_TITLE("//body/section1[5]/sectionTitle1/text()"),
+    FILES_SOURCE_DIRECTORY_CAPTION("//body/section1[5]/sectionTitle2/text()"),
+    FILES_RULE_NAME_HEADER("//body/section1[5]/table//tableHeaderCell[1]/text()"),
+    FILES_PRIORITY_HEADER("//body/section1[5]/table//tableHeaderCell[2]/text()"),
+    FILES_LINE_HEADER("//body/section1[5]/table//tableHeaderCell[3]/text()"),
+    FILES_SOURCE_LINE_MESSAGE_HEADER("//body/section1[5]/table//tableHeaderCell[4]/text()"),
+    FILES_TABLE_CELLS("//body/section1[5]/table//tableCell");
 
     private final String xpath;
 
@@ -0,0 +1,82 @@
+package io.github.crizzis.codenarc.report;
+
+import io.github.crizzis.codenarc.util.Phrasify;
+import org.codenarc.results.DirectoryResults;
+import org.codenarc.results.Results;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static io.github.crizzis.codenarc.report.ResultWalker.*;
+import static io.github.crizzis.codenarc.util.ResultsFixtures.directory;
+import static io.github.crizzis.codenarc.util.ResultsFixtures.file;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+
+@DisplayNameGeneration(Phrasify.class)
+class ResultWalkerTest {
+
+    private final ResultWalker walker = new ResultWalker();
+
+    @Test
+    void shouldVisitFilesBeforeSubdirectories_whenDirectoryHasBoth() {
+        //given
+        DirectoryResults root = new DirectoryResults(null);
+        DirectoryResults sourceRoot = directory(root, "");
+        DirectoryResults com = directory(sourceRoot, "com");
+        file(sourceRoot, "Root.groovy");
+        DirectoryResults org = directory(sourceRoot, "org");
+        file(com, "B.groovy");
+        file(com, "A.groovy");
+        directory(com, "com/empty");
+        file(org, "C.groovy");
+
+        //when
+        List<String> visited = walk(root, DIRECTORIES_WITH_FILES.or(FILES).or(SOURCE_ROOTS));
+
+        //then
+        assertThat(visited, contains("", "Root.groovy", "com", "B.groovy", "A.groovy", "org", "C.groovy"));
+    }
+
+    @Test
+    void shouldVisitSourceRootsOnly_whenFilteredBySourceRoots() {
+        //given
+        DirectoryResults root = new DirectoryResults(null);
+        file(directory(directory(root, ""), "com"), "A.groovy");
+        directory(root, "");
+
+        //when
+        List<String> visited = walk(root, SOURCE_ROOTS);
+
+        //then
+        assertThat(visited, contains("", ""));
+    }
+
+    @Test
+    void shouldVisitAllPackages_whenPackageDepthExceedsStackDepth() {
+        //given
+        DirectoryResults root = new DirectoryResults(null);
+        DirectoryResults parent = directory(root, "");
+        for (int depth = 0; depth < 100_000; depth++) {
+            parent = directory(parent, "p" + depth);
+            file(parent, "A.groovy");
+        }
+
+        //when
+        List<String> visited = walk(root, DIRECTORIES_WITH_FILES);
+
+        //then
+        assertThat(visited.size(), equalTo(100_000));
+        assertThat(visited.get(99_999), equalTo("p99999"));
+    }
+
+    private List<String> walk(Results root, Predicate<Results> filter) {
+        List<String> visited = new ArrayList<>();
+        walker.walk(root, filter, results -> visited.add(results.getPath()));
+        return visited;
+    }
+}
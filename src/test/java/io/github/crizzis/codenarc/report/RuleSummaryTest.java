@@ -0,0 +1,83 @@
+package io.github.crizzis.codenarc.report;
+
+import io.github.crizzis.codenarc.report.RuleSummary.RuleTotals;
+import io.github.crizzis.codenarc.util.Phrasify;
+import org.codenarc.results.DirectoryResults;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static io.github.crizzis.codenarc.util.ResultsFixtures.directory;
+import static io.github.crizzis.codenarc.util.ResultsFixtures.file;
+import static io.github.crizzis.codenarc.util.ResultsFixtures.violations;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+
+@DisplayNameGeneration(Phrasify.class)
+class RuleSummaryTest {
+
+    private final DirectoryResults root = new DirectoryResults(null);
+    private final DirectoryResults sourceRoot = directory(root, "");
+
+    @Test
+    void shouldCountEveryFileAndPackageOnce_whenRuleViolatedRepeatedly() {
+        //given
+        DirectoryResults first = directory(sourceRoot, "com/first");
+        DirectoryResults second = directory(sourceRoot, "com/second");
+        file(first, "A.groovy", violations("UnusedImport", 3, 4));
+        file(first, "B.groovy", violations("UnusedImport", 3, 1), violations("MethodSize", 2, 1));
+        file(second, "C.groovy", violations("UnusedImport", 3, 2));
+        file(second, "D.groovy", violations("EmptyCatchBlock", 1, 1));
+
+        //when
+        List<RuleTotals> rules = RuleSummary.collect(root).getRules();
+
+        //then
+        assertThat(rules, contains(
+                new RuleTotals("UnusedImport", 3, 7, 3, 2),
+                new RuleTotals("EmptyCatchBlock", 1, 1, 1, 1),
+                new RuleTotals("MethodSize", 2, 1, 1, 1)));
+    }
+
+    @Test
+    void shouldCountPackagesOfEverySourceRootSeparately_whenSamePackageInMultipleSourceRoots() {
+        //given
+        file(directory(sourceRoot, "com/example"), "A.groovy", violations("UnusedImport", 3, 1));
+        file(directory(directory(root, ""), "com/example"), "ATest.groovy", violations("UnusedImport", 3, 1));
+
+        //when
+        List<RuleTotals> rules = RuleSummary.collect(root).getRules();
+
+        //then
+        assertThat(rules, contains(new RuleTotals("UnusedImport", 3, 2, 2, 2)));
+    }
+
+    @Test
+    void shouldListEveryRule_whenMoreRulesThanInitialCapacity() {
+        //given
+        DirectoryResults example = directory(sourceRoot, "com/example");
+        for (int i = 0; i < 1000; i++) {
+            file(example, "File" + i + ".groovy", violations(String.format("Rule%04d", i), 2, 1));
+        }
+
+        //when
+        List<RuleTotals> rules = RuleSummary.collect(root).getRules();
+
+        //then
+        assertThat(rules, hasSize(1000));
+        assertThat(rules.get(999), equalTo(new RuleTotals("Rule0999", 2, 1, 1, 1)));
+    }
+
+    @Test
+    void shouldReturnNoRules_whenNoViolations() {
+        //given
+        file(sourceRoot, "Clean.groovy", List.of());
+
+        //when, then
+        assertThat(RuleSummary.collect(root).getRules(), empty());
+    }
+}
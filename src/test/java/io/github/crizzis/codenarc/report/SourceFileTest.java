@@ -0,0 +1,97 @@
+package io.github.crizzis.codenarc.report;
+
+import io.github.crizzis.codenarc.util.Phrasify;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayNameGeneration(Phrasify.class)
+class SourceFileTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldReturnLinesWithoutLineTerminators_whenLinesEndWithMixedTerminators() throws Exception {
+        //given
+        SourceFile source = sourceFile("first\nsecond\r\n\nfourth");
+
+        //when, then
+        assertThat(source.getLineCount(), equalTo(4));
+        assertThat(source.getLine(1), equalTo("first"));
+        assertThat(source.getLine(2), equalTo("second"));
+        assertThat(source.getLine(3), equalTo(""));
+        assertThat(source.getLine(4), equalTo("fourth"));
+    }
+
+    @Test
+    void shouldDecodeLinesWithCharset_whenLinesContainMultiByteCharacters() throws Exception {
+        //given
+        SourceFile source = sourceFile("def greeting = 'Grüß Gott'\ndef café = '☕'\n");
+
+        //when, then
+        assertThat(source.getLineCount(), equalTo(2));
+        assertThat(source.getLine(2), equalTo("def café = '☕'"));
+    }
+
+    @Test
+    void shouldIndexEveryLine_whenMoreLinesThanInitialCapacity() throws Exception {
+        //given
+        StringBuilder content = new StringBuilder();
+        for (int line = 1; line <= 10_000; line++) {
+            content.append("line ").append(line).append('\n');
+        }
+        SourceFile source = sourceFile(content.toString());
+
+        //when, then
+        assertThat(source.getLineCount(), equalTo(10_000));
+        assertThat(source.getLine(7_654), equalTo("line 7654"));
+    }
+
+    @Test
+    void shouldRejectLineNumber_whenOutOfRange() throws Exception {
+        //given
+        SourceFile source = sourceFile("");
+
+        //when, then
+        assertThat(source.getLineCount(), equalTo(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> source.getLine(1));
+    }
+
+    @Test
+    void shouldKeepRequestedLinesOnly_whenLinesRequested() throws Exception {
+        //given
+        BitSet lineNumbers = new BitSet();
+        lineNumbers.set(2, 4);
+
+        //when
+        SourceFile source = sourceFile("first\nsecond\nthird\nfourth\n", lineNumbers);
+
+        //then
+        assertThat(source.getLineCount(), equalTo(4));
+        assertThat(source.getLine(2), equalTo("second"));
+        assertThat(source.getLine(3), equalTo("third"));
+        assertThrows(IllegalStateException.class, () -> source.getLine(1));
+        assertThrows(IllegalStateException.class, () -> source.getLine(4));
+    }
+
+    private SourceFile sourceFile(String content) throws Exception {
+        BitSet lineNumbers = new BitSet();
+        lineNumbers.set(1, content.length() + 2);
+        return sourceFile(content, lineNumbers);
+    }
+
+    private SourceFile sourceFile(String content, BitSet lineNumbers) throws Exception {
+        Path file = Files.writeString(tempDir.resolve("Sample.groovy"), content, UTF_8);
+        return SourceFile.read(file, UTF_8, lineNumbers);
+    }
+}
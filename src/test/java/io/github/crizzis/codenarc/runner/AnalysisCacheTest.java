@@ -0,0 +1,184 @@
+package io.github.crizzis.codenarc.runner;
+
+import io.github.crizzis.codenarc.util.Phrasify;
+import org.codenarc.rule.StubRule;
+import org.codenarc.rule.Violation;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+
+@DisplayNameGeneration(Phrasify.class)
+class AnalysisCacheTest {
+
+    private static final String FINGERPRINT = "fingerprint";
+
+    @TempDir
+    Path tempDir;
+
+    private final AtomicInteger analysisCount = new AtomicInteger();
+
+    @Test
+    void computeIfAbsent_shouldReuseViolations_whenFileIsUnchanged() throws Exception {
+        //given
+        File cacheFile = tempDir.resolve("analysis.cache").toFile();
+        File sourceFile = sourceFile("class A {}");
+        runAnalysis(new AnalysisCache(cacheFile, FINGERPRINT), sourceFile);
+
+        //when
+        List<Violation> violations = runAnalysis(new AnalysisCache(cacheFile, FINGERPRINT), sourceFile);
+
+        //then
+        assertThat(analysisCount.get(), equalTo(1));
+        assertThat(violations, hasSize(1));
+        Violation violation = violations.get(0);
+        assertThat(violation.getRule().getName(), equalTo("EmptyClass"));
+        assertThat(violation.getRule().getPriority(), equalTo(2));
+        assertThat(violation.getLineNumber(), equalTo(1));
+        assertThat(violation.getSourceLine(), equalTo("class A {}"));
+        assertThat(violation.getMessage(), equalTo("Class 'A' is empty"));
+    }
+
+    @Test
+    void computeIfAbsent_shouldReanalyze_whenFileContentChanged() throws Exception {
+        //given
+        File cacheFile = tempDir.resolve("analysis.cache").toFile();
+        File sourceFile = sourceFile("class A {}");
+        runAnalysis(new AnalysisCache(cacheFile, FINGERPRINT), sourceFile);
+        Files.writeString(sourceFile.toPath(), "class B {}");
+
+        //when
+        runAnalysis(new AnalysisCache(cacheFile, FINGERPRINT), sourceFile);
+
+        //then
+        assertThat(analysisCount.get(), equalTo(2));
+    }
+
+    @Test
+    void computeIfAbsent_shouldReanalyze_whenRuleSetFingerprintChanged() throws Exception {
+        //given
+        File cacheFile = tempDir.resolve("analysis.cache").toFile();
+        File sourceFile = sourceFile("class A {}");
+        runAnalysis(new AnalysisCache(cacheFile, FINGERPRINT), sourceFile);
+
+        //when
+        runAnalysis(new AnalysisCache(cacheFile, "other fingerprint"), sourceFile);
+
+        //then
+        assertThat(analysisCount.get(), equalTo(2));
+    }
+
+    @Test
+    void save_shouldRetainEntriesOfSkippedFiles_whenAnalysisFiltered() throws Exception {
+        //given
+        File cacheFile = tempDir.resolve("analysis.cache").toFile();
+        File first = sourceFile("A.groovy", "class A {}");
+        File second = sourceFile("B.groovy", "class B {}");
+        runAnalysis(new AnalysisCache(cacheFile, FINGERPRINT), first, second);
+        runAnalysis(new AnalysisCache(cacheFile, FINGERPRINT), second);
+
+        //when
+        runAnalysis(new AnalysisCache(cacheFile, FINGERPRINT), first, second);
+
+        //then
+        assertThat(analysisCount.get(), equalTo(2));
+    }
+
+    @Test
+    void save_shouldDropEntriesOfDeletedFiles() throws Exception {
+        //given
+        File cacheFile = tempDir.resolve("analysis.cache").toFile();
+        File first = sourceFile("A.groovy", "class A {}");
+        File second = sourceFile("B.groovy", "class B {}");
+        runAnalysis(new AnalysisCache(cacheFile, FINGERPRINT), first, second);
+        Files.delete(first.toPath());
+        runAnalysis(new AnalysisCache(cacheFile, FINGERPRINT), second);
+
+        //when
+        Files.writeString(first.toPath(), "class A {}");
+        runAnalysis(new AnalysisCache(cacheFile, FINGERPRINT), first);
+
+        //then
+        assertThat(analysisCount.get(), equalTo(3));
+    }
+
+    @Test
+    void save_shouldReplaceCacheWithoutLeavingTemporaryFiles() throws Exception {
+        //given
+        File cacheFile = tempDir.resolve("cache/analysis.cache").toFile();
+        File sourceFile = sourceFile("class A {}");
+        runAnalysis(new AnalysisCache(cacheFile, FINGERPRINT), sourceFile);
+
+        //when
+        runAnalysis(new AnalysisCache(cacheFile, FINGERPRINT), sourceFile);
+
+        //then
+        assertThat(analysisCount.get(), equalTo(1));
+        assertThat(cacheFile.getParentFile().list(), arrayContaining("analysis.cache"));
+    }
+
+    @Test
+    void load_shouldIgnoreCorruptCache() throws Exception {
+        //given
+        File cacheFile = tempDir.resolve("analysis.cache").toFile();
+        Files.write(cacheFile.toPath(), new byte[] {0, 0, 0, 1, 42});
+        File sourceFile = sourceFile("class A {}");
+
+        //when
+        List<Violation> violations = runAnalysis(new AnalysisCache(cacheFile, FINGERPRINT), sourceFile);
+
+        //then
+        assertThat(analysisCount.get(), equalTo(1));
+        assertThat(violations, hasSize(1));
+    }
+
+    private List<Violation> runAnalysis(AnalysisCache cache, File... sourceFiles) {
+        cache.load();
+        List<Violation> violations = new ArrayList<>();
+        for (File sourceFile : sourceFiles) {
+            violations.addAll(cache.computeIfAbsent(sourceFile, analysis()));
+        }
+        cache.save();
+        return violations;
+    }
+
+    private Supplier<List<Violation>> analysis() {
+        return () -> {
+            analysisCount.incrementAndGet();
+            return List.of(violation());
+        };
+    }
+
+    private File sourceFile(String content) throws Exception {
+        return sourceFile("A.groovy", content);
+    }
+
+    private File sourceFile(String name, String content) throws Exception {
+        Path sourceFile = tempDir.resolve(name);
+        Files.writeString(sourceFile, content);
+        return sourceFile.toFile();
+    }
+
+    private static Violation violation() {
+        StubRule rule = new StubRule(2);
+        rule.setName("EmptyClass");
+        Violation violation = new Violation();
+        violation.setRule(rule);
+        violation.setLineNumber(1);
+        violation.setSourceLine("class A {}");
+        violation.setMessage("Class 'A' is empty");
+        return violation;
+    }
+}
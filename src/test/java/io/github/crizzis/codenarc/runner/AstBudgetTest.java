@@ -0,0 +1,61 @@
+package io.github.crizzis.codenarc.runner;
+
+import io.github.crizzis.codenarc.util.Phrasify;
+import org.apache.maven.model.FileSet;
+import org.codenarc.ruleset.RuleSet;
+import org.codenarc.ruleset.RuleSetUtil;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+@DisplayNameGeneration(Phrasify.class)
+class AstBudgetTest {
+
+    private static final RuleSet RULE_SET = RuleSetUtil.loadRuleSetFile("rulesets/basic.xml");
+
+    @Test
+    void analyze_shouldParseEachFileExactlyOnce() throws Exception {
+        //given
+        ParseStatistics statistics = new ParseStatistics();
+        FileSetSourceAnalyzer analyzer = new FileSetSourceAnalyzer(List.of(fileSet()), 4,
+                AnalysisCache.disabled(), new AstBudget(0, statistics));
+
+        //when
+        analyzer.analyze(RULE_SET);
+
+        //then
+        assertThat(statistics.getFilesAnalyzed(), equalTo(3));
+        assertThat(statistics.getAstsParsed(), equalTo(3));
+        assertThat(statistics.getLatePhaseRules(), empty());
+    }
+
+    @Test
+    void analyze_shouldNotExceedMaxLiveAsts() throws Exception {
+        //given
+        ParseStatistics statistics = new ParseStatistics();
+        FileSetSourceAnalyzer analyzer = new FileSetSourceAnalyzer(List.of(fileSet()), 4,
+                AnalysisCache.disabled(), new AstBudget(1, statistics));
+
+        //when
+        analyzer.analyze(RULE_SET);
+
+        //then
+        assertThat(statistics.getAstsParsed(), equalTo(3));
+        assertThat(statistics.getPeakLiveAsts(), lessThanOrEqualTo(1));
+    }
+
+    private static FileSet fileSet() throws Exception {
+        FileSet fileSet = new FileSet();
+        fileSet.setDirectory(new File(AstBudgetTest.class.getClassLoader()
+                .getResource("projects/codenarc-minimal-config/src/main/groovy").toURI()).getPath());
+        fileSet.setIncludes(List.of("**/*.groovy"));
+        return fileSet;
+    }
+}
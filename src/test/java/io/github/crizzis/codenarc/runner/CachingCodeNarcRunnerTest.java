@@ -0,0 +1,90 @@
+package io.github.crizzis.codenarc.runner;
+
+import io.github.crizzis.codenarc.util.Phrasify;
+import org.codenarc.rule.size.MethodSizeRule;
+import org.codenarc.ruleset.RuleSet;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@DisplayNameGeneration(Phrasify.class)
+class CachingCodeNarcRunnerTest {
+
+    private static final String RULE_SET = "<ruleset xmlns=\"http://codenarc.org/ruleset/1.0\">"
+            + "<rule class='org.codenarc.rule.size.MethodSizeRule'>"
+            + "<property name='priority' value='1'/>"
+            + "<property name='maxLines' value='42'/>"
+            + "</rule>"
+            + "</ruleset>";
+
+    private static final String STATEFUL_RULE_SET = "<ruleset xmlns=\"http://codenarc.org/ruleset/1.0\">"
+            + "<rule class='io.github.crizzis.codenarc.runner.StatefulRule'>"
+            + "<property name='priority' value='1'/>"
+            + "</rule>"
+            + "</ruleset>";
+
+    @TempDir
+    Path tempDir;
+
+    private final RuleSetCache ruleSetCache = new RuleSetCache();
+
+    @Test
+    void createRuleSet_shouldConfigureNewRules_whenRuleSetShared() throws Exception {
+        //given
+        String url = writeRuleSet(RULE_SET);
+
+        //when
+        MethodSizeRule first = (MethodSizeRule) createRuleSet(url).getRules().get(0);
+        MethodSizeRule second = (MethodSizeRule) createRuleSet(url).getRules().get(0);
+        first.setMaxLines(7);
+
+        //then
+        assertThat(first, not(sameInstance(second)));
+        assertThat(second.getPriority(), equalTo(1));
+        assertThat(second.getMaxLines(), equalTo(42));
+        assertThat(((MethodSizeRule) createRuleSet(url).getRules().get(0)).getMaxLines(), equalTo(42));
+    }
+
+    @Test
+    void createRuleSet_shouldNotShareRuleState_whenRuleSetShared() throws Exception {
+        //given
+        String url = writeRuleSet(STATEFUL_RULE_SET);
+        StatefulRule first = (StatefulRule) createRuleSet(url).getRules().get(0);
+
+        //when
+        first.getAppliedTo().add("Foo.groovy");
+        StatefulRule second = (StatefulRule) createRuleSet(url).getRules().get(0);
+
+        //then
+        assertThat(second.getAppliedTo(), empty());
+        assertThat(second.getPriority(), equalTo(1));
+    }
+
+    @Test
+    void createRuleSet_shouldSkipBlankPaths() throws Exception {
+        //given
+        String url = writeRuleSet(RULE_SET);
+
+        //when
+        RuleSet ruleSet = createRuleSet("," + url + ", ,");
+
+        //then
+        assertThat(ruleSet.getRules().size(), equalTo(1));
+    }
+
+    private String writeRuleSet(String ruleSet) throws Exception {
+        return Files.writeString(tempDir.resolve("ruleset.xml"), ruleSet).toUri().toURL().toString();
+    }
+
+    private RuleSet createRuleSet(String ruleSetFiles) {
+        CachingCodeNarcRunner runner = new CachingCodeNarcRunner(ruleSetCache);
+        runner.setRuleSetFiles(ruleSetFiles);
+        return runner.createRuleSet();
+    }
+}
@@ -0,0 +1,123 @@
+package io.github.crizzis.codenarc.runner;
+
+import io.github.crizzis.codenarc.util.Phrasify;
+import org.apache.maven.model.FileSet;
+import org.codenarc.results.Results;
+import org.codenarc.ruleset.RuleSet;
+import org.codenarc.ruleset.RuleSetUtil;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.File;
+import java.net.URL;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static io.github.crizzis.codenarc.util.CodeNarcResultsMatcher.equalToResults;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayNameGeneration(Phrasify.class)
+class FileSetSourceAnalyzerTest {
+
+    private static final RuleSet RULE_SET = RuleSetUtil.loadRuleSetFile("rulesets/basic.xml");
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 2, 4, 16})
+    void analyze_shouldProduceSameResults_regardlessOfThreadCount(int threads) throws Exception {
+        //given
+        List<FileSet> fileSets = List.of(fileSet("projects/codenarc-minimal-config/src/main/groovy"));
+
+        //when
+        Results sequential = new FileSetSourceAnalyzer(fileSets, 1, AnalysisCache.disabled(), AstBudget.unbounded()).analyze(RULE_SET);
+        Results parallel = new FileSetSourceAnalyzer(fileSets, threads, AnalysisCache.disabled(), AstBudget.unbounded()).analyze(RULE_SET);
+
+        //then
+        assertThat(parallel, equalToResults(sequential));
+    }
+
+    @Test
+    void analyze_shouldBuildDirectoryTreeInFileNameOrder() throws Exception {
+        //given
+        List<FileSet> fileSets = List.of(fileSet("projects/codenarc-minimal-config/src/main/groovy"));
+
+        //when
+        Results results = new FileSetSourceAnalyzer(fileSets, 4, AnalysisCache.disabled(), AstBudget.unbounded()).analyze(RULE_SET);
+        Results sourceRoot = (Results) results.getChildren().get(0);
+        Results examplePackage = (Results) ((Results) sourceRoot.getChildren().get(0)).getChildren().get(0);
+
+        //then
+        assertThat(sourceRoot.getTotalNumberOfFiles(true), equalTo(3));
+        assertThat(paths(examplePackage), contains(
+                endsWith("com/example/TestClassWithSomeViolations.groovy"),
+                equalTo("com/example/nestedpackage")));
+    }
+
+    @Test
+    void analyze_shouldOnlyAnalyzeFilesAccepted_whenSourceFilterSet() throws Exception {
+        //given
+        List<FileSet> fileSets = List.of(fileSet("projects/codenarc-minimal-config/src/main/groovy"));
+        FileSetSourceAnalyzer analyzer = new FileSetSourceAnalyzer(fileSets, 2, AnalysisCache.disabled(), AstBudget.unbounded());
+        analyzer.setSourceFilter(file -> file.getName().equals("TestClassWithSomeViolations.groovy"));
+
+        //when
+        Results results = analyzer.analyze(RULE_SET);
+
+        //then
+        assertThat(results.getTotalNumberOfFiles(true), equalTo(1));
+    }
+
+    @Test
+    void analyze_shouldAbortAnalysis_whenFailFastThresholdExceeded() throws Exception {
+        //given
+        List<FileSet> fileSets = List.of(fileSet("projects/codenarc-minimal-config/src/main/groovy"));
+        FileSetSourceAnalyzer analyzer = new FileSetSourceAnalyzer(fileSets, 1, AnalysisCache.disabled(), AstBudget.unbounded());
+        analyzer.setFailFastThresholds(new ViolationThresholds(-1, 0, -1));
+
+        //when
+        ThresholdExceededException exception = assertThrows(ThresholdExceededException.class, () -> analyzer.analyze(RULE_SET));
+
+        //then
+        assertThat(exception.getPriority(), equalTo(2));
+        assertThat(exception.getThreshold(), equalTo(0));
+        assertThat(exception.getUnanalyzedFiles(), greaterThan(0));
+    }
+
+    @Test
+    void analyze_shouldCompleteAnalysis_whenFailFastThresholdNotExceeded() throws Exception {
+        //given
+        List<FileSet> fileSets = List.of(fileSet("projects/codenarc-minimal-config/src/main/groovy"));
+        FileSetSourceAnalyzer analyzer = new FileSetSourceAnalyzer(fileSets, 2, AnalysisCache.disabled(), AstBudget.unbounded());
+        analyzer.setFailFastThresholds(new ViolationThresholds(100, 100, 100));
+
+        //when
+        Results results = analyzer.analyze(RULE_SET);
+
+        //then
+        assertThat(results.getTotalNumberOfFiles(true), equalTo(3));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> paths(Results directory) {
+        return ((List<Results>) directory.getChildren()).stream()
+                .map(Results::getPath)
+                .collect(Collectors.toList());
+    }
+
+    private static FileSet fileSet(String resourceDirectory) throws Exception {
+        FileSet fileSet = new FileSet();
+        fileSet.setDirectory(new File(resource(resourceDirectory).toURI()).getPath());
+        fileSet.setIncludes(List.of("**/*.groovy"));
+        return fileSet;
+    }
+
+    private static URL resource(String name) {
+        return FileSetSourceAnalyzerTest.class.getClassLoader().getResource(name);
+    }
+}
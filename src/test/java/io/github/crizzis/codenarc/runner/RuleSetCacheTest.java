@@ -0,0 +1,72 @@
+package io.github.crizzis.codenarc.runner;
+
+import io.github.crizzis.codenarc.util.Phrasify;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+@DisplayNameGeneration(Phrasify.class)
+class RuleSetCacheTest {
+
+    private static final String RULE_SET = "<ruleset xmlns=\"http://codenarc.org/ruleset/1.0\">"
+            + "<rule class='org.codenarc.rule.basic.EmptyClassRule'/>"
+            + "</ruleset>";
+
+    @TempDir
+    Path tempDir;
+
+    private final RuleSetCache ruleSetCache = new RuleSetCache();
+
+    @Test
+    void load_shouldReturnCachedRuleSet_whenClasspathRuleSetLoadedAgain() {
+        //given
+        RuleSetDefinition first = ruleSetCache.load("rulesets/basic.xml");
+
+        //when
+        RuleSetDefinition second = ruleSetCache.load("rulesets/basic.xml");
+
+        //then
+        assertThat(second, sameInstance(first));
+    }
+
+    @Test
+    void load_shouldReturnCachedRuleSet_whenFileRuleSetUnchanged() throws Exception {
+        //given
+        String url = writeRuleSet().toUri().toURL().toString();
+        RuleSetDefinition first = ruleSetCache.load(url);
+
+        //when
+        RuleSetDefinition second = ruleSetCache.load(url);
+
+        //then
+        assertThat(second, sameInstance(first));
+        assertThat(second.getRules().size(), equalTo(1));
+    }
+
+    @Test
+    void load_shouldReloadRuleSet_whenFileRuleSetModified() throws Exception {
+        //given
+        Path ruleSetFile = writeRuleSet();
+        String url = ruleSetFile.toUri().toURL().toString();
+        RuleSetDefinition first = ruleSetCache.load(url);
+        ruleSetFile.toFile().setLastModified(ruleSetFile.toFile().lastModified() + 2000);
+
+        //when
+        RuleSetDefinition second = ruleSetCache.load(url);
+
+        //then
+        assertThat(second, not(sameInstance(first)));
+    }
+
+    private Path writeRuleSet() throws Exception {
+        return Files.writeString(tempDir.resolve("ruleset.xml"), RULE_SET);
+    }
+}
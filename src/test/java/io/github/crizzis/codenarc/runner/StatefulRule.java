@@ -0,0 +1,27 @@
+package io.github.crizzis.codenarc.runner;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.codenarc.rule.AbstractRule;
+import org.codenarc.rule.Violation;
+import org.codenarc.source.SourceCode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A rule recording the sources it has been applied to
+ */
+@Getter
+@Setter
+public class StatefulRule extends AbstractRule {
+
+    private String name = "Stateful";
+    private int priority = 2;
+    private final List<String> appliedTo = new ArrayList<>();
+
+    @Override
+    public void applyTo(SourceCode sourceCode, List<Violation> violations) {
+        appliedTo.add(sourceCode.getName());
+    }
+}
@@ -0,0 +1,217 @@
+package io.github.crizzis.codenarc.runner;
+
+import io.github.crizzis.codenarc.ResultsSamples;
+import io.github.crizzis.codenarc.parser.CodeNarcAnalysis;
+import io.github.crizzis.codenarc.parser.CodeNarcSidecar;
+import io.github.crizzis.codenarc.parser.CodeNarcXmlParser;
+import io.github.crizzis.codenarc.util.Phrasify;
+import org.codenarc.AnalysisContext;
+import org.codenarc.report.XmlReportWriter;
+import org.codenarc.results.DirectoryResults;
+import org.codenarc.results.FileResults;
+import org.codenarc.results.Results;
+import org.codenarc.rule.StubRule;
+import org.codenarc.rule.Violation;
+import org.codenarc.ruleset.RuleSetUtil;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static io.github.crizzis.codenarc.util.CodeNarcResultsMatcher.equalToResults;
+import static io.github.crizzis.codenarc.util.MinimalDocumentBuilderFactory.newMinimalInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayNameGeneration(Phrasify.class)
+class StreamingXmlReportWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @ParameterizedTest
+    @MethodSource("results")
+    void writeReport_shouldProduceSameDocumentAsXmlReportWriter(Results results) throws Exception {
+        //given
+        AnalysisContext analysisContext = analysisContext();
+        XmlReportWriter expectedWriter = new XmlReportWriter();
+        expectedWriter.setTitle("Sample Project");
+        StreamingXmlReportWriter writer = new StreamingXmlReportWriter();
+        writer.setTitle("Sample Project");
+        StringWriter expected = new StringWriter();
+        StringWriter actual = new StringWriter();
+
+        //when
+        expectedWriter.writeReport(expected, analysisContext, results);
+        writer.writeReport(actual, analysisContext, results);
+
+        //then
+        Document expectedDocument = withoutTimestamp(expected.toString());
+        Document actualDocument = withoutTimestamp(actual.toString());
+        assertTrue(actualDocument.isEqualNode(expectedDocument), actual::toString);
+    }
+
+    @ParameterizedTest
+    @MethodSource("results")
+    void writeReport_shouldProduceReportParsedSameAsXmlReportWriterOutput(Results results) throws Exception {
+        //given
+        File expectedFile = tempDir.resolve("expected/CodeNarc.xml").toFile();
+        File outputFile = tempDir.resolve("actual/CodeNarc.xml").toFile();
+        XmlReportWriter expectedWriter = new XmlReportWriter();
+        expectedWriter.setTitle("Sample Project");
+        expectedWriter.setOutputFile(expectedFile.getPath());
+        StreamingXmlReportWriter writer = new StreamingXmlReportWriter();
+        writer.setTitle("Sample Project");
+        writer.setOutputFile(outputFile.getPath());
+
+        //when
+        expectedWriter.writeReport(analysisContext(), results);
+        writer.writeReport(analysisContext(), results);
+
+        //then
+        CodeNarcXmlParser parser = new CodeNarcXmlParser();
+        assertThat(parser.parse(outputFile).getResults(), equalToResults(parser.parse(expectedFile).getResults()));
+    }
+
+    @ParameterizedTest
+    @MethodSource("resultsWithSidecar")
+    void writeReport_shouldWriteSidecarLoadedSameAsReport(Results results) throws Exception {
+        //given
+        File outputFile = tempDir.resolve("CodeNarc.xml").toFile();
+        StreamingXmlReportWriter writer = new StreamingXmlReportWriter();
+        writer.setTitle("Sample Project");
+        writer.setOutputFile(outputFile.getPath());
+        writer.setWriteSidecar(true);
+
+        //when
+        writer.writeReport(analysisContext(), results);
+
+        //then
+        CodeNarcXmlParser parser = new CodeNarcXmlParser();
+        CodeNarcAnalysis expected = parser.parse(outputFile);
+        CodeNarcAnalysis loaded = parser.parse(outputFile, 1);
+        assertTrue(CodeNarcSidecar.sidecarFor(outputFile).isFile());
+        assertThat(loaded.getResults(), equalToResults(expected.getResults()));
+        assertThat(loaded.getReportTimestamp(), equalTo(expected.getReportTimestamp()));
+        assertThat(loaded.getSourceDirectories(), equalTo(expected.getSourceDirectories()));
+    }
+
+    @Test
+    void writeReport_shouldWriteSidecarMatchingCompressedReport() throws Exception {
+        //given
+        File outputFile = tempDir.resolve("CodeNarc.xml.gz").toFile();
+        StreamingXmlReportWriter writer = new StreamingXmlReportWriter();
+        writer.setOutputFile(outputFile.getPath());
+        writer.setCompressed(true);
+        writer.setWriteSidecar(true);
+
+        //when
+        writer.writeReport(analysisContext(), ResultsSamples.multiplePackagesResults());
+
+        //then
+        Optional<CodeNarcAnalysis> loaded = CodeNarcSidecar.read(outputFile);
+        assertTrue(loaded.isPresent());
+        assertThat(loaded.get().getResults(), equalToResults(new CodeNarcXmlParser().parse(outputFile).getResults()));
+    }
+
+    @ParameterizedTest
+    @MethodSource("results")
+    void writeReport_shouldWriteCompressedReportParsedSameAsUncompressed(Results results) throws Exception {
+        //given
+        File expectedFile = tempDir.resolve("CodeNarc.xml").toFile();
+        File outputFile = tempDir.resolve("CodeNarc.xml.gz").toFile();
+        StreamingXmlReportWriter expectedWriter = new StreamingXmlReportWriter();
+        expectedWriter.setOutputFile(expectedFile.getPath());
+        StreamingXmlReportWriter writer = new StreamingXmlReportWriter();
+        writer.setOutputFile(outputFile.getPath());
+        writer.setCompressed(true);
+
+        //when
+        expectedWriter.writeReport(analysisContext(), results);
+        writer.writeReport(analysisContext(), results);
+
+        //then
+        CodeNarcXmlParser parser = new CodeNarcXmlParser();
+        try (InputStream input = new GZIPInputStream(new FileInputStream(outputFile))) {
+            assertThat(input.readAllBytes().length, equalTo((int) expectedFile.length()));
+        }
+        assertThat(parser.parse(outputFile).getResults(), equalToResults(parser.parse(expectedFile).getResults()));
+    }
+
+    @Test
+    void writeReport_shouldSplitCDataSections_whenTextContainsCDataTerminator() throws Exception {
+        //given
+        Results results = resultsWithSourceLine("def x = a[b[0]]>0 ]]>");
+        StringWriter output = new StringWriter();
+
+        //when
+        new StreamingXmlReportWriter().writeReport(output, analysisContext(), results);
+
+        //then
+        Document document = parse(output.toString());
+        document.normalizeDocument();
+        assertThat(document.getElementsByTagName("SourceLine").item(0).getTextContent(), equalTo("def x = a[b[0]]>0 ]]>"));
+    }
+
+    static Stream<Results> results() {
+        return Stream.of(
+                ResultsSamples.emptyResults(),
+                ResultsSamples.defaultPackageSingleFileResults(),
+                ResultsSamples.regularPackageMultipleFilesResults(),
+                ResultsSamples.multiplePackagesResults(),
+                ResultsSamples.multipleSourcesResults());
+    }
+
+    static Stream<Results> resultsWithSidecar() {
+        return Stream.concat(results(), Stream.of(
+                resultsWithSourceLine("def x = 'a\r\nb\u0001c' ]]> "),
+                resultsWithSourceLine(" \t leading whitespace")));
+    }
+
+    private static Results resultsWithSourceLine(String sourceLine) {
+        StubRule rule = new StubRule(2);
+        rule.setName("SampleRule");
+        Violation violation = new Violation();
+        violation.setRule(rule);
+        violation.setLineNumber(1);
+        violation.setSourceLine(sourceLine);
+        violation.setMessage("Sample message");
+        DirectoryResults sourceRoot = new DirectoryResults("", 1);
+        sourceRoot.addChild(new FileResults("Sample.groovy", List.of(violation)));
+        DirectoryResults root = new DirectoryResults(null, 1);
+        root.addChild(sourceRoot);
+        return root;
+    }
+
+    private static AnalysisContext analysisContext() {
+        AnalysisContext analysisContext = new AnalysisContext();
+        analysisContext.setRuleSet(RuleSetUtil.loadRuleSetFile("rulesets/imports.xml"));
+        analysisContext.setSourceDirectories(List.of("src/main/groovy", "src/test/groovy"));
+        return analysisContext;
+    }
+
+    private static Document withoutTimestamp(String xml) throws Exception {
+        Document document = parse(xml);
+        document.getDocumentElement().getElementsByTagName("Report").item(0).getAttributes().removeNamedItem("timestamp");
+        return document;
+    }
+
+    private static Document parse(String xml) throws Exception {
+        return newMinimalInstance().newDocumentBuilder().parse(new InputSource(new StringReader(xml)));
+    }
+}
@@ -0,0 +1,44 @@
+package io.github.crizzis.codenarc.util;
+
+import lombok.experimental.UtilityClass;
+import org.codenarc.results.DirectoryResults;
+import org.codenarc.results.FileResults;
+import org.codenarc.rule.StubRule;
+import org.codenarc.rule.Violation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds results trees for tests, one directory and file at a time
+ */
+@UtilityClass
+public final class ResultsFixtures {
+
+    public static DirectoryResults directory(DirectoryResults parent, String path) {
+        DirectoryResults directory = new DirectoryResults(path);
+        parent.addChild(directory);
+        return directory;
+    }
+
+    @SafeVarargs
+    public static void file(DirectoryResults parent, String name, List<Violation>... violations) {
+        List<Violation> fileViolations = new ArrayList<>();
+        for (List<Violation> ruleViolations : violations) {
+            fileViolations.addAll(ruleViolations);
+        }
+        parent.addChild(new FileResults(name, fileViolations));
+    }
+
+    public static List<Violation> violations(String ruleName, int priority, int count) {
+        StubRule rule = new StubRule(priority);
+        rule.setName(ruleName);
+        List<Violation> violations = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Violation violation = new Violation();
+            violation.setRule(rule);
+            violations.add(violation);
+        }
+        return violations;
+    }
+}